@@ -0,0 +1,98 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Depósitos con la bitácora abierta: un fsync por registro contra commit grupal (un force() cubre todos
+ * los registros escritos hasta ese momento). Cada depósito vuelve solo cuando es durable.
+ *
+ * Corre con 8 hilos, que es cuando el commit grupal junta registros; esperar el disco no ocupa CPU, así que
+ * también tiene sentido en una máquina de un núcleo. El resultado es ns/op por hilo: las transacciones por
+ * segundo son 8 * 10^9 / (ns/op). El archivo va en el directorio temporal: el disco decide los números.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkBitacora -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@Threads(8)
+public class BenchmarkBitacora {
+
+    private static final int CUENTAS = 1000;
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+
+    @Param({ "grupal", "porRegistro" })
+    public String bitacora;
+
+    private Path directorio;
+    private Cooperativa cooperativa;
+    private Cuenta[] cuentas;
+
+    @State(Scope.Thread)
+    public static class Hilo {
+        long siguiente = System.identityHashCode(this);
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        directorio = Files.createTempDirectory("cooperativa-bench");
+        cooperativa = new Cooperativa("Bench", "Local");
+        cooperativa.abrirBitacora(directorio.resolve("bench.bitacora"), bitacora.equals("grupal"));
+        cuentas = new Cuenta[CUENTAS];
+        for (int i = 0; i < CUENTAS; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cuentas[i] = new CuentaAhorros("N" + i, new BigDecimal("1000.00"), null, new BigDecimal("0.01"));
+            cooperativa.agregarCuentaASocio("C" + i, cuentas[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        cooperativa.close();
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object deposito(Hilo hilo) {
+        return cooperativa.intentarTransaccion(new Deposito(cuentas[indice(hilo.siguiente++)], MONTO));
+    }
+
+    // Recorrido disperso y reproducible de las cuentas (ver BenchmarkNucleo)
+    private static int indice(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) CUENTAS);
+    }
+}
@@ -0,0 +1,83 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.Socio;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Búsqueda de un socio por cédula con 10 mil, 100 mil y 1 millón de socios: el índice por cédula contra
+ * el recorrido de todos los socios comparando la cédula, que es como buscaba la cooperativa antes del
+ * índice. El recorrido queda como referencia; con 1 millón de socios cada búsqueda tarda milisegundos.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkCedulas -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BenchmarkCedulas {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int tamano;
+
+    private Cooperativa cooperativa;
+    private String[] cedulas;
+    // Los socios en el orden del registro, para el recorrido lineal
+    private List<Socio> socios;
+    private long siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        cooperativa = new Cooperativa("Bench", "Local");
+        cedulas = new String[tamano];
+        for (int i = 0; i < tamano; i++) {
+            cedulas[i] = "C" + i;
+            cooperativa.agregarSocio(new Socio("Socio " + i, cedulas[i]));
+        }
+        socios = cooperativa.listarSocios();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        cooperativa.close();
+    }
+
+    @Benchmark
+    public Socio indicePorCedula() throws Exception {
+        return cooperativa.buscarSocioPorCedula(cedulas[indice(siguiente++)]);
+    }
+
+    @Benchmark
+    public Socio recorridoLineal() {
+        String cedula = cedulas[indice(siguiente++)];
+        for (Socio socio : socios) {
+            if (socio.getCedula().equals(cedula)) {
+                return socio;
+            }
+        }
+        return null;
+    }
+
+    // Recorrido disperso y reproducible de las cédulas (ver BenchmarkNucleo)
+    private int indice(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) tamano);
+    }
+}
@@ -0,0 +1,124 @@
+package cooperativa.bench;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Saldos en centavos (long) contra la referencia en BigDecimal, que es como los guardaba la cuenta antes:
+ * depósitos en una cuenta y suma de los saldos de "tamano" cuentas. Pensado para correr con "-prof gc":
+ * la diferencia principal está en los bytes reservados por operación.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkDinero -prof gc -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BenchmarkDinero {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+
+    @Param({ "1000", "100000" })
+    public int tamano;
+
+    private Cuenta[] cuentas;
+    private SaldoDecimal[] referencia;
+    private long siguiente;
+
+    // El saldo de la cuenta antes de los centavos: un BigDecimal reemplazado en cada movimiento
+    static final class SaldoDecimal {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile BigDecimal saldo;
+
+        SaldoDecimal(BigDecimal saldo) {
+            this.saldo = saldo;
+        }
+
+        void depositar(BigDecimal monto) {
+            if (monto == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("El monto debe ser mayor que cero.");
+            }
+            lock.lock();
+            try {
+                saldo = saldo.add(monto);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        cuentas = new Cuenta[tamano];
+        referencia = new SaldoDecimal[tamano];
+        for (int i = 0; i < tamano; i++) {
+            cuentas[i] = new CuentaAhorros("N" + i, SALDO_INICIAL, null, new BigDecimal("0.01"));
+            referencia[i] = new SaldoDecimal(SALDO_INICIAL);
+        }
+    }
+
+    @Benchmark
+    public Cuenta depositoCentavos() {
+        Cuenta cuenta = cuentas[indice(siguiente++)];
+        cuenta.depositarCentavos(1);
+        return cuenta;
+    }
+
+    // La API en BigDecimal sobre los centavos: convierte el monto en la entrada
+    @Benchmark
+    public Cuenta depositoDesdeDecimal() {
+        Cuenta cuenta = cuentas[indice(siguiente++)];
+        cuenta.depositar(MONTO);
+        return cuenta;
+    }
+
+    @Benchmark
+    public SaldoDecimal depositoReferenciaDecimal() {
+        SaldoDecimal saldo = referencia[indice(siguiente++)];
+        saldo.depositar(MONTO);
+        return saldo;
+    }
+
+    @Benchmark
+    public long sumaCentavos() {
+        long total = 0;
+        for (Cuenta cuenta : cuentas) {
+            total += cuenta.getSaldoCentavos();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal sumaReferenciaDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (SaldoDecimal saldo : referencia) {
+            total = total.add(saldo.saldo);
+        }
+        return total;
+    }
+
+    // Recorrido disperso y reproducible de las cuentas (ver BenchmarkNucleo)
+    private int indice(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) tamano);
+    }
+}
@@ -0,0 +1,109 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.EstadoCuenta;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Transaccion;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Estado de cuenta mensual de una cuenta con "tamano" transacciones en su historial (un depósito por hora
+ * desde el año 2000, unas 730 por mes). estadoDeCuenta usa los puntos de control; "recorridoCompleto" es
+ * la referencia de antes: recorre todo el historial de la cuenta filtrando por fecha y sumando los saldos.
+ * Cada operación pide un mes distinto de todo el período.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkEstadoCuenta -prof gc -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BenchmarkEstadoCuenta {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("100.00");
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+
+    @Param({ "1000000" })
+    public int tamano;
+
+    private Cooperativa cooperativa;
+    private Cuenta cuenta;
+    private int meses;
+    private long siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        cooperativa = new Cooperativa("Bench", "Local");
+        cooperativa.agregarSocio(new Socio("Socio", "C1"));
+        cuenta = new CuentaAhorros("N1", SALDO_INICIAL, INICIO, new BigDecimal("0.01"));
+        cooperativa.agregarCuentaASocio("C1", cuenta);
+        for (int i = 0; i < tamano; i++) {
+            cooperativa.ejecutarTransaccion(new Deposito(cuenta, MONTO, INICIO.plusHours(i)));
+        }
+        meses = (int) (tamano / (24 * 365 / 12));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        cooperativa.close();
+    }
+
+    @Benchmark
+    public EstadoCuenta estadoDeCuenta() throws Exception {
+        LocalDateTime desde = INICIO.plusMonths(mes(siguiente++));
+        return cooperativa.estadoDeCuenta(cuenta.getNumeroCuenta(), desde, desde.plusMonths(1));
+    }
+
+    @Benchmark
+    public EstadoCuenta recorridoCompleto() {
+        LocalDateTime desde = INICIO.plusMonths(mes(siguiente++));
+        LocalDateTime hasta = desde.plusMonths(1);
+        BigDecimal saldoInicial = SALDO_INICIAL;
+        BigDecimal saldoFinal = SALDO_INICIAL;
+        List<Transaccion> periodo = new ArrayList<>();
+        Iterator<Transaccion> transacciones = cuenta.getTransacciones().iterator();
+        while (transacciones.hasNext()) {
+            Deposito deposito = (Deposito) transacciones.next();
+            if (deposito.getFecha().isBefore(desde)) {
+                saldoInicial = saldoInicial.add(deposito.getMonto());
+            } else if (deposito.getFecha().isBefore(hasta)) {
+                periodo.add(deposito);
+            }
+            if (deposito.getFecha().isBefore(hasta)) {
+                saldoFinal = saldoFinal.add(deposito.getMonto());
+            }
+        }
+        return new EstadoCuenta(cuenta.getNumeroCuenta(), desde, hasta, saldoInicial, saldoFinal, periodo);
+    }
+
+    // Recorrido disperso y reproducible de los meses (ver BenchmarkNucleo)
+    private int mes(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) meses);
+    }
+}
@@ -0,0 +1,146 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Transferencia;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Carga mixta con 4 hilos: por cada transferencia, 50 lecturas. La mitad de las lecturas pide el saldo de
+ * una cuenta y la otra mitad un corte de dos cuentas (el total de las dos, sin ver una transferencia a
+ * medias). "mixtoSinCandado" lee como la cooperativa: getSaldo sin candado y corteDeSaldos con épocas.
+ * "mixtoConCandado" es la referencia con las lecturas bajo los candados de las cuentas (en el orden de las
+ * transferencias), que compiten con los escritores. Cada operación es una lectura o una transferencia.
+ *
+ * Con 1 CPU los hilos no corren a la vez y la contención casi no aparece: la comparación que importa se
+ * graba en una máquina de 4 núcleos o más.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkLecturas -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@Threads(4)
+public class BenchmarkLecturas {
+
+    private static final int LECTURAS_POR_ESCRITURA = 50;
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+    // Las transferencias van y vienen al azar: ninguna cuenta se queda sin saldo durante la medición
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("10000000.00");
+
+    // Pocas cuentas: lectores y escritores coinciden a menudo en la misma cuenta
+    @Param({ "1000" })
+    public int tamano;
+
+    private Cooperativa cooperativa;
+    private Cuenta[] cuentas;
+
+    // Recorrido propio de cada hilo
+    @State(Scope.Thread)
+    public static class Hilo {
+        long siguiente;
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        cooperativa = new Cooperativa("Bench", "Local");
+        cuentas = new Cuenta[tamano];
+        for (int i = 0; i < tamano; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cuentas[i] = new CuentaAhorros("N" + i, SALDO_INICIAL, null, new BigDecimal("0.01"));
+            cooperativa.agregarCuentaASocio("C" + i, cuentas[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        cooperativa.close();
+    }
+
+    @Benchmark
+    public Object mixtoSinCandado(Hilo hilo) throws Exception {
+        long i = hilo.siguiente++;
+        int paso = (int) (i % (LECTURAS_POR_ESCRITURA + 1));
+        Cuenta cuenta = cuentas[indice(i)];
+        if (paso == 0) {
+            return transferir(cuenta, otra(i));
+        }
+        if (paso % 2 == 0) {
+            return cuenta.getSaldo();
+        }
+        return cooperativa.corteDeSaldos(List.of(cuenta.getNumeroCuenta(), otra(i).getNumeroCuenta())).getTotal();
+    }
+
+    @Benchmark
+    public Object mixtoConCandado(Hilo hilo) throws Exception {
+        long i = hilo.siguiente++;
+        int paso = (int) (i % (LECTURAS_POR_ESCRITURA + 1));
+        Cuenta cuenta = cuentas[indice(i)];
+        if (paso == 0) {
+            return transferir(cuenta, otra(i));
+        }
+        if (paso % 2 == 0) {
+            cuenta.getLock().lock();
+            try {
+                return cuenta.getSaldo();
+            } finally {
+                cuenta.getLock().unlock();
+            }
+        }
+        Cuenta primera = cooperativa.buscarCuentaPorNumero(cuenta.getNumeroCuenta());
+        Cuenta segunda = cooperativa.buscarCuentaPorNumero(otra(i).getNumeroCuenta());
+        if (primera.getNumeroCuenta().compareTo(segunda.getNumeroCuenta()) > 0) {
+            Cuenta auxiliar = primera;
+            primera = segunda;
+            segunda = auxiliar;
+        }
+        primera.getLock().lock();
+        try {
+            segunda.getLock().lock();
+            try {
+                return primera.getSaldo().add(segunda.getSaldo());
+            } finally {
+                segunda.getLock().unlock();
+            }
+        } finally {
+            primera.getLock().unlock();
+        }
+    }
+
+    private Object transferir(Cuenta origen, Cuenta destino) {
+        return cooperativa.intentarTransaccion(new Transferencia(origen, destino, MONTO));
+    }
+
+    // Una cuenta distinta de la de "i"
+    private Cuenta otra(long i) {
+        return cuentas[(indice(i) + 1 + indice(i + 1) % (tamano - 1)) % tamano];
+    }
+
+    // Recorrido disperso y reproducible de las cuentas (ver BenchmarkNucleo)
+    private int indice(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) tamano);
+    }
+}
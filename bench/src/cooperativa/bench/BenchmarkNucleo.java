@@ -0,0 +1,155 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Benchmarks JMH de las operaciones principales del núcleo, sobre una cooperativa con "tamano" socios de
+ * una cuenta de ahorros cada uno. La cantidad de hilos la fija cada subclase (BenchmarkNucleoUnHilo,
+ * BenchmarkNucleoCuatroHilos) con @Threads: JMH no admite los hilos como @Param.
+ *
+ * Modo "avgt" en ns/op; con "-prof gc" JMH agrega los bytes reservados por operación
+ * (gc.alloc.rate.norm). LineaBase guarda esos dos valores como línea base y marca las regresiones.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkNucleo -prof gc -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public abstract class BenchmarkNucleo {
+
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+    // Alcanza para cientos de millones de retiros por cuenta: el benchmark de retiros nunca se queda sin saldo
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("10000000.00");
+    // Interés de 0,001% por corrida: abona montos no nulos y tarda millones de corridas en desbordar el saldo
+    private static final BigDecimal TASA = new BigDecimal("0.001");
+
+    @Param({ "1000", "100000" })
+    public int tamano;
+
+    private Cooperativa cooperativa;
+    private String[] cedulas;
+    private String[] numeros;
+    private Cuenta[] cuentas;
+    private BigDecimal umbralPrimerPorCiento;
+    // Prefijo de las altas de cada hilo: las claves nunca se repiten entre hilos ni iteraciones
+    private final AtomicInteger hilos = new AtomicInteger();
+
+    // Estado de cada hilo: su prefijo y su recorrido de las cuentas
+    @State(Scope.Thread)
+    public static class Hilo {
+        int prefijo = -1;
+        long siguiente;
+    }
+
+    // Cooperativa nueva por combinación. Los saldos son distintos para que el índice por saldo tenga un
+    // umbral que deja pasar al 1% de las cuentas.
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        cooperativa = new Cooperativa("Bench", "Local");
+        cedulas = new String[tamano];
+        numeros = new String[tamano];
+        cuentas = new Cuenta[tamano];
+        for (int i = 0; i < tamano; i++) {
+            cedulas[i] = "C" + i;
+            numeros[i] = "N" + i;
+            cooperativa.agregarSocio(new Socio("Socio " + i, cedulas[i]));
+            cuentas[i] = new CuentaAhorros(numeros[i], SALDO_INICIAL.add(BigDecimal.valueOf(i)), null, TASA);
+            cooperativa.agregarCuentaASocio(cedulas[i], cuentas[i]);
+        }
+        umbralPrimerPorCiento = SALDO_INICIAL.add(BigDecimal.valueOf(tamano - Math.max(1, tamano / 100)));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        cooperativa.close();
+    }
+
+    @Benchmark
+    public Socio agregarSocio(Hilo hilo) {
+        Socio socio = new Socio("Socio bench", "B" + prefijo(hilo) + "-" + hilo.siguiente++);
+        cooperativa.agregarSocio(socio);
+        return socio;
+    }
+
+    @Benchmark
+    public Cuenta agregarCuentaASocio(Hilo hilo) throws Exception {
+        long i = hilo.siguiente++;
+        Cuenta cuenta = new CuentaAhorros("X" + prefijo(hilo) + "-" + i, SALDO_INICIAL, null, TASA);
+        cooperativa.agregarCuentaASocio(cedulas[indice(i)], cuenta);
+        return cuenta;
+    }
+
+    @Benchmark
+    public Cuenta buscarCuentaPorNumero(Hilo hilo) throws Exception {
+        return cooperativa.buscarCuentaPorNumero(numeros[indice(hilo.siguiente++)]);
+    }
+
+    @Benchmark
+    public Socio buscarSocioPorCedula(Hilo hilo) throws Exception {
+        return cooperativa.buscarSocioPorCedula(cedulas[indice(hilo.siguiente++)]);
+    }
+
+    @Benchmark
+    public Object deposito(Hilo hilo) {
+        return cooperativa.intentarTransaccion(new Deposito(cuentas[indice(hilo.siguiente++)], MONTO));
+    }
+
+    @Benchmark
+    public Object retiro(Hilo hilo) {
+        return cooperativa.intentarTransaccion(new Retiro(cuentas[indice(hilo.siguiente++)], MONTO));
+    }
+
+    @Benchmark
+    public BigDecimal saldoTotalEnCuentas() {
+        return cooperativa.saldoTotalEnCuentas();
+    }
+
+    @Benchmark
+    public long cuentasConSaldoMayorA() {
+        return cooperativa.cuentasConSaldoMayorA(umbralPrimerPorCiento).count();
+    }
+
+    @Benchmark
+    public Cooperativa aplicarInteresAnualCuentasAhorros() {
+        cooperativa.aplicarInteresAnualCuentasAhorros();
+        return cooperativa;
+    }
+
+    private int prefijo(Hilo hilo) {
+        if (hilo.prefijo < 0) {
+            hilo.prefijo = hilos.getAndIncrement();
+        }
+        return hilo.prefijo;
+    }
+
+    // Recorrido disperso y reproducible de las cuentas (sin estado compartido entre hilos)
+    private int indice(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) tamano);
+    }
+}
@@ -0,0 +1,8 @@
+package cooperativa.bench;
+
+import org.openjdk.jmh.annotations.Threads;
+
+// Los benchmarks de BenchmarkNucleo con cuatro hilos: solo tiene sentido medirlos con cuatro núcleos o más
+@Threads(4)
+public class BenchmarkNucleoCuatroHilos extends BenchmarkNucleo {
+}
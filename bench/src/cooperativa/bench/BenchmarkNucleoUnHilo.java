@@ -0,0 +1,8 @@
+package cooperativa.bench;
+
+import org.openjdk.jmh.annotations.Threads;
+
+// Los benchmarks de BenchmarkNucleo con un hilo
+@Threads(1)
+public class BenchmarkNucleoUnHilo extends BenchmarkNucleo {
+}
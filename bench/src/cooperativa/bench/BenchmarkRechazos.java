@@ -0,0 +1,126 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.exceptions.CuentaNoEncontradaException;
+import cooperativa.exceptions.SaldoInsuficienteException;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Retiro;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Carga con muchos rechazos: retiros donde "rechazos"% de las cuentas no tiene saldo, y búsquedas de
+ * cuentas que no existen. Compara la variante con resultado (intentarTransaccion, buscarCuenta) con la
+ * que lanza excepción (ejecutarTransaccion, buscarCuentaPorNumero; las excepciones ya no llevan traza).
+ *
+ * "retiroConTraza" es la referencia de antes: la misma carga, pero cada rechazo lanza y atrapa una
+ * excepción con traza de pila. La pila del benchmark es más corta que la de la aplicación, así que
+ * subestima lo que costaba.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkRechazos -prof gc -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+// Más iteraciones que en BenchmarkNucleo: con 2 de calentamiento, las primeras mediciones salían varias veces más lentas
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkRechazos {
+
+    private static final int CUENTAS = 1000;
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+    private static final BigDecimal SALDO = new BigDecimal("10000000.00");
+
+    @Param({ "90" })
+    public int rechazos;
+
+    private Cooperativa cooperativa;
+    private Cuenta[] cuentas;
+    private String[] inexistentes;
+    private long siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        cooperativa = new Cooperativa("Bench", "Local");
+        cuentas = new Cuenta[CUENTAS];
+        inexistentes = new String[CUENTAS];
+        int sinSaldo = CUENTAS * rechazos / 100;
+        for (int i = 0; i < CUENTAS; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cuentas[i] = new CuentaAhorros("N" + i, (i < sinSaldo) ? BigDecimal.ZERO : SALDO, null,
+                    new BigDecimal("0.01"));
+            cooperativa.agregarCuentaASocio("C" + i, cuentas[i]);
+            inexistentes[i] = "X" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        cooperativa.close();
+    }
+
+    @Benchmark
+    public Object retiroConResultado() {
+        return cooperativa.intentarTransaccion(new Retiro(cuentas[indice(siguiente++)], MONTO));
+    }
+
+    @Benchmark
+    public Object retiroConExcepcion() throws Exception {
+        try {
+            cooperativa.ejecutarTransaccion(new Retiro(cuentas[indice(siguiente++)], MONTO));
+            return Boolean.TRUE;
+        } catch (SaldoInsuficienteException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object retiroConTraza() {
+        try {
+            if (!cooperativa.intentarTransaccion(new Retiro(cuentas[indice(siguiente++)], MONTO)).isExitoso()) {
+                throw new IllegalStateException("Saldo insuficiente para realizar el retiro.");
+            }
+            return Boolean.TRUE;
+        } catch (IllegalStateException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Optional<Cuenta> busquedaFallidaConResultado() {
+        return cooperativa.buscarCuenta(inexistentes[indice(siguiente++)]);
+    }
+
+    @Benchmark
+    public Object busquedaFallidaConExcepcion() {
+        try {
+            return cooperativa.buscarCuentaPorNumero(inexistentes[indice(siguiente++)]);
+        } catch (CuentaNoEncontradaException e) {
+            return e;
+        }
+    }
+
+    // Recorrido disperso y reproducible de las cuentas (ver BenchmarkNucleo)
+    private static int indice(long i) {
+        return (int) Math.floorMod(i * 0x9E3779B97F4A7C15L, (long) CUENTAS);
+    }
+}
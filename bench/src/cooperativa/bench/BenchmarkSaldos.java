@@ -0,0 +1,96 @@
+package cooperativa.bench;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Consultas por saldo con 100 mil y 1 millón de cuentas (saldos al azar entre 0 y 10.000,00): el índice
+ * por saldo (cuentasConSaldoMayorA y cuentasConMayorSaldo) contra el filtro sobre todas las cuentas, que
+ * es como se respondían antes del índice. El umbral deja afuera al 99% de las cuentas y el ranking pide
+ * las 10 de mayor saldo.
+ *
+ * Uso: java -jar bench/target/benchmarks.jar BenchmarkSaldos -rf csv -rff resultados.csv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BenchmarkSaldos {
+
+    private static final long SALDO_MAXIMO = 1_000_000; // centavos
+    private static final long UMBRAL = SALDO_MAXIMO * 99 / 100;
+    private static final int RANKING = 10;
+
+    @Param({ "100000", "1000000" })
+    public int tamano;
+
+    private Cooperativa cooperativa;
+    private BigDecimal umbral;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        cooperativa = new Cooperativa("Bench", "Local");
+        SplittableRandom aleatorio = new SplittableRandom(1);
+        for (int i = 0; i < tamano; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            BigDecimal saldo = BigDecimal.valueOf(aleatorio.nextLong(SALDO_MAXIMO + 1), 2);
+            cooperativa.agregarCuentaASocio("C" + i, new CuentaAhorros("N" + i, saldo, null, new BigDecimal("0.01")));
+        }
+        umbral = BigDecimal.valueOf(UMBRAL, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        cooperativa.close();
+    }
+
+    @Benchmark
+    public long indiceSaldoMayorA() {
+        return cooperativa.cuentasConSaldoMayorA(umbral).mapToLong(Cuenta::getSaldoCentavos).sum();
+    }
+
+    @Benchmark
+    public long filtroSaldoMayorA() {
+        return cooperativa.listarCuentas()
+                .filter(cuenta -> cuenta.getSaldoCentavos() > UMBRAL)
+                .mapToLong(Cuenta::getSaldoCentavos)
+                .sum();
+    }
+
+    @Benchmark
+    public List<Cuenta> indiceMayorSaldo() {
+        return cooperativa.cuentasConMayorSaldo(RANKING).toList();
+    }
+
+    @Benchmark
+    public List<Cuenta> filtroMayorSaldo() {
+        return cooperativa.listarCuentas()
+                .sorted(Comparator.comparingLong(Cuenta::getSaldoCentavos).reversed())
+                .limit(RANKING)
+                .toList();
+    }
+}
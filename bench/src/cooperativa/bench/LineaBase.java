@@ -0,0 +1,168 @@
+package cooperativa.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * Línea base de los benchmarks a partir de los resultados de JMH en CSV (-rf csv, con -prof gc para los
+ * bytes por operación).
+ *
+ * Formato de la línea base: "# comentario" o "<benchmark> <tamaño> <hilos> <ns/op> <B/op>" por línea
+ * (B/op es -1 si no se midió). "benchmark" es el método sin la clase; los parámetros distintos del tamaño
+ * van pegados al nombre ("deposito[bitacora=grupal]").
+ *
+ * Uso: java -cp bench/target/benchmarks.jar cooperativa.bench.LineaBase resultados.csv
+ *          [--guardar archivo] [--comparar archivo] [--tolerancia 0.30]
+ * Con --comparar termina con código 1 si hay regresiones: tiempo por encima de la tolerancia o más bytes
+ * por operación.
+ */
+public final class LineaBase {
+
+    private static final double TOLERANCIA_BYTES = 0.10;
+    private static final String SUFIJO_BYTES = "gc.alloc.rate.norm";
+
+    private LineaBase() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length % 2 == 0) {
+            throw new IllegalArgumentException("Uso: LineaBase resultados.csv [--guardar archivo] [--comparar archivo] [--tolerancia 0.30]");
+        }
+        Map<String, String> opciones = new HashMap<>();
+        for (int i = 1; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Opción inválida: " + args[i]);
+            }
+            opciones.put(args[i].substring(2), args[i + 1]);
+        }
+        Map<String, double[]> resultados = leerCsv(Path.of(args[0]));
+        if (opciones.containsKey("guardar")) {
+            guardar(Path.of(opciones.get("guardar")), resultados);
+        }
+        if (opciones.containsKey("comparar")) {
+            double tolerancia = Double.parseDouble(opciones.getOrDefault("tolerancia", "0.30"));
+            if (comparar(Path.of(opciones.get("comparar")), resultados, tolerancia) > 0) {
+                System.exit(1);
+            }
+        }
+    }
+
+    // Clave "<benchmark> <tamaño> <hilos>" => {ns/op, B/op}
+    static Map<String, double[]> leerCsv(Path archivo) throws IOException {
+        List<String> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+        if (lineas.isEmpty()) {
+            throw new IllegalArgumentException("Resultados vacíos: " + archivo);
+        }
+        List<String> columnas = campos(lineas.get(0));
+        int nombre = columnas.indexOf("Benchmark");
+        int hilos = columnas.indexOf("Threads");
+        int valor = columnas.indexOf("Score");
+        int unidad = columnas.indexOf("Unit");
+        if (nombre < 0 || hilos < 0 || valor < 0 || unidad < 0) {
+            throw new IllegalArgumentException("No es un CSV de JMH: " + archivo);
+        }
+        Map<String, double[]> resultados = new LinkedHashMap<>();
+        for (String linea : lineas.subList(1, lineas.size())) {
+            if (linea.isBlank()) {
+                continue;
+            }
+            List<String> fila = campos(linea);
+            String benchmark = fila.get(nombre);
+            boolean bytes = benchmark.endsWith(SUFIJO_BYTES);
+            if (bytes) {
+                benchmark = benchmark.substring(0, benchmark.lastIndexOf(':'));
+            } else if (benchmark.contains(":") || !fila.get(unidad).equals("ns/op")) {
+                // Otras métricas secundarias, o modos que no son tiempo medio
+                continue;
+            }
+            String tamano = "-";
+            StringBuilder otros = new StringBuilder();
+            for (int i = 0; i < columnas.size(); i++) {
+                String columna = columnas.get(i);
+                if (!columna.startsWith("Param: ") || i >= fila.size() || fila.get(i).isEmpty()) {
+                    continue;
+                }
+                String parametro = columna.substring("Param: ".length());
+                if (parametro.equals("tamano")) {
+                    tamano = fila.get(i);
+                } else {
+                    otros.append(otros.length() == 0 ? "[" : ",").append(parametro).append('=').append(fila.get(i));
+                }
+            }
+            if (otros.length() > 0) {
+                otros.append(']');
+            }
+            String metodo = benchmark.substring(benchmark.lastIndexOf('.') + 1) + otros;
+            String clave = metodo + " " + tamano + " " + fila.get(hilos);
+            double[] medidas = resultados.computeIfAbsent(clave, k -> new double[] { -1, -1 });
+            medidas[bytes ? 1 : 0] = Double.parseDouble(fila.get(valor));
+        }
+        return resultados;
+    }
+
+    private static void guardar(Path archivo, Map<String, double[]> resultados) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        lineas.add("# benchmark tamaño hilos ns/op B/op (" + Runtime.getRuntime().availableProcessors()
+                + " CPU, Java " + System.getProperty("java.version") + ")");
+        resultados.forEach((clave, medidas) -> lineas.add(String.format(Locale.ROOT, "%s %.1f %.1f",
+                clave, medidas[0], medidas[1])));
+        Files.write(archivo, lineas, StandardCharsets.UTF_8);
+        System.out.println("Línea base guardada en " + archivo);
+    }
+
+    private static int comparar(Path archivo, Map<String, double[]> resultados, double tolerancia)
+            throws IOException {
+        Map<String, double[]> base = new HashMap<>();
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            if (linea.isBlank() || linea.startsWith("#")) {
+                continue;
+            }
+            String[] campos = linea.trim().split("\\s+");
+            if (campos.length != 5) {
+                throw new IllegalArgumentException("Línea base inválida: " + linea);
+            }
+            base.put(campos[0] + " " + campos[1] + " " + campos[2],
+                    new double[] { Double.parseDouble(campos[3]), Double.parseDouble(campos[4]) });
+        }
+
+        System.out.printf("%nComparación con %s (tolerancia de tiempo %.0f%%)%n", archivo, tolerancia * 100);
+        int regresiones = 0;
+        for (Map.Entry<String, double[]> resultado : resultados.entrySet()) {
+            double[] anterior = base.get(resultado.getKey());
+            if (anterior == null) {
+                continue;
+            }
+            double[] actual = resultado.getValue();
+            double cambio = actual[0] / anterior[0] - 1;
+            boolean lento = cambio > tolerancia;
+            // Solo cuando ambos lados informan bytes; unos pocos bytes de más no cuentan
+            boolean reservaMas = actual[1] >= 0 && anterior[1] >= 0
+                    && actual[1] > anterior[1] * (1 + TOLERANCIA_BYTES) + 16;
+            if (lento || reservaMas) {
+                regresiones++;
+            }
+            System.out.printf(Locale.ROOT, "%-50s %+7.1f%% tiempo  %10.1f -> %-10.1f B/op  %s%n",
+                    resultado.getKey(), cambio * 100, anterior[1], actual[1],
+                    (lento || reservaMas) ? "REGRESIÓN" : "ok");
+        }
+        System.out.println(regresiones + " regresiones");
+        return regresiones;
+    }
+
+    // Campos de una línea CSV de JMH (entre comillas, sin comillas internas)
+    private static List<String> campos(String linea) {
+        List<String> campos = new ArrayList<>();
+        for (String campo : linea.split(",", -1)) {
+            campos.add(campo.replace("\"", "").trim());
+        }
+        return campos;
+    }
+}
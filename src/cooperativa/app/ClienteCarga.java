@@ -0,0 +1,167 @@
+package cooperativa.app;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * Prueba de carga local del ServidorCooperativa: levanta un servidor en un puerto libre de localhost
+ * (con bitácora en un directorio temporal) y abre cada vez más conexiones simultáneas. Cada conexión
+ * envía una orden, espera la respuesta y envía la siguiente (lazo cerrado): 45% depósitos, 45% retiros
+ * y 10% consultas de saldo. Por nivel reporta órdenes por segundo y latencia p50/p99/p999.
+ *
+ * Uso: java cooperativa.app.ClienteCarga [cuentas] [segundos por nivel] [conexiones1,conexiones2,...]
+ */
+public class ClienteCarga {
+
+    private static final int[] CONEXIONES = {1, 10, 100, 1_000};
+
+    public static void main(String[] args) throws Exception {
+        int cantidadCuentas = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        int segundos = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        int[] niveles = (args.length > 2)
+                ? Arrays.stream(args[2].split(",")).mapToInt(Integer::parseInt).toArray()
+                : CONEXIONES;
+
+        Cooperativa cooperativa = new Cooperativa("Carga", "Cliente");
+        Path directorio = Files.createTempDirectory("cooperativa-carga");
+        directorio.toFile().deleteOnExit();
+        Path bitacora = directorio.resolve("carga.bitacora");
+        cooperativa.abrirBitacora(bitacora, true);
+        for (int i = 0; i < cantidadCuentas; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cooperativa.agregarCuentaASocio("C" + i,
+                    new CuentaAhorros("N" + i, new BigDecimal("1000.00"), null, new BigDecimal("1.5")));
+        }
+
+        System.out.printf("%11s %12s %10s %10s %10s %10s%n", "conexiones", "órdenes/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        try (ServidorCooperativa servidor = new ServidorCooperativa(cooperativa, 0)) {
+            for (int conexiones : niveles) {
+                nivel(servidor.getPuerto(), conexiones, cantidadCuentas, segundos);
+            }
+        } finally {
+            cooperativa.close();
+            Files.deleteIfExists(bitacora);
+        }
+    }
+
+    private static void nivel(int puerto, int conexiones, int cantidadCuentas, int segundos) throws Exception {
+        List<Cliente> clientes = new ArrayList<>(conexiones);
+        for (int i = 0; i < conexiones; i++) {
+            clientes.add(new Cliente(puerto, cantidadCuentas, i));
+        }
+        CountDownLatch listos = new CountDownLatch(1);
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        List<Thread> hilos = new ArrayList<>(conexiones);
+        for (Cliente cliente : clientes) {
+            Thread hilo = new Thread(() -> cliente.ejecutar(listos, fin), "cliente-carga");
+            hilo.start();
+            hilos.add(hilo);
+        }
+        long inicio = System.nanoTime();
+        listos.countDown();
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        int total = 0;
+        for (Cliente cliente : clientes) {
+            total += cliente.cantidad;
+        }
+        long[] latencias = new long[total];
+        int i = 0;
+        for (Cliente cliente : clientes) {
+            System.arraycopy(cliente.latencias, 0, latencias, i, cliente.cantidad);
+            i += cliente.cantidad;
+            cliente.cerrar();
+        }
+        Arrays.sort(latencias);
+        System.out.printf("%11d %12.0f %10.2f %10.2f %10.2f %10.2f%n", conexiones, total / duracion,
+                percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 0.999),
+                (total > 0) ? latencias[total - 1] / 1e6 : 0.0);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+
+    private static final class Cliente {
+        private final Socket socket;
+        private final BufferedReader lector;
+        private final BufferedWriter escritor;
+        private final Random aleatorio;
+        private final int cantidadCuentas;
+        private long[] latencias = new long[1024];
+        private int cantidad;
+
+        Cliente(int puerto, int cantidadCuentas, int semilla) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), puerto);
+            socket.setTcpNoDelay(true);
+            this.lector = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.escritor = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.aleatorio = new Random(semilla);
+            this.cantidadCuentas = cantidadCuentas;
+        }
+
+        void ejecutar(CountDownLatch listos, long fin) {
+            try {
+                listos.await();
+                while (System.nanoTime() < fin) {
+                    String orden = orden();
+                    long inicio = System.nanoTime();
+                    escritor.write(orden);
+                    escritor.write('\n');
+                    escritor.flush();
+                    if (lector.readLine() == null) {
+                        return;
+                    }
+                    if (cantidad == latencias.length) {
+                        latencias = Arrays.copyOf(latencias, cantidad * 2);
+                    }
+                    latencias[cantidad++] = System.nanoTime() - inicio;
+                }
+            } catch (IOException | InterruptedException e) {
+                // Se reporta lo medido hasta el error
+            }
+        }
+
+        private String orden() {
+            String cuenta = "N" + aleatorio.nextInt(cantidadCuentas);
+            String monto = BigDecimal.valueOf(1 + aleatorio.nextInt(10_000), 2).toPlainString();
+            int tipo = aleatorio.nextInt(20);
+            if (tipo < 9) {
+                return "DEPOSITO " + cuenta + " " + monto;
+            }
+            if (tipo < 18) {
+                return "RETIRO " + cuenta + " " + monto;
+            }
+            return "SALDO " + cuenta;
+        }
+
+        void cerrar() throws IOException {
+            socket.close();
+        }
+    }
+}
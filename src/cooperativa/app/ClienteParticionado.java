@@ -0,0 +1,206 @@
+package cooperativa.app;
+
+import cooperativa.core.CooperativaParticionada;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Cliente del protocolo de líneas para una cooperativa repartida en varios procesos, uno por partición
+ * (ver ClusterLocal). Enruta cada orden con la misma regla que CooperativaParticionada: la cuenta va a la
+ * partición de su número y el socio a la de su cédula. Mantiene una conexión por partición y no es seguro
+ * para hilos: cada hilo usa su propio cliente.
+ *
+ * Una transferencia entre particiones se hace como RETIRO en el origen y DEPOSITO en el destino, con claves
+ * de idempotencia derivadas de la clave dada ("<clave>-r", "<clave>-d"): reintentar tras un corte no aplica
+ * nada dos veces. Si el depósito falla, un depósito de compensación ("<clave>-c") devuelve el dinero.
+ * TOTAL y MAYORES se piden a todas las particiones y se combinan aquí; el total solo es exacto cuando no
+ * hay transferencias entre particiones en curso.
+ */
+public class ClienteParticionado implements Closeable {
+
+    private final Conexion[] particiones;
+
+    public ClienteParticionado(int[] puertos) throws IOException {
+        if (puertos == null || puertos.length == 0) {
+            throw new IllegalArgumentException("Se necesita al menos un puerto.");
+        }
+        this.particiones = new Conexion[puertos.length];
+        try {
+            for (int i = 0; i < puertos.length; i++) {
+                particiones[i] = new Conexion(puertos[i]);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // El socio queda en su partición hogar
+    public void socio(String cedula, String nombre) throws IOException {
+        exigirOk(hogar(cedula).orden("SOCIO " + cedula + " " + nombre));
+    }
+
+    // Cada partición exige que el socio exista: si la cuenta cae fuera del hogar, se registra allí también
+    public void cuenta(String cedula, String nombre, String numeroCuenta, BigDecimal saldo, BigDecimal tasa)
+            throws IOException {
+        Conexion destino = particionDe(numeroCuenta);
+        if (destino != hogar(cedula)) {
+            String respuesta = destino.orden("SOCIO " + cedula + " " + nombre);
+            if (!respuesta.startsWith("OK") && !respuesta.contains("Ya existe")) {
+                exigirOk(respuesta);
+            }
+        }
+        exigirOk(destino.orden("CUENTA " + cedula + " " + numeroCuenta + " " + saldo.toPlainString() + " "
+                + tasa.toPlainString()));
+    }
+
+    // Devuelve false si el saldo no alcanza
+    public boolean deposito(String numeroCuenta, BigDecimal monto, String clave) throws IOException {
+        return resultado(particionDe(numeroCuenta).orden("DEPOSITO " + numeroCuenta + " " + monto.toPlainString()
+                + sufijo(clave)));
+    }
+
+    public boolean retiro(String numeroCuenta, BigDecimal monto, String clave) throws IOException {
+        return resultado(particionDe(numeroCuenta).orden("RETIRO " + numeroCuenta + " " + monto.toPlainString()
+                + sufijo(clave)));
+    }
+
+    public boolean transferir(String origen, String destino, BigDecimal monto, String clave) throws IOException {
+        Conexion particionOrigen = particionDe(origen);
+        if (particionOrigen == particionDe(destino)) {
+            return resultado(particionOrigen.orden("TRANSFERENCIA " + origen + " " + destino + " "
+                    + monto.toPlainString() + sufijo(clave)));
+        }
+        if (!retiro(origen, monto, derivada(clave, "r"))) {
+            return false;
+        }
+        try {
+            exigirOk(particionDe(destino).orden("DEPOSITO " + destino + " " + monto.toPlainString()
+                    + sufijo(derivada(clave, "d"))));
+        } catch (IOException | IllegalStateException e) {
+            deposito(origen, monto, derivada(clave, "c"));
+            throw e;
+        }
+        return true;
+    }
+
+    public BigDecimal saldo(String numeroCuenta) throws IOException {
+        return new BigDecimal(exigirOk(particionDe(numeroCuenta).orden("SALDO " + numeroCuenta)));
+    }
+
+    // Dispersión y reunión: se envía la orden a todas las particiones antes de leer la primera respuesta
+    public BigDecimal total() throws IOException {
+        for (Conexion particion : particiones) {
+            particion.enviar("TOTAL");
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Conexion particion : particiones) {
+            total = total.add(new BigDecimal(exigirOk(particion.leer())));
+        }
+        return total;
+    }
+
+    // Líneas "<número> <saldo>" de todas las particiones, de menor a mayor saldo
+    public List<String> mayores(BigDecimal monto) throws IOException {
+        for (Conexion particion : particiones) {
+            particion.enviar("MAYORES " + monto.toPlainString());
+        }
+        List<String> cuentas = new ArrayList<>();
+        for (Conexion particion : particiones) {
+            int cantidad = Integer.parseInt(exigirOk(particion.leer()));
+            for (int i = 0; i < cantidad; i++) {
+                cuentas.add(particion.leer());
+            }
+        }
+        cuentas.sort(Comparator.comparing(linea -> new BigDecimal(linea.substring(linea.indexOf(' ') + 1))));
+        return cuentas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Conexion particion : particiones) {
+            if (particion != null) {
+                particion.socket.close();
+            }
+        }
+    }
+
+    private Conexion hogar(String cedula) {
+        return particiones[CooperativaParticionada.particion(cedula, particiones.length)];
+    }
+
+    private Conexion particionDe(String numeroCuenta) {
+        return particiones[CooperativaParticionada.particion(numeroCuenta, particiones.length)];
+    }
+
+    private static String sufijo(String clave) {
+        return (clave == null) ? "" : " " + clave;
+    }
+
+    private static String derivada(String clave, String paso) {
+        return (clave == null) ? null : clave + "-" + paso;
+    }
+
+    // OK => true; el único rechazo esperado es el saldo insuficiente, cualquier otro error se lanza
+    private static boolean resultado(String respuesta) {
+        if (respuesta.startsWith("OK")) {
+            return true;
+        }
+        if (respuesta.startsWith("ERROR Saldo insuficiente")) {
+            return false;
+        }
+        throw new IllegalStateException(respuesta);
+    }
+
+    // Devuelve lo que sigue a "OK " (vacío si no hay nada)
+    private static String exigirOk(String respuesta) {
+        if (!respuesta.startsWith("OK")) {
+            throw new IllegalStateException(respuesta);
+        }
+        return (respuesta.length() > 3) ? respuesta.substring(3) : "";
+    }
+
+    private static final class Conexion {
+        private final Socket socket;
+        private final BufferedReader lector;
+        private final BufferedWriter escritor;
+
+        Conexion(int puerto) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), puerto);
+            socket.setTcpNoDelay(true);
+            this.lector = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.escritor = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        String orden(String linea) throws IOException {
+            enviar(linea);
+            return leer();
+        }
+
+        void enviar(String linea) throws IOException {
+            escritor.write(linea);
+            escritor.write('\n');
+            escritor.flush();
+        }
+
+        String leer() throws IOException {
+            String respuesta = lector.readLine();
+            if (respuesta == null) {
+                throw new IOException("La partición en el puerto " + socket.getPort() + " cerró la conexión.");
+            }
+            return respuesta;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package cooperativa.app;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Prueba de la cooperativa particionada en procesos separados, en localhost: levanta una JVM por
+ * partición (Main --servidor, cada una con su bitácora en un directorio temporal), abre las cuentas
+ * repartidas con la regla de CooperativaParticionada y lanza hilos que hacen transferencias al azar
+ * entre todas las cuentas con ClienteParticionado. Al terminar verifica que el total se conserva
+ * (TOTAL por dispersión y reunión) y reporta transferencias por segundo. Los procesos se detienen
+ * con ENTER, que cierra su bitácora.
+ *
+ * Uso: java cooperativa.app.ClusterLocal [particiones] [cuentas] [segundos] [hilos]
+ */
+public class ClusterLocal {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+    private static final long ESPERA_ARRANQUE_MS = 30_000;
+
+    public static void main(String[] args) throws Exception {
+        int cantidadParticiones = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+        int cantidadCuentas = (args.length > 1) ? Integer.parseInt(args[1]) : 1_000;
+        int segundos = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+        int cantidadHilos = (args.length > 3) ? Integer.parseInt(args[3]) : 8;
+
+        Path directorio = Files.createTempDirectory("cooperativa-cluster");
+        List<Process> procesos = new ArrayList<>();
+        try {
+            int[] puertos = new int[cantidadParticiones];
+            for (int i = 0; i < cantidadParticiones; i++) {
+                puertos[i] = puertoLibre();
+                procesos.add(lanzar(List.of("-Dcooperativa.bitacora=" + directorio.resolve("particion-" + i + ".bitacora")),
+                        "--servidor", String.valueOf(puertos[i])));
+            }
+            for (int puerto : puertos) {
+                esperarPuerto(puerto);
+            }
+            System.out.println(cantidadParticiones + " particiones en los puertos " + Arrays.toString(puertos));
+
+            try (ClienteParticionado cliente = new ClienteParticionado(puertos)) {
+                for (int i = 0; i < cantidadCuentas; i++) {
+                    cliente.socio("C" + i, "Socio " + i);
+                    cliente.cuenta("C" + i, "Socio " + i, "N" + i, SALDO_INICIAL, new BigDecimal("1.5"));
+                }
+                BigDecimal inicial = cliente.total();
+                long[] resultado = transferir(puertos, cantidadCuentas, segundos, cantidadHilos);
+                BigDecimal fin = cliente.total();
+                System.out.printf("%d transferencias en %d s (%.0f/s), %d rechazadas por saldo%n",
+                        resultado[0], segundos, resultado[0] / (double) segundos, resultado[1]);
+                System.out.println("Total inicial " + inicial + ", total final " + fin
+                        + (inicial.compareTo(fin) == 0 ? " (se conserva)" : " (NO SE CONSERVA)"));
+            }
+        } finally {
+            for (Process proceso : procesos) {
+                detener(proceso);
+            }
+            try (var archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+            Files.deleteIfExists(directorio);
+        }
+    }
+
+    // Devuelve {transferencias, rechazadas}
+    private static long[] transferir(int[] puertos, int cantidadCuentas, int segundos, int cantidadHilos)
+            throws Exception {
+        AtomicLong hechas = new AtomicLong();
+        AtomicLong rechazadas = new AtomicLong();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        CountDownLatch listos = new CountDownLatch(1);
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        List<Thread> hilos = new ArrayList<>(cantidadHilos);
+        for (int h = 0; h < cantidadHilos; h++) {
+            int semilla = h;
+            Thread hilo = new Thread(() -> {
+                Random aleatorio = new Random(semilla);
+                try (ClienteParticionado cliente = new ClienteParticionado(puertos)) {
+                    listos.await();
+                    for (long n = 0; System.nanoTime() < fin; n++) {
+                        int origen = aleatorio.nextInt(cantidadCuentas);
+                        int destino = (origen + 1 + aleatorio.nextInt(cantidadCuentas - 1)) % cantidadCuentas;
+                        BigDecimal monto = BigDecimal.valueOf(1 + aleatorio.nextInt(50_000), 2);
+                        if (cliente.transferir("N" + origen, "N" + destino, monto, "h" + semilla + "-" + n)) {
+                            hechas.incrementAndGet();
+                        } else {
+                            rechazadas.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                }
+            }, "cluster-transferencias");
+            hilo.start();
+            hilos.add(hilo);
+        }
+        listos.countDown();
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return new long[] {hechas.get(), rechazadas.get()};
+    }
+
+    // Main en una JVM hija con el mismo classpath que esta; "opciones" van a la JVM y "argumentos" a Main
+    static Process lanzar(List<String> opciones, String... argumentos) throws IOException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.addAll(opciones);
+        comando.add("cooperativa.app.Main");
+        comando.addAll(Arrays.asList(argumentos));
+        return new ProcessBuilder(comando)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    // Entre cerrar este socket y que la partición abra el puerto otro proceso podría tomarlo; en pruebas basta
+    static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    static void esperarPuerto(int puerto) throws IOException, InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_ARRANQUE_MS;
+        while (true) {
+            try {
+                // Basta con que acepte la conexión
+                new Socket(InetAddress.getLoopbackAddress(), puerto).close();
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > limite) {
+                    throw new IOException("La partición en el puerto " + puerto + " no arrancó.", e);
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    // ENTER detiene el servidor y cierra la bitácora; si no responde, se termina el proceso
+    static void detener(Process proceso) throws InterruptedException {
+        try (OutputStream entrada = proceso.getOutputStream()) {
+            entrada.write('\n');
+        } catch (IOException e) {
+            // El proceso ya terminó
+        }
+        if (!proceso.waitFor(10, TimeUnit.SECONDS)) {
+            proceso.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package cooperativa.app;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.core.ProcesadorAsincrono;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transaccion;
+import cooperativa.transactions.Transferencia;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Generador de carga para el ProcesadorAsincrono: envía transacciones a tasa fija (lazo abierto)
+ * en niveles crecientes y reporta la latencia p50/p99/p999 de cada nivel.
+ *
+ * La latencia se mide desde el instante en que la transacción debía enviarse según la tasa, no desde
+ * que se envió: si la contrapresión retrasa los envíos, ese retraso cuenta (sin omisión coordinada).
+ *
+ * Uso: java cooperativa.app.GeneradorCarga [cuentas] [segundos por nivel] [tasa1,tasa2,...]
+ */
+public class GeneradorCarga {
+
+    private static final int[] TASAS = {1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000};
+
+    public static void main(String[] args) throws Exception {
+        int cantidadCuentas = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        int segundos = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+        int[] tasas = (args.length > 2)
+                ? Arrays.stream(args[2].split(",")).mapToInt(Integer::parseInt).toArray()
+                : TASAS;
+
+        Cooperativa cooperativa = new Cooperativa("Carga", "Generador");
+        Path directorio = Files.createTempDirectory("cooperativa-carga");
+        directorio.toFile().deleteOnExit();
+        Path bitacora = directorio.resolve("carga.bitacora");
+        cooperativa.abrirBitacora(bitacora, true);
+        CuentaAhorros[] cuentas = new CuentaAhorros[cantidadCuentas];
+        for (int i = 0; i < cantidadCuentas; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cuentas[i] = new CuentaAhorros("N" + i, new BigDecimal("1000.00"), null, new BigDecimal("1.5"));
+            cooperativa.agregarCuentaASocio("C" + i, cuentas[i]);
+        }
+
+        System.out.printf("%10s %12s %10s %10s %10s %10s%n", "tasa", "logrado/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        Random aleatorio = new Random(42);
+        try (ProcesadorAsincrono procesador = new ProcesadorAsincrono(cooperativa)) {
+            for (int tasa : tasas) {
+                nivel(procesador, cuentas, tasa, segundos, aleatorio);
+            }
+        } finally {
+            cooperativa.close();
+            Files.deleteIfExists(bitacora);
+            Files.deleteIfExists(bitacora.resolveSibling(bitacora.getFileName() + ".snapshot"));
+        }
+    }
+
+    private static void nivel(ProcesadorAsincrono procesador, CuentaAhorros[] cuentas, int tasa, int segundos,
+                              Random aleatorio) throws InterruptedException {
+        int cantidad = tasa * segundos;
+        long intervalo = 1_000_000_000L / tasa;
+        long[] latencias = new long[cantidad];
+        CompletableFuture<?>[] futuros = new CompletableFuture<?>[cantidad];
+        long inicio = System.nanoTime();
+        for (int i = 0; i < cantidad; i++) {
+            long programado = inicio + i * intervalo;
+            long espera = programado - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            int indice = i;
+            futuros[i] = procesador.enviar(transaccion(cuentas, aleatorio))
+                    .whenComplete((resultado, error) -> latencias[indice] = System.nanoTime() - programado);
+        }
+        CompletableFuture.allOf(futuros).exceptionally(error -> null).join();
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        Arrays.sort(latencias);
+        System.out.printf("%10d %12.0f %10.2f %10.2f %10.2f %10.2f%n", tasa, cantidad / duracion,
+                percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 0.999),
+                latencias[cantidad - 1] / 1e6);
+    }
+
+    // 40% depósitos, 40% retiros (algunos rechazados por saldo), 20% transferencias
+    private static Transaccion transaccion(CuentaAhorros[] cuentas, Random aleatorio) {
+        CuentaAhorros cuenta = cuentas[aleatorio.nextInt(cuentas.length)];
+        BigDecimal monto = BigDecimal.valueOf(1 + aleatorio.nextInt(10_000), 2);
+        int tipo = aleatorio.nextInt(10);
+        if (tipo < 4 || cuentas.length < 2) {
+            return new Deposito(cuenta, monto);
+        }
+        if (tipo < 8) {
+            return new Retiro(cuenta, monto);
+        }
+        CuentaAhorros destino;
+        do {
+            destino = cuentas[aleatorio.nextInt(cuentas.length)];
+        } while (destino == cuenta);
+        return new Transferencia(cuenta, destino, monto);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
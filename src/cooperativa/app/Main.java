@@ -1,6 +1,11 @@
 package cooperativa.app;
 
+import cooperativa.core.CargaMasiva;
 import cooperativa.core.Cooperativa;
+import cooperativa.core.ReplicaCooperativa;
+import cooperativa.core.ResultadoCarga;
+import cooperativa.core.ResultadoOperacion;
+import cooperativa.core.ServidorReplicacion;
 import cooperativa.exceptions.CuentaDuplicadaExceptions;
 import cooperativa.exceptions.CuentaNoEncontradaException;
 import cooperativa.exceptions.SocioNoEncontradoException;
@@ -11,17 +16,48 @@ import cooperativa.transactions.Deposito;
 import cooperativa.transactions.Retiro;
 import cooperativa.transactions.Transaccion;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Scanner;
 
 public class Main {
 
     private static final Scanner SCANNER = new Scanner(System.in);
     private static final Cooperativa COOPERATIVA = new Cooperativa("CoopRKC", "Calle PapiQuiero Piña");
+    // Archivo de la bitácora (se puede cambiar con -Dcooperativa.bitacora=ruta)
+    private static final Path BITACORA = Path.of(System.getProperty("cooperativa.bitacora", "cooprkc.bitacora"));
+    private static final int PUERTO = 7070;
+    // Puerto de replicación del servidor (-Dcooperativa.replicacion=puerto; sin él no se replica)
+    private static final String PUERTO_REPLICACION = System.getProperty("cooperativa.replicacion");
+    // Intervalo de los snapshots periódicos en segundos (-Dcooperativa.snapshots=segundos)
+    private static final long SEGUNDOS_SNAPSHOT = Long.getLong("cooperativa.snapshots", 300);
+    // Fallos de una carga masiva que se muestran (el resto solo se cuenta)
+    private static final int FALLOS_VISIBLES = 20;
 
     public static void main(String[] args) {
+        // --replica <puerto del primario> [puerto]: réplica de lectura en memoria, sin bitácora propia
+        if (args.length > 1 && args[0].equals("--replica")) {
+            replicar(Integer.parseInt(args[1]), (args.length > 2) ? Integer.parseInt(args[2]) : PUERTO);
+            cerrar();
+            return;
+        }
+        abrirBitacora();
+        // --importar <archivo>: carga masiva de socios y cuentas (CSV o snapshot, ver CargaMasiva)
+        if (args.length > 1 && args[0].equals("--importar")) {
+            importar(Path.of(args[1]));
+            cerrar();
+            return;
+        }
+        // --servidor [puerto]: en lugar del menú, atiende clientes por red en localhost (ver ServidorCooperativa)
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            servir((args.length > 1) ? Integer.parseInt(args[1]) : PUERTO);
+            cerrar();
+            return;
+        }
         // Booleano para controlar el bucle principal
         boolean seguir = true;
         while (seguir) {
@@ -50,9 +86,54 @@ public class Main {
                 SCANNER.nextLine();
             }
         }
+        cerrar();
         System.out.println("¡Hasta luego!");
     }
 
+    // Recupera el estado guardado y deja la bitácora abierta para las nuevas operaciones
+    private static void abrirBitacora() {
+        try {
+            COOPERATIVA.abrirBitacora(BITACORA, true);
+            COOPERATIVA.iniciarSnapshotsPeriodicos(Duration.ofSeconds(SEGUNDOS_SNAPSHOT));
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo abrir la bitácora: " + e.getMessage());
+        }
+    }
+
+    // Cierra la bitácora y libera el historial en disco
+    private static void cerrar() {
+        try {
+            COOPERATIVA.close();
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo cerrar la cooperativa: " + e.getMessage());
+        }
+    }
+
+    private static void importar(Path archivo) {
+        ResultadoCarga resultado;
+        try {
+            resultado = CargaMasiva.importar(COOPERATIVA, archivo);
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("⚠️ No se pudo importar " + archivo + ": " + e.getMessage());
+            return;
+        }
+        System.out.println(resultado.getLineas() + " líneas en " + resultado.getMilis() + " ms: "
+                + resultado.getSocios() + " socios y " + resultado.getCuentas() + " cuentas agregados, "
+                + resultado.getFallos().size() + " con error.");
+        resultado.getFallos().stream()
+                .limit(FALLOS_VISIBLES)
+                .forEach(fallo -> System.out.println("  línea " + fallo.linea() + ": " + fallo.motivo()));
+        if (resultado.getFallos().size() > FALLOS_VISIBLES) {
+            System.out.println("  ...");
+        }
+        // Un snapshot deja la bitácora compacta en lugar de un registro por cada alta
+        try {
+            COOPERATIVA.tomarSnapshot();
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("⚠️ No se pudo tomar el snapshot: " + e.getMessage());
+        }
+    }
+
     private static void imprimirEncabezado() {
         String header = """
             ================================================================================
@@ -75,10 +156,49 @@ public class Main {
                 Institución Universitaria Digital de Antioquia.
                 2025
             ================================================================================
-                """;
+            """;
         System.out.println(header);
     }
 
+    private static void servir(int puerto) {
+        try (ServidorCooperativa servidor = new ServidorCooperativa(COOPERATIVA, puerto);
+             ServidorReplicacion replicacion = (PUERTO_REPLICACION != null)
+                     ? new ServidorReplicacion(COOPERATIVA, Integer.parseInt(PUERTO_REPLICACION)) : null) {
+            System.out.println("Escuchando en localhost:" + servidor.getPuerto()
+                    + ((replicacion != null) ? ", replicación en " + replicacion.getPuerto() : "")
+                    + " (ENTER para detener)");
+            esperarFin();
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("⚠️ No se pudo iniciar el servidor: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Réplica: la cooperativa local solo cambia con el flujo del primario; el servidor rechaza las escrituras
+    private static void replicar(int puertoPrimario, int puerto) {
+        try (ReplicaCooperativa replica = new ReplicaCooperativa(COOPERATIVA, puertoPrimario);
+             ServidorCooperativa servidor = new ServidorCooperativa(COOPERATIVA, puerto, true)) {
+            System.out.println("Réplica de localhost:" + puertoPrimario + ", lecturas en localhost:"
+                    + servidor.getPuerto() + " (ENTER para detener)");
+            esperarFin();
+            System.out.println("Réplica detenida en la secuencia " + replica.getSecuenciaAplicada() + ".");
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo iniciar la réplica: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void esperarFin() throws InterruptedException {
+        if (SCANNER.hasNextLine()) {
+            SCANNER.nextLine();
+        } else {
+            // Sin entrada estándar: atiende hasta que terminen el proceso
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+
     private static void mostrarMenu() {
         System.out.println("=== CoopRKC - Cooperativa MultiActiva ===");
         System.out.println("1. Registrar socio");
@@ -142,12 +262,11 @@ public class Main {
 
         Cuenta cuenta = COOPERATIVA.buscarCuentaPorNumero(numero);
         Transaccion retiro = new Retiro(cuenta, monto);
-        try {
-            COOPERATIVA.ejecutarTransaccion(retiro);
+        ResultadoOperacion resultado = COOPERATIVA.intentarTransaccion(retiro);
+        if (resultado.isExitoso())
             System.out.println("Retiro realizado. Saldo: " + cuenta.getSaldo());
-        } catch (Exception e) {
-            System.out.println("No se pudo retirar: " + e.getMessage());
-        }
+        else
+            System.out.println("No se pudo retirar: " + resultado.getMensaje());
     }
 
     // 5) Listar nombres de socios (streams: map + forEach con method reference)
@@ -159,11 +278,11 @@ public class Main {
     // 6) Filtrar cuentas con saldo > 500000
     private static void cuentasSaldoMayor() {
         System.out.println("\n * Cuentas con saldo > 500000 *");
-        List<Cuenta> lista = COOPERATIVA.cuentasConSaldoMayorA(new BigDecimal("500000"));
-        if (lista.isEmpty())
+        Iterator<Cuenta> cuentas = COOPERATIVA.cuentasConSaldoMayorA(new BigDecimal("500000")).iterator();
+        if (!cuentas.hasNext())
             System.out.println("(sin resultados)");
         else
-            lista.forEach(System.out::println);
+            cuentas.forEachRemaining(System.out::println);
     }
 
     // 7) Total de dinero (reduce)
@@ -181,11 +300,11 @@ public class Main {
     // 9) Ver historial global de transacciones
     private static void verHistorial() {
         System.out.println("\n * Historial global de transacciones *");
-        var historial = COOPERATIVA.getHistorialTransacciones();
-        if (historial.isEmpty())
+        Iterator<Transaccion> historial = COOPERATIVA.getHistorialTransacciones().iterator();
+        if (!historial.hasNext())
             System.out.println("(Sin transacciones)");
         else
-            historial.forEach(System.out::println);
+            historial.forEachRemaining(System.out::println);
     }
 
     // Utilidad: lectura robusta de Decimales (admite coma o punto)
@@ -0,0 +1,293 @@
+package cooperativa.app;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Prueba de la replicación en procesos separados, en localhost: un primario (Main --servidor con
+ * bitácora, replicación y snapshots cada 2 s, así que también se compacta) y varias réplicas
+ * (Main --replica). Etapas:
+ *   1. Carga de escrituras en el primario mientras se mide el retraso de cada réplica (METRICAS).
+ *   2. Se reinicia el primario: las réplicas se reconectan y retoman desde su posición.
+ *   3. Se reinicia la primera réplica: empieza desde cero (snapshot si ya se compactó).
+ *   4. Otra carga.
+ * Tras cada etapa, espera a que todas las réplicas converjan (mismo TOTAL y mismas cuentas con saldo
+ * en MAYORES 0 que el primario) y reporta cuánto tardaron.
+ *
+ * Uso: java cooperativa.app.ReplicacionLocal [réplicas] [cuentas] [segundos por carga] [hilos]
+ */
+public class ReplicacionLocal {
+
+    private static final long ESPERA_CONVERGENCIA_MS = 60_000;
+
+    private final Path directorio;
+    private final int puertoPrimario;
+    private final int puertoReplicacion;
+    private final int[] puertosReplicas;
+    private Process primario;
+    private final Process[] replicas;
+
+    private ReplicacionLocal(Path directorio, int cantidadReplicas) throws IOException {
+        this.directorio = directorio;
+        this.puertoPrimario = ClusterLocal.puertoLibre();
+        this.puertoReplicacion = ClusterLocal.puertoLibre();
+        this.puertosReplicas = new int[cantidadReplicas];
+        this.replicas = new Process[cantidadReplicas];
+        for (int i = 0; i < cantidadReplicas; i++) {
+            puertosReplicas[i] = ClusterLocal.puertoLibre();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cantidadReplicas = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+        int cantidadCuentas = (args.length > 1) ? Integer.parseInt(args[1]) : 1_000;
+        int segundos = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+        int cantidadHilos = (args.length > 3) ? Integer.parseInt(args[3]) : 4;
+
+        Path directorio = Files.createTempDirectory("cooperativa-replicacion");
+        ReplicacionLocal prueba = new ReplicacionLocal(directorio, cantidadReplicas);
+        try {
+            prueba.iniciarPrimario();
+            for (int i = 0; i < cantidadReplicas; i++) {
+                prueba.iniciarReplica(i);
+            }
+            try (Conexion primario = new Conexion(prueba.puertoPrimario)) {
+                for (int i = 0; i < cantidadCuentas; i++) {
+                    primario.exigirOk("SOCIO C" + i + " Socio " + i);
+                    primario.exigirOk("CUENTA C" + i + " N" + i + " 1000.00 1.5");
+                }
+            }
+            prueba.convergencia("alta de " + cantidadCuentas + " cuentas");
+
+            prueba.carga(cantidadCuentas, segundos, cantidadHilos, 0);
+            prueba.convergencia("carga 1");
+
+            ClusterLocal.detener(prueba.primario);
+            prueba.iniciarPrimario();
+            prueba.convergencia("primario reiniciado");
+
+            ClusterLocal.detener(prueba.replicas[0]);
+            prueba.iniciarReplica(0);
+            prueba.convergencia("réplica 0 reiniciada");
+
+            prueba.carga(cantidadCuentas, segundos, cantidadHilos, 1);
+            prueba.convergencia("carga 2");
+        } finally {
+            prueba.detenerTodo();
+            try (var archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+            Files.deleteIfExists(directorio);
+        }
+    }
+
+    private void iniciarPrimario() throws IOException, InterruptedException {
+        primario = ClusterLocal.lanzar(List.of("-Dcooperativa.bitacora=" + directorio.resolve("primario.bitacora"),
+                        "-Dcooperativa.replicacion=" + puertoReplicacion, "-Dcooperativa.snapshots=2"),
+                "--servidor", String.valueOf(puertoPrimario));
+        ClusterLocal.esperarPuerto(puertoPrimario);
+        ClusterLocal.esperarPuerto(puertoReplicacion);
+    }
+
+    private void iniciarReplica(int indice) throws IOException, InterruptedException {
+        replicas[indice] = ClusterLocal.lanzar(List.of(), "--replica", String.valueOf(puertoReplicacion),
+                String.valueOf(puertosReplicas[indice]));
+        ClusterLocal.esperarPuerto(puertosReplicas[indice]);
+    }
+
+    private void detenerTodo() throws InterruptedException {
+        for (Process replica : replicas) {
+            if (replica != null) {
+                ClusterLocal.detener(replica);
+            }
+        }
+        if (primario != null) {
+            ClusterLocal.detener(primario);
+        }
+    }
+
+    // Depósitos, retiros y transferencias al azar en el primario; un hilo aparte mide el retraso de las réplicas
+    private void carga(int cantidadCuentas, int segundos, int cantidadHilos, int semilla) throws Exception {
+        AtomicLong ordenes = new AtomicLong();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        CountDownLatch listos = new CountDownLatch(1);
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < cantidadHilos; h++) {
+            Random aleatorio = new Random(semilla * 1_000L + h);
+            Thread hilo = new Thread(() -> {
+                try (Conexion conexion = new Conexion(puertoPrimario)) {
+                    listos.await();
+                    while (System.nanoTime() < fin) {
+                        int origen = aleatorio.nextInt(cantidadCuentas);
+                        int destino = (origen + 1 + aleatorio.nextInt(cantidadCuentas - 1)) % cantidadCuentas;
+                        String monto = BigDecimal.valueOf(1 + aleatorio.nextInt(50_000), 2).toPlainString();
+                        String orden = switch (aleatorio.nextInt(3)) {
+                            case 0 -> "DEPOSITO N" + origen + " " + monto;
+                            case 1 -> "RETIRO N" + origen + " " + monto;
+                            default -> "TRANSFERENCIA N" + origen + " N" + destino + " " + monto;
+                        };
+                        conexion.orden(orden);
+                        ordenes.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                }
+            }, "replicacion-carga");
+            hilo.start();
+            hilos.add(hilo);
+        }
+
+        AtomicBoolean midiendo = new AtomicBoolean(true);
+        long[] maximoPendientes = new long[replicas.length];
+        long[] maximoRetraso = new long[replicas.length];
+        Thread medicion = new Thread(() -> {
+            List<Conexion> conexiones = new ArrayList<>();
+            try {
+                for (int puerto : puertosReplicas) {
+                    conexiones.add(new Conexion(puerto));
+                }
+                while (midiendo.get()) {
+                    for (int i = 0; i < conexiones.size(); i++) {
+                        List<String> metricas = conexiones.get(i).lista("METRICAS");
+                        maximoPendientes[i] = Math.max(maximoPendientes[i], medida(metricas, "replica.pendientes"));
+                        maximoRetraso[i] = Math.max(maximoRetraso[i], medida(metricas, "replica.retraso_ms"));
+                    }
+                    Thread.sleep(100);
+                }
+            } catch (Exception e) {
+                error.compareAndSet(null, e);
+            } finally {
+                for (Conexion conexion : conexiones) {
+                    conexion.close();
+                }
+            }
+        }, "replicacion-medicion");
+        medicion.start();
+
+        listos.countDown();
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        midiendo.set(false);
+        medicion.join();
+        if (error.get() != null) {
+            throw error.get();
+        }
+        System.out.printf("%d órdenes en %d s (%.0f/s)%n", ordenes.get(), segundos, ordenes.get() / (double) segundos);
+        for (int i = 0; i < replicas.length; i++) {
+            System.out.printf("  réplica %d: retraso máximo %d registros, %d ms%n", i, maximoPendientes[i], maximoRetraso[i]);
+        }
+    }
+
+    // Espera a que cada réplica muestre el mismo estado que el primario (sin escrituras en curso)
+    private void convergencia(String etapa) throws Exception {
+        String esperado;
+        try (Conexion conexion = new Conexion(puertoPrimario)) {
+            esperado = estado(conexion);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < puertosReplicas.length; i++) {
+            try (Conexion conexion = new Conexion(puertosReplicas[i])) {
+                while (!estado(conexion).equals(esperado)) {
+                    if (System.nanoTime() - inicio > TimeUnit.MILLISECONDS.toNanos(ESPERA_CONVERGENCIA_MS)) {
+                        throw new IllegalStateException("La réplica " + i + " no convergió tras " + etapa + ".");
+                    }
+                    Thread.sleep(10);
+                }
+            }
+        }
+        System.out.printf("%s: %d réplicas convergen en %.0f ms (%s)%n", etapa, puertosReplicas.length,
+                (System.nanoTime() - inicio) / 1e6, esperado.substring(0, esperado.indexOf('\n')));
+    }
+
+    private static String estado(Conexion conexion) throws IOException {
+        StringBuilder estado = new StringBuilder(conexion.exigirOk("TOTAL")).append('\n');
+        for (String linea : conexion.lista("MAYORES 0")) {
+            estado.append(linea).append('\n');
+        }
+        return estado.toString();
+    }
+
+    private static long medida(List<String> metricas, String nombre) {
+        String prefijo = "medida " + nombre + " ";
+        for (String linea : metricas) {
+            if (linea.startsWith(prefijo)) {
+                return Long.parseLong(linea.substring(prefijo.length()));
+            }
+        }
+        return 0;
+    }
+
+    private static final class Conexion implements Closeable {
+        private final Socket socket;
+        private final BufferedReader lector;
+        private final BufferedWriter escritor;
+
+        Conexion(int puerto) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), puerto);
+            socket.setTcpNoDelay(true);
+            this.lector = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.escritor = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        String orden(String linea) throws IOException {
+            escritor.write(linea);
+            escritor.write('\n');
+            escritor.flush();
+            String respuesta = lector.readLine();
+            if (respuesta == null) {
+                throw new IOException("El servidor en el puerto " + socket.getPort() + " cerró la conexión.");
+            }
+            return respuesta;
+        }
+
+        // Devuelve lo que sigue a "OK "
+        String exigirOk(String linea) throws IOException {
+            String respuesta = orden(linea);
+            if (!respuesta.startsWith("OK")) {
+                throw new IllegalStateException(linea + ": " + respuesta);
+            }
+            return (respuesta.length() > 3) ? respuesta.substring(3) : "";
+        }
+
+        // Órdenes que responden "OK <n>" y n líneas
+        List<String> lista(String linea) throws IOException {
+            int cantidad = Integer.parseInt(exigirOk(linea));
+            List<String> lineas = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                lineas.add(lector.readLine());
+            }
+            return lineas;
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ya estaba cerrada
+            }
+        }
+    }
+}
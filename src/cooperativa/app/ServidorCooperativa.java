@@ -0,0 +1,250 @@
+package cooperativa.app;
+
+import cooperativa.core.Cooperativa;
+import cooperativa.core.ResultadoOperacion;
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transaccion;
+import cooperativa.transactions.Transferencia;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/*
+ * Servidor de protocolo de líneas sobre la cooperativa, solo en localhost. Cada conexión se
+ * atiende en su propio hilo: virtual si la JVM los tiene (Java 21+), si no de un pool que crece
+ * según haga falta. Todas las conexiones comparten el núcleo, que ya es seguro para hilos.
+ *
+ * Una orden por línea, campos separados por espacios (el nombre del socio va al final y puede tenerlos):
+ *   SOCIO <cédula> <nombre>                      -> OK <id>
+ *   CUENTA <cédula> <número> <saldo> <tasa>      -> OK
+ *   DEPOSITO <número> <monto> [clave]            -> OK <saldo>
+ *   RETIRO <número> <monto> [clave]              -> OK <saldo> | ERROR <motivo>
+ *   TRANSFERENCIA <origen> <destino> <monto> [clave] -> OK <saldo origen> | ERROR <motivo>
+ *   SALDO <número>                               -> OK <saldo>
+ *   TOTAL                                        -> OK <total>
+ *   INTERES                                      -> OK
+ *   SOCIOS                                       -> OK <n> y n líneas con nombres
+ *   MAYORES <monto>                              -> OK <n> y n líneas "<número> <saldo>"
+ *   METRICAS                                     -> OK <n> y n líneas (ver Metricas.reporte)
+ *   SALIR                                        -> OK y se cierra la conexión
+ * Con clave de idempotencia, reenviar la misma orden tras un timeout devuelve el resultado original
+ * sin aplicarla dos veces (el saldo informado es el actual).
+ * Cualquier error de la orden responde "ERROR <mensaje>" y la conexión sigue abierta.
+ * Las respuestas se vacían cuando no quedan órdenes por leer: un cliente puede enviar varias seguidas.
+ * En modo solo lectura (sobre una réplica, ver ReplicaCooperativa) las órdenes que escriben responden ERROR.
+ */
+public class ServidorCooperativa implements Closeable {
+
+    private static final Set<String> ESCRITURAS = Set.of("SOCIO", "CUENTA", "DEPOSITO", "RETIRO", "TRANSFERENCIA", "INTERES");
+
+    private final Cooperativa cooperativa;
+    private final boolean soloLectura;
+    private final ServerSocket servidor;
+    private final ExecutorService conexiones;
+    private final Thread aceptador;
+    private final Set<Socket> abiertas = ConcurrentHashMap.newKeySet();
+
+    // Puerto 0: el sistema elige uno libre (ver getPuerto)
+    public ServidorCooperativa(Cooperativa cooperativa, int puerto) throws IOException {
+        this(cooperativa, puerto, false);
+    }
+
+    public ServidorCooperativa(Cooperativa cooperativa, int puerto, boolean soloLectura) throws IOException {
+        if (cooperativa == null) {
+            throw new IllegalArgumentException("La cooperativa no puede ser nula.");
+        }
+        this.cooperativa = cooperativa;
+        this.soloLectura = soloLectura;
+        this.servidor = new ServerSocket();
+        servidor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 1024);
+        this.conexiones = hilosPorConexion();
+        this.aceptador = new Thread(this::aceptar, "cooperativa-servidor");
+        aceptador.setDaemon(true);
+        aceptador.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        for (Socket socket : abiertas) {
+            socket.close();
+        }
+        conexiones.shutdown();
+    }
+
+    private static ExecutorService hilosPorConexion() {
+        try {
+            // Se busca por reflexión para seguir compilando y corriendo en Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(tarea -> {
+                Thread hilo = new Thread(tarea, "cooperativa-conexion");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    private void aceptar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                socket.setTcpNoDelay(true);
+                abiertas.add(socket);
+                conexiones.execute(() -> atender(socket));
+            } catch (IOException e) {
+                // Servidor cerrado (o conexión fallida al aceptar): el bucle decide si sigue
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader lector = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter escritor = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                boolean seguir = responder(linea.trim(), escritor);
+                if (!seguir || !lector.ready()) {
+                    escritor.flush();
+                }
+                if (!seguir) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión o el servidor se está cerrando
+        } finally {
+            abiertas.remove(socket);
+        }
+    }
+
+    // Devuelve false si la conexión debe cerrarse
+    private boolean responder(String linea, BufferedWriter escritor) throws IOException {
+        String[] campos = linea.split("\\s+", 3);
+        String orden = campos[0].toUpperCase(Locale.ROOT);
+        if (soloLectura && ESCRITURAS.contains(orden)) {
+            escribir(escritor, "ERROR Réplica de solo lectura: las escrituras van al primario.");
+            return true;
+        }
+        try {
+            switch (orden) {
+                case "SOCIO" -> {
+                    Socio socio = new Socio(argumento(campos, 2), argumento(campos, 1));
+                    cooperativa.agregarSocio(socio);
+                    escribir(escritor, "OK " + socio.getId());
+                }
+                case "CUENTA" -> {
+                    String[] partes = linea.split("\\s+");
+                    if (partes.length != 5) {
+                        throw new IllegalArgumentException("Uso: CUENTA <cédula> <número> <saldo> <tasa>");
+                    }
+                    cooperativa.agregarCuentaASocio(partes[1], new CuentaAhorros(partes[2], decimal(partes[3]),
+                            LocalDateTime.now(), decimal(partes[4])));
+                    escribir(escritor, "OK");
+                }
+                case "DEPOSITO", "RETIRO" -> {
+                    String[] partes = linea.split("\\s+");
+                    if (partes.length < 3 || partes.length > 4) {
+                        throw new IllegalArgumentException("Uso: " + orden + " <número> <monto> [clave]");
+                    }
+                    Cuenta cuenta = cooperativa.buscarCuentaPorNumero(partes[1]);
+                    BigDecimal monto = decimal(partes[2]);
+                    Transaccion transaccion = orden.equals("DEPOSITO") ? new Deposito(cuenta, monto) : new Retiro(cuenta, monto);
+                    ResultadoOperacion resultado = (partes.length == 4)
+                            ? cooperativa.intentarTransaccion(partes[3], transaccion)
+                            : cooperativa.intentarTransaccion(transaccion);
+                    escribir(escritor, resultado.isExitoso() ? "OK " + cuenta.getSaldo() : "ERROR " + resultado.getMensaje());
+                }
+                case "TRANSFERENCIA" -> {
+                    String[] partes = linea.split("\\s+");
+                    if (partes.length < 4 || partes.length > 5) {
+                        throw new IllegalArgumentException("Uso: TRANSFERENCIA <origen> <destino> <monto> [clave]");
+                    }
+                    Cuenta origen = cooperativa.buscarCuentaPorNumero(partes[1]);
+                    Transaccion transaccion = new Transferencia(origen, cooperativa.buscarCuentaPorNumero(partes[2]),
+                            decimal(partes[3]));
+                    ResultadoOperacion resultado = (partes.length == 5)
+                            ? cooperativa.intentarTransaccion(partes[4], transaccion)
+                            : cooperativa.intentarTransaccion(transaccion);
+                    escribir(escritor, resultado.isExitoso() ? "OK " + origen.getSaldo() : "ERROR " + resultado.getMensaje());
+                }
+                case "SALDO" -> escribir(escritor, "OK " + cooperativa.buscarCuentaPorNumero(argumento(campos, 1)).getSaldo());
+                case "TOTAL" -> escribir(escritor, "OK " + cooperativa.saldoTotalEnCuentas());
+                case "INTERES" -> {
+                    cooperativa.aplicarInteresAnualCuentasAhorros();
+                    escribir(escritor, "OK");
+                }
+                case "SOCIOS" -> escribirLista(escritor, cooperativa.listarNombresSocios().collect(Collectors.toList()));
+                case "MAYORES" -> escribirLista(escritor, cooperativa.cuentasConSaldoMayorA(decimal(argumento(campos, 1)))
+                        .map(cuenta -> cuenta.getNumeroCuenta() + " " + cuenta.getSaldo())
+                        .collect(Collectors.toList()));
+                case "METRICAS" -> escribirLista(escritor, cooperativa.reporteMetricas().lines().collect(Collectors.toList()));
+                case "SALIR" -> {
+                    escribir(escritor, "OK");
+                    return false;
+                }
+                default -> escribir(escritor, "ERROR Orden desconocida: " + campos[0]);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            escribir(escritor, "ERROR " + e.getMessage());
+        }
+        return true;
+    }
+
+    private static String argumento(String[] campos, int indice) {
+        if (indice >= campos.length || campos[indice].isEmpty()) {
+            throw new IllegalArgumentException("Faltan argumentos para " + campos[0] + ".");
+        }
+        return campos[indice];
+    }
+
+    // Admite coma o punto decimal, igual que el menú de consola
+    private static BigDecimal decimal(String valor) {
+        try {
+            return new BigDecimal(valor.replace(",", "."));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + valor);
+        }
+    }
+
+    private static void escribir(BufferedWriter escritor, String respuesta) throws IOException {
+        escritor.write(respuesta);
+        escritor.write('\n');
+    }
+
+    private static void escribirLista(BufferedWriter escritor, List<String> lineas) throws IOException {
+        escribir(escritor, "OK " + lineas.size());
+        for (String linea : lineas) {
+            escribir(escritor, linea);
+        }
+    }
+}
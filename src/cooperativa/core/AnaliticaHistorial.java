@@ -0,0 +1,150 @@
+package cooperativa.core;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.Dinero;
+import cooperativa.transactions.CodificacionCompacta;
+import cooperativa.transactions.Transaccion;
+
+/*
+ * Reportes sobre el historial de transacciones en una sola pasada, sin materializarlo: cada
+ * transacción se lee del disco (o del anillo en memoria), se acumula y se descarta. La memoria
+ * depende de la cantidad de días o de cuentas del resultado, no del tamaño del historial.
+ * Con historiales grandes el recorrido es en paralelo: cada hilo acumula en su propio mapa y
+ * al final se combinan (reducción mutable de collect).
+ */
+class AnaliticaHistorial {
+
+    // Desde cuántas transacciones conviene repartir el recorrido entre hilos
+    private static final long UMBRAL_PARALELO = 1 << 16;
+    private static final long NANOS_POR_DIA = 86_400L * 1_000_000_000L;
+
+    private static final Comparator<Map.Entry<Cuenta, long[]>> POR_VOLUMEN =
+            Comparator.<Map.Entry<Cuenta, long[]>>comparingLong(e -> e.getValue()[0])
+                    .thenComparing(e -> e.getKey().getNumeroCuenta(), Comparator.reverseOrder());
+
+    private final HistorialTransacciones historial;
+
+    AnaliticaHistorial(HistorialTransacciones historial) {
+        this.historial = historial;
+    }
+
+    // Días [desde, hasta] con al menos un depósito o retiro, en orden de fecha
+    List<VolumenDiario> volumenDiario(LocalDate desde, LocalDate hasta, ControlReporte control) {
+        long inicio = CodificacionCompacta.aNanos(desde.atStartOfDay());
+        long fin = CodificacionCompacta.aNanos(hasta.plusDays(1).atStartOfDay());
+        // Por día: {depósitos, cantidad de depósitos, retiros, cantidad de retiros}
+        Map<Long, long[]> porDia = recorrer(control, HashMap::new, (mapa, t) -> {
+            byte tipo = CodificacionCompacta.tipo(t);
+            if (tipo != CodificacionCompacta.DEPOSITO && tipo != CodificacionCompacta.RETIRO) {
+                return;
+            }
+            long fecha = CodificacionCompacta.fecha(t);
+            if (fecha < inicio || fecha >= fin) {
+                return;
+            }
+            long[] dia = mapa.computeIfAbsent(Math.floorDiv(fecha, NANOS_POR_DIA), k -> new long[4]);
+            int i = (tipo == CodificacionCompacta.DEPOSITO) ? 0 : 2;
+            dia[i] = Dinero.sumar(dia[i], t.getMontoCentavos());
+            dia[i + 1]++;
+        }, (a, b) -> b.forEach((dia, valores) -> a.merge(dia, valores, AnaliticaHistorial::sumar)));
+
+        List<VolumenDiario> volumen = new ArrayList<>(porDia.size());
+        new TreeMap<>(porDia).forEach((dia, v) -> volumen.add(new VolumenDiario(LocalDate.ofEpochDay(dia),
+                Dinero.aDecimal(v[0]), v[1], Dinero.aDecimal(v[2]), v[3])));
+        return volumen;
+    }
+
+    // Las "cantidad" cuentas con mayor volumen movido en [desde, hasta), de mayor a menor. Las
+    // transferencias cuentan para el origen y para el destino.
+    List<MovimientoCuenta> mayoresMovimientos(int cantidad, LocalDateTime desde, LocalDateTime hasta,
+                                              ControlReporte control) {
+        long inicio = CodificacionCompacta.aNanos(desde);
+        long fin = CodificacionCompacta.aNanos(hasta);
+        // Por cuenta: {volumen, neto, cantidad}
+        Map<Cuenta, long[]> porCuenta = recorrer(control, HashMap::new, (mapa, t) -> {
+            byte tipo = CodificacionCompacta.tipo(t);
+            if (tipo == CodificacionCompacta.OTRA) {
+                return;
+            }
+            long fecha = CodificacionCompacta.fecha(t);
+            if (fecha < inicio || fecha >= fin) {
+                return;
+            }
+            long monto = t.getMontoCentavos();
+            Cuenta cuenta = CodificacionCompacta.cuenta(t);
+            switch (tipo) {
+                case CodificacionCompacta.RETIRO:
+                    acumular(mapa, cuenta, monto, -monto);
+                    break;
+                case CodificacionCompacta.TRANSFERENCIA:
+                    acumular(mapa, cuenta, monto, -monto);
+                    acumular(mapa, CodificacionCompacta.destino(t), monto, monto);
+                    break;
+                default:
+                    acumular(mapa, cuenta, monto, monto);
+            }
+        }, (a, b) -> b.forEach((cuenta, valores) -> a.merge(cuenta, valores, AnaliticaHistorial::sumar)));
+
+        // Selección con un montículo de tamaño "cantidad": O(n log k) sin ordenar todas las cuentas
+        PriorityQueue<Map.Entry<Cuenta, long[]>> mayores = new PriorityQueue<>(POR_VOLUMEN);
+        for (Map.Entry<Cuenta, long[]> entrada : porCuenta.entrySet()) {
+            if (mayores.size() < cantidad) {
+                mayores.add(entrada);
+            } else if (cantidad > 0 && POR_VOLUMEN.compare(entrada, mayores.peek()) > 0) {
+                mayores.poll();
+                mayores.add(entrada);
+            }
+        }
+        List<MovimientoCuenta> resultado = new ArrayList<>(mayores.size());
+        while (!mayores.isEmpty()) {
+            Map.Entry<Cuenta, long[]> entrada = mayores.poll();
+            long[] v = entrada.getValue();
+            resultado.add(0, new MovimientoCuenta(entrada.getKey(), Dinero.aDecimal(v[0]), Dinero.aDecimal(v[1]), v[2]));
+        }
+        return resultado;
+    }
+
+    private <R> R recorrer(ControlReporte control, Supplier<R> nuevo, BiConsumer<R, Transaccion> acumulador,
+                           BiConsumer<R, R> combinador) {
+        Stream<Transaccion> transacciones = historial.transacciones();
+        if (historial.cantidad() >= UMBRAL_PARALELO) {
+            transacciones = transacciones.parallel();
+        }
+        try {
+            return transacciones.collect(nuevo, (parcial, t) -> {
+                control.verificar();
+                acumulador.accept(parcial, t);
+            }, combinador);
+        } catch (CancellationException e) {
+            throw control.interrupcion();
+        }
+    }
+
+    private static void acumular(Map<Cuenta, long[]> mapa, Cuenta cuenta, long volumen, long neto) {
+        long[] valores = mapa.computeIfAbsent(cuenta, k -> new long[3]);
+        valores[0] = Dinero.sumar(valores[0], volumen);
+        valores[1] = Dinero.sumar(valores[1], neto);
+        valores[2]++;
+    }
+
+    private static long[] sumar(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = Dinero.sumar(a[i], b[i]);
+        }
+        return a;
+    }
+}
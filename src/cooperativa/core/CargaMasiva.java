@@ -0,0 +1,323 @@
+package cooperativa.core;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.persistence.Snapshot;
+
+/*
+ * Carga masiva de socios y cuentas de ahorros (por ejemplo, al incorporar una sucursal).
+ *
+ * CSV en UTF-8, una fila por línea, en cualquier orden; las líneas vacías y las que empiezan con '#'
+ * se ignoran:
+ *   SOCIO,<cédula>,<nombre>                       (el nombre es el resto de la línea)
+ *   CUENTA,<cédula>,<número>,<saldo>,<tasa anual>
+ * También acepta un snapshot (ver Snapshot) de otra cooperativa: se reconoce por su cabecera y se
+ * cargan sus socios y cuentas con sus saldos y fechas; las versiones y corridas de intereses de la
+ * otra cooperativa no se conservan.
+ *
+ * El CSV se proyecta en memoria (mmap) y se parte en trozos que empiezan en un inicio de línea; cada
+ * trozo se analiza en el pool común en paralelo. Después, en un solo recorrido, se descartan las
+ * cédulas y números de cuenta repetidos dentro del archivo (un HashMap por cada uno) y todo se agrega
+ * en un único paso (ver Cooperativa.agregarEnBloque), que espera a la bitácora una sola vez.
+ *
+ * Cada fila se valida y agrega por separado: una fila con error no detiene la carga, queda en los
+ * fallos del resultado con su número de línea.
+ */
+public final class CargaMasiva {
+
+    private static final int TAMANO_MINIMO_TROZO = 1 << 20;
+    private static final int TAMANO_MAXIMO_TROZO = 256 << 20;
+    private static final int TROZOS_POR_PROCESADOR = 4;
+
+    record FilaSocio(long linea, Socio socio) {
+    }
+
+    record FilaCuenta(long linea, String cedula, CuentaAhorros cuenta) {
+    }
+
+    private CargaMasiva() {
+    }
+
+    public static ResultadoCarga importar(Cooperativa cooperativa, Path archivo) throws IOException {
+        if (cooperativa == null) {
+            throw new IllegalArgumentException("La cooperativa no puede ser nula.");
+        }
+        if (archivo == null) {
+            throw new IllegalArgumentException("El archivo no puede ser nulo.");
+        }
+        long inicio = System.nanoTime();
+        List<Trozo> trozos = Snapshot.esSnapshot(archivo) ? List.of(leerSnapshot(archivo)) : leerCsv(archivo);
+
+        ResultadoCarga resultado = new ResultadoCarga();
+        int cantidadSocios = 0;
+        int cantidadCuentas = 0;
+        for (Trozo trozo : trozos) {
+            cantidadSocios += trozo.socios.size();
+            cantidadCuentas += trozo.cuentas.size();
+        }
+        // Repetidos dentro del archivo: gana la primera aparición
+        Map<String, Long> cedulas = new HashMap<>(cantidadSocios * 4 / 3 + 1);
+        Map<String, Long> numeros = new HashMap<>(cantidadCuentas * 4 / 3 + 1);
+        List<FilaSocio> socios = new ArrayList<>(cantidadSocios);
+        List<FilaCuenta> cuentas = new ArrayList<>(cantidadCuentas);
+        long lineas = 0;
+        for (Trozo trozo : trozos) {
+            for (FilaSocio fila : trozo.socios) {
+                long linea = lineas + fila.linea();
+                Long previa = cedulas.putIfAbsent(fila.socio().getCedula(), linea);
+                if (previa != null) {
+                    resultado.agregarFallo(linea, "Cédula " + fila.socio().getCedula()
+                            + " repetida en el archivo (línea " + previa + ").");
+                } else {
+                    socios.add(new FilaSocio(linea, fila.socio()));
+                }
+            }
+            for (FilaCuenta fila : trozo.cuentas) {
+                long linea = lineas + fila.linea();
+                Long previa = numeros.putIfAbsent(fila.cuenta().getNumeroCuenta(), linea);
+                if (previa != null) {
+                    resultado.agregarFallo(linea, "Cuenta " + fila.cuenta().getNumeroCuenta()
+                            + " repetida en el archivo (línea " + previa + ").");
+                } else {
+                    cuentas.add(new FilaCuenta(linea, fila.cedula(), fila.cuenta()));
+                }
+            }
+            for (ResultadoCarga.Fallo fallo : trozo.fallos) {
+                resultado.agregarFallo(lineas + fallo.linea(), fallo.motivo());
+            }
+            lineas += trozo.lineas;
+        }
+
+        cooperativa.agregarEnBloque(socios, cuentas, resultado);
+        resultado.terminar(lineas, (System.nanoTime() - inicio) / 1_000_000);
+        return resultado;
+    }
+
+    // Filas de un trozo del archivo; sus líneas se cuentan desde 1 dentro del trozo
+    private static final class Trozo {
+        private final List<FilaSocio> socios = new ArrayList<>();
+        private final List<FilaCuenta> cuentas = new ArrayList<>();
+        private final List<ResultadoCarga.Fallo> fallos = new ArrayList<>();
+        private final LocalDateTime fechaApertura;
+        private long lineas;
+
+        Trozo(LocalDateTime fechaApertura) {
+            this.fechaApertura = fechaApertura;
+        }
+
+        void analizar(String linea) {
+            lineas++;
+            linea = linea.strip();
+            if (linea.isEmpty() || linea.charAt(0) == '#') {
+                return;
+            }
+            try {
+                if (linea.startsWith("SOCIO,")) {
+                    String[] campos = linea.split(",", 3);
+                    if (campos.length != 3) {
+                        throw new IllegalArgumentException("Se esperaba SOCIO,<cédula>,<nombre>.");
+                    }
+                    socios.add(new FilaSocio(lineas, new Socio(campos[2].strip(), campos[1].strip())));
+                } else if (linea.startsWith("CUENTA,")) {
+                    String[] campos = linea.split(",", -1);
+                    if (campos.length != 5) {
+                        throw new IllegalArgumentException("Se esperaba CUENTA,<cédula>,<número>,<saldo>,<tasa>.");
+                    }
+                    CuentaAhorros cuenta = new CuentaAhorros(campos[2].strip(), decimal(campos[3]), fechaApertura,
+                            decimal(campos[4]));
+                    cuentas.add(new FilaCuenta(lineas, campos[1].strip(), cuenta));
+                } else {
+                    int coma = linea.indexOf(',');
+                    throw new IllegalArgumentException("Tipo de fila desconocido: "
+                            + ((coma < 0) ? linea : linea.substring(0, coma)) + ".");
+                }
+            } catch (IllegalArgumentException e) {
+                fallos.add(new ResultadoCarga.Fallo(lineas, e.getMessage()));
+            }
+        }
+
+        private static BigDecimal decimal(String campo) {
+            try {
+                return new BigDecimal(campo.strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Número inválido: " + campo.strip() + ".");
+            }
+        }
+    }
+
+    private static List<Trozo> leerCsv(Path archivo) throws IOException {
+        LocalDateTime fechaApertura = LocalDateTime.now();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long[] cortes = cortes(canal);
+            List<Callable<Trozo>> tareas = new ArrayList<>(cortes.length - 1);
+            for (int i = 0; i + 1 < cortes.length; i++) {
+                long desde = cortes[i];
+                long hasta = cortes[i + 1];
+                tareas.add(() -> analizar(canal.map(FileChannel.MapMode.READ_ONLY, desde, hasta - desde),
+                        desde == 0, fechaApertura));
+            }
+            List<Trozo> trozos = new ArrayList<>(tareas.size());
+            for (Future<Trozo> tarea : ForkJoinPool.commonPool().invokeAll(tareas)) {
+                trozos.add(tarea.get());
+            }
+            return trozos;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException error) {
+                throw error;
+            }
+            throw new IllegalStateException("No se pudo analizar " + archivo, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carga interrumpida.", e);
+        }
+    }
+
+    // Inicios de los trozos (siempre al comienzo de una línea) y, al final, el tamaño del archivo
+    private static long[] cortes(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        long objetivo = tamano / ((long) Runtime.getRuntime().availableProcessors() * TROZOS_POR_PROCESADOR);
+        objetivo = Math.min(TAMANO_MAXIMO_TROZO, Math.max(TAMANO_MINIMO_TROZO, objetivo));
+        List<Long> cortes = new ArrayList<>();
+        cortes.add(0L);
+        ByteBuffer sonda = ByteBuffer.allocate(8 * 1024);
+        long posicion = objetivo;
+        while (posicion < tamano) {
+            // El trozo sigue hasta el primer salto de línea desde "posicion"
+            long corte = tamano;
+            buscar:
+            while (posicion < tamano) {
+                sonda.clear();
+                int leidos = canal.read(sonda, posicion);
+                for (int i = 0; i < leidos; i++) {
+                    if (sonda.get(i) == '\n') {
+                        corte = posicion + i + 1;
+                        break buscar;
+                    }
+                }
+                posicion += Math.max(leidos, 0);
+            }
+            if (corte < tamano) {
+                cortes.add(corte);
+            }
+            posicion = corte + objetivo;
+        }
+        cortes.add(tamano);
+        long[] resultado = new long[cortes.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = cortes.get(i);
+        }
+        return resultado;
+    }
+
+    private static Trozo analizar(MappedByteBuffer datos, boolean primero, LocalDateTime fechaApertura) {
+        Trozo trozo = new Trozo(fechaApertura);
+        byte[] linea = new byte[256];
+        int fin = datos.limit();
+        int posicion = 0;
+        // BOM de UTF-8 al inicio del archivo
+        if (primero && fin >= 3 && datos.get(0) == (byte) 0xEF && datos.get(1) == (byte) 0xBB
+                && datos.get(2) == (byte) 0xBF) {
+            posicion = 3;
+        }
+        while (posicion < fin) {
+            int finLinea = posicion;
+            while (finLinea < fin && datos.get(finLinea) != '\n') {
+                finLinea++;
+            }
+            int largo = finLinea - posicion;
+            if (largo > linea.length) {
+                linea = new byte[Math.max(largo, linea.length * 2)];
+            }
+            datos.get(posicion, linea, 0, largo);
+            trozo.analizar(new String(linea, 0, largo, StandardCharsets.UTF_8));
+            posicion = finLinea + 1;
+        }
+        return trozo;
+    }
+
+    // Un snapshot se lee en orden (su formato no tiene marcas para partirlo); "linea" es el número de registro
+    private static Trozo leerSnapshot(Path archivo) throws IOException {
+        Trozo trozo = new Trozo(null);
+        Snapshot.leer(archivo, new ReceptorBitacora() {
+            @Override
+            public void socio(long secuencia, String id, String nombre, String cedula) {
+                trozo.lineas++;
+                try {
+                    trozo.socios.add(new FilaSocio(trozo.lineas, new Socio(id, nombre, cedula)));
+                } catch (IllegalArgumentException e) {
+                    trozo.fallos.add(new ResultadoCarga.Fallo(trozo.lineas, e.getMessage()));
+                }
+            }
+
+            @Override
+            public void cuentaAhorros(long secuencia, String cedula, String numeroCuenta, BigDecimal saldo,
+                    LocalDateTime fechaApertura, BigDecimal tasaInteresAnual, long ultimaCorridaInteres) {
+                trozo.lineas++;
+                try {
+                    trozo.cuentas.add(new FilaCuenta(trozo.lineas, cedula,
+                            new CuentaAhorros(numeroCuenta, saldo, fechaApertura, tasaInteresAnual)));
+                } catch (IllegalArgumentException e) {
+                    trozo.fallos.add(new ResultadoCarga.Fallo(trozo.lineas, e.getMessage()));
+                }
+            }
+
+            @Override
+            public void deposito(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) {
+                throw new IllegalStateException("Un snapshot no contiene movimientos.");
+            }
+
+            @Override
+            public void retiro(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) {
+                throw new IllegalStateException("Un snapshot no contiene movimientos.");
+            }
+
+            @Override
+            public void transferencia(long secuencia, String origen, String destino, BigDecimal monto,
+                    LocalDateTime fecha) {
+                throw new IllegalStateException("Un snapshot no contiene movimientos.");
+            }
+
+            @Override
+            public void interes(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha,
+                    long corrida) {
+                throw new IllegalStateException("Un snapshot no contiene movimientos.");
+            }
+
+            @Override
+            public void idempotencia(long secuencia, long huella, byte resultado, long milis) {
+                // Las claves de idempotencia son de la cooperativa de origen: no se cargan
+            }
+
+            @Override
+            public void intencionTransferencia(long secuencia, String id, String origen, String destino,
+                    BigDecimal monto, LocalDateTime fecha) {
+                throw new IllegalStateException("Un snapshot no contiene movimientos.");
+            }
+
+            @Override
+            public void finTransferencia(long secuencia, String id) {
+                throw new IllegalStateException("Un snapshot no contiene movimientos.");
+            }
+        });
+        return trozo;
+    }
+}
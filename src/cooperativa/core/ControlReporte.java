@@ -0,0 +1,56 @@
+package cooperativa.core;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/*
+ * Cancelación y presupuesto de tiempo de un reporte. El reporte lo consulta en cada elemento que
+ * recorre (también desde los hilos de un recorrido en paralelo) y se interrumpe lanzando
+ * CancellationException si se canceló o se pasó del plazo.
+ */
+public final class ControlReporte {
+
+    private static final long SIN_PLAZO = Long.MAX_VALUE;
+
+    private final long inicio = System.nanoTime();
+    private final long plazo;
+    private volatile boolean cancelado;
+
+    private ControlReporte(long plazo) {
+        this.plazo = plazo;
+    }
+
+    public static ControlReporte sinLimite() {
+        return new ControlReporte(SIN_PLAZO);
+    }
+
+    public static ControlReporte conPresupuesto(Duration presupuesto) {
+        if (presupuesto == null || presupuesto.isNegative()) {
+            throw new IllegalArgumentException("El presupuesto de tiempo debe ser mayor o igual a cero.");
+        }
+        return new ControlReporte(presupuesto.toNanos());
+    }
+
+    // Puede llamarse desde cualquier hilo; el reporte se detiene en el siguiente elemento
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    void verificar() {
+        if (cancelado || (plazo != SIN_PLAZO && System.nanoTime() - inicio > plazo)) {
+            throw interrupcion();
+        }
+    }
+
+    // Los recorridos en paralelo pierden el mensaje al propagar la excepción desde otro hilo:
+    // quien termina el recorrido la vuelve a crear con esto
+    CancellationException interrupcion() {
+        return new CancellationException(cancelado
+                ? "El reporte fue cancelado."
+                : "El reporte excedió su presupuesto de tiempo.");
+    }
+}
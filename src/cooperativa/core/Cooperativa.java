@@ -1,36 +1,116 @@
 package cooperativa.core;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import cooperativa.exceptions.CuentaDuplicadaExceptions;
 import cooperativa.exceptions.CuentaNoEncontradaException;
+import cooperativa.exceptions.SaldoInsuficienteException;
 import cooperativa.exceptions.SocioNoEncontradoException;
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Histograma;
+import cooperativa.metricas.Metricas;
 
 import cooperativa.models.Cuenta;
 import cooperativa.models.Socio;
 import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Dinero;
+import cooperativa.models.EstadoCuenta;
+import cooperativa.models.ObservadorSaldo;
 
+import cooperativa.persistence.Bitacora;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.persistence.SegmentosHistorial;
+import cooperativa.persistence.Snapshot;
+
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Interes;
+import cooperativa.transactions.Retiro;
 import cooperativa.transactions.Transaccion;
+import cooperativa.transactions.Transferencia;
+
+public class Cooperativa implements Closeable {
+
+    // Resultado de aplicarSinSincronizar cuando la cuenta debitada no tiene saldo suficiente y de
+    // registrarCuenta cuando el número ya existe
+    static final long RECHAZADA = -1;
 
-public class Cooperativa {
+    // Métricas (ver Metricas.reporte y reporteMetricas): latencias en nanosegundos
+    private static final Histograma LATENCIA_TRANSACCION = Metricas.histograma("cooperativa.transaccion");
+    private static final Histograma LATENCIA_LOTE = Metricas.histograma("cooperativa.lote");
+    private static final Histograma LATENCIA_ESTADO_CUENTA = Metricas.histograma("cooperativa.estado_de_cuenta");
+    private static final Histograma LATENCIA_CORTE = Metricas.histograma("cooperativa.corte_saldos");
+    private static final Histograma LATENCIA_INTERESES = Metricas.histograma("cooperativa.intereses");
+    private static final Histograma LATENCIA_FSYNC = Metricas.histograma("bitacora.sincronizar");
+    private static final Contador SALDO_INSUFICIENTE = Metricas.contador("transacciones.saldo_insuficiente");
+    private static final Contador CUENTA_NO_ENCONTRADA = Metricas.contador("cooperativa.cuenta_no_encontrada");
+    private static final Contador SOCIO_NO_ENCONTRADO = Metricas.contador("cooperativa.socio_no_encontrado");
+    private static final Contador TRANSACCIONES_EN_LOTE = Metricas.contador("cooperativa.lote.transacciones");
+    private static final Contador REPETIDAS = Metricas.contador("idempotencia.repetidas");
 
     private final String nombre;
     private final String direccion;
-    private final Map<String, Socio> socios;
+    // Socios por número denso, con la cédula y el id como alias
+    private final RegistroSocios socios;
     private final Map<String, Cuenta> cuentas;
-    private final List<Transaccion> historialTransacciones;
+    // Historial global: últimas transacciones en memoria y el resto en segmentos en disco
+    private final HistorialTransacciones historialTransacciones;
+    // Reportes en una sola pasada sobre el historial
+    private final AnaliticaHistorial analitica;
+    // Totales de saldo incrementales (total y por tipo de cuenta)
+    private final TotalesSaldos totales = new TotalesSaldos();
+    // Cuentas ordenadas por saldo para consultas por umbral, rango y top-K
+    private final IndiceSaldos indiceSaldos = new IndiceSaldos();
+    // Observador instalado en cada cuenta: mantiene totales e índice
+    private final ObservadorSaldo observadorSaldos = (cuenta, anterior, nuevo) -> {
+        totales.saldoCambiado(cuenta, anterior, nuevo);
+        indiceSaldos.saldoCambiado(cuenta, anterior, nuevo);
+    };
+    // Bitácora durable (opcional): null mientras no se abra o durante la recuperación
+    private volatile Bitacora bitacora;
+    private Path archivoSnapshot;
+    private ScheduledExecutorService snapshots;
+    private final Object snapshotLock = new Object();
+    // Claves de idempotencia de las últimas 24 horas (en 8 generaciones de 3 horas, hasta 10 millones)
+    private final VentanaIdempotencia idempotencia = new VentanaIdempotencia(Duration.ofHours(24), 8, 10_000_000);
+    // Última corrida de intereses conocida (ver aplicarInteresAnualCuentasAhorros)
+    private final AtomicLong corridasInteres = new AtomicLong();
+    private static final int BLOQUE_INTERESES = 1024;
+    // Cortes de saldos (ver corteDeSaldos): época del último corte y escritores activos según la paridad
+    // de la época en que entraron. Los cortes se serializan con "corteLock". Contadores simples y no LongAdder:
+    // su suma no es atómica y podría dar 0 con un escritor todavía activo.
+    private volatile long epocaCorte;
+    private final AtomicLong[] escritores = { new AtomicLong(), new AtomicLong() };
+    private final Object corteLock = new Object();
 
     @Override
     public String toString() {
         return "Cooperativa{" +
                 "nombre='" + nombre + '\'' +
                 ", direccion='" + direccion + '\'' +
-                ", socios=" + socios.values() +
+                ", socios=" + socios.listar() +
                 ", cuentas=" + cuentas.values() +
-                ", historialTransacciones=" + historialTransacciones +
+                ", transacciones=" + historialTransacciones.cantidad() +
                 '}';
     }
 
@@ -43,9 +123,11 @@ public class Cooperativa {
         }
         this.nombre = nombre;
         this.direccion = direccion;
-        this.socios = new HashMap<>();
-        this.cuentas = new HashMap<>();
-        this.historialTransacciones = new ArrayList<>();
+        // Estructuras concurrentes: el núcleo puede usarse desde varios hilos a la vez
+        this.socios = new RegistroSocios();
+        this.cuentas = new ConcurrentHashMap<>();
+        this.historialTransacciones = new HistorialTransacciones(SegmentosHistorial.temporal());
+        this.analitica = new AnaliticaHistorial(historialTransacciones);
     }
 
     // Utils => validadores
@@ -53,119 +135,1152 @@ public class Cooperativa {
         if (socio == null) {
             throw new IllegalArgumentException("El socio no puede ser nulo.");
         }
-        if (socios.containsKey(socio.getId())) {
-            throw new IllegalArgumentException("El socio ya existe en la cooperativa.");
-        }
+        // La cédula y el id repetidos los rechaza RegistroSocios.agregar al reservarlos
     }
 
     // Métodos para manejar socios
     public void agregarSocio(Socio socio) {
         validarSocioNuevo(socio);
-        socios.put(socio.getId(), socio);
+        Bitacora bitacora = this.bitacora;
+        long secuencia = registrarSocio(socio, bitacora);
+        if (bitacora != null) {
+            bitacora.sincronizar(secuencia);
+        }
+    }
+
+    // Alta sin esperar a la bitácora; devuelve la secuencia a sincronizar (0 sin bitácora)
+    private long registrarSocio(Socio socio, Bitacora bitacora) {
+        // El monitor del socio garantiza que su registro en la bitácora preceda al de sus cuentas
+        synchronized (socio) {
+            // El registro reserva la cédula y el id de forma atómica frente a altas concurrentes
+            socios.agregar(socio);
+            return (bitacora != null) ? bitacora.registrarSocio(socio) : 0;
+        }
     }
 
     public List<Socio> listarSocios() {
-        return new ArrayList<>(socios.values());
+        return new ArrayList<>(socios.listar());
     }
 
     public Socio buscarSocioPorCedula(String cedula) throws SocioNoEncontradoException {
-
-            for (Socio socio : socios.values()) {
-                if (socio.getCedula().equals(cedula)) {
-                    return socio;
-                }
-            }
+        // Sin histograma de latencia: aun muestreado costaba un tercio de la búsqueda (ver BenchmarkNucleo)
+        Socio socio = socios.porCedula(cedula);
+        if (socio == null) {
+            SOCIO_NO_ENCONTRADO.incrementar();
             throw new SocioNoEncontradoException("Socio con cédula " + cedula + " no encontrado.");
-
-
+        }
+        return socio;
     }
 
     // Métodos para manejar cuentas
     public void agregarCuentaASocio(String cedula, Cuenta cuenta)
             throws SocioNoEncontradoException, CuentaDuplicadaExceptions {
-        try {
-            Socio socio = buscarSocioPorCedula(cedula);
-            if (socio == null) {
-                throw new SocioNoEncontradoException("Socio con cédula " + cedula + " no encontrado.");
+        switch (intentarAgregarCuentaASocio(cedula, cuenta)) {
+            case SOCIO_NO_ENCONTRADO -> throw new SocioNoEncontradoException("Socio con cédula " + cedula + " no encontrado.");
+            case CUENTA_DUPLICADA -> throw new CuentaDuplicadaExceptions("La cuenta ya existe en la cooperativa.");
+            default -> {
+            }
+        }
+    }
+
+    // Variante sin excepciones para rechazos de negocio (socio inexistente, cuenta duplicada)
+    public ResultadoOperacion intentarAgregarCuentaASocio(String cedula, Cuenta cuenta) {
+        if (cuenta == null) {
+            throw new IllegalArgumentException("La cuenta no puede ser nula.");
+        }
+        Socio socio = socios.porCedula(cedula);
+        if (socio == null) {
+            return ResultadoOperacion.SOCIO_NO_ENCONTRADO;
+        }
+        Bitacora bitacora = this.bitacora;
+        if (bitacora != null && !Bitacora.soporta(cuenta)) {
+            throw new IllegalArgumentException("Tipo de cuenta no soportado por la bitácora.");
+        }
+        long secuencia = registrarCuenta(socio, cuenta, bitacora);
+        if (secuencia == RECHAZADA) {
+            return ResultadoOperacion.CUENTA_DUPLICADA;
+        }
+        if (bitacora != null) {
+            bitacora.sincronizar(secuencia);
+        }
+        return ResultadoOperacion.OK;
+    }
+
+    // Alta sin esperar a la bitácora; devuelve la secuencia a sincronizar (0 sin bitácora) o RECHAZADA si
+    // el número ya existe
+    private long registrarCuenta(Socio socio, Cuenta cuenta, Bitacora bitacora) {
+        long secuencia = 0;
+        // Con el monitor del socio y el candado de la cuenta tomados, el alta queda en la bitácora
+        // antes que cualquier movimiento posterior sobre la cuenta
+        synchronized (socio) {
+            cuenta.getLock().lock();
+            try {
+                // Validamos que la cuenta no esté repetida para el socio
+                if (socio.buscarCuenta(cuenta.getNumeroCuenta()).isPresent()) {
+                    return RECHAZADA;
+                }
+                // Reservamos el número de cuenta en la cooperativa de forma atómica
+                if (cuentas.putIfAbsent(cuenta.getNumeroCuenta(), cuenta) != null) {
+                    return RECHAZADA;
+                }
+                // Agregamos la cuenta al socio
+                socio.agregarCuenta(cuenta);
+                // Desde aquí cada cambio de saldo actualiza los totales y el índice
+                totales.registrar(cuenta);
+                indiceSaldos.registrar(cuenta);
+                cuenta.setObservadorSaldo(observadorSaldos);
+                cuenta.setArchivoHistorial(historialTransacciones.getArchivo());
+                if (bitacora != null) {
+                    secuencia = bitacora.registrarCuenta(socio.getCedula(), cuenta);
+                    cuenta.setVersion(secuencia);
+                }
+            } finally {
+                cuenta.getLock().unlock();
             }
+        }
+        return secuencia;
+    }
 
-            if (cuentas.containsKey(cuenta.getNumeroCuenta())) {
-                throw new CuentaDuplicadaExceptions("La cuenta ya existe en la cooperativa.");
+    // Alta masiva (ver CargaMasiva): las filas ya vienen sin repetidos entre sí. Cada alta es la misma que
+    // agregarSocio o agregarCuentaASocio, pero se espera a la bitácora una sola vez, al final. Los choques con
+    // lo que ya existe (o con altas concurrentes) se reportan por línea en "resultado".
+    void agregarEnBloque(List<CargaMasiva.FilaSocio> filasSocios, List<CargaMasiva.FilaCuenta> filasCuentas,
+            ResultadoCarga resultado) {
+        Bitacora bitacora = this.bitacora;
+        long ultima = 0;
+        for (CargaMasiva.FilaSocio fila : filasSocios) {
+            // Una recarga del mismo archivo repite todas las cédulas: se evita una excepción por fila
+            if (socios.porCedula(fila.socio().getCedula()) != null) {
+                resultado.agregarFallo(fila.linea(),
+                        "Ya existe un socio con la cédula " + fila.socio().getCedula() + ".");
+                continue;
+            }
+            try {
+                ultima = Math.max(ultima, registrarSocio(fila.socio(), bitacora));
+                resultado.contarSocio();
+            } catch (IllegalArgumentException e) {
+                resultado.agregarFallo(fila.linea(), e.getMessage());
             }
-            // Validamos que la cuenta no esté repetida para el socio
-            if (socio.buscarCuenta(cuenta.getNumeroCuenta()).isPresent()) {
-                throw new CuentaDuplicadaExceptions("La cuenta ya existe para este socio.");
+        }
+        for (CargaMasiva.FilaCuenta fila : filasCuentas) {
+            Socio socio = socios.porCedula(fila.cedula());
+            if (socio == null) {
+                resultado.agregarFallo(fila.linea(), "Socio con cédula " + fila.cedula() + " no encontrado.");
+                continue;
+            }
+            long secuencia = registrarCuenta(socio, fila.cuenta(), bitacora);
+            if (secuencia == RECHAZADA) {
+                resultado.agregarFallo(fila.linea(), ResultadoOperacion.CUENTA_DUPLICADA.getMensaje());
+                continue;
             }
-            // Agregamos la cuenta al socio
-            socio.agregarCuenta(cuenta);
-            // Agregamos la cuenta al mapa de cuentas de la cooperativa
-            cuentas.put(cuenta.getNumeroCuenta(), cuenta);
+            ultima = Math.max(ultima, secuencia);
+            resultado.contarCuenta();
+        }
+        if (bitacora != null && ultima > 0) {
+            bitacora.sincronizar(ultima);
+        }
+    }
+
+    public Cuenta buscarCuentaPorNumero(String numeroCuenta) throws CuentaNoEncontradaException {
+        if (numeroCuenta == null || numeroCuenta.isEmpty()) {
+            throw new IllegalArgumentException("El número de cuenta no puede ser nulo o vacío.");
+        }
+        // Sin histograma de latencia, como buscarSocioPorCedula
+        Cuenta cuenta = cuentas.get(numeroCuenta);
+        if (cuenta == null) {
+            CUENTA_NO_ENCONTRADA.incrementar();
+            throw new CuentaNoEncontradaException("Cuenta con número " + numeroCuenta + " no encontrada.");
+        }
+        return cuenta;
+    }
+
+    // Variante sin excepciones: vacío si el número es nulo, vacío o no existe
+    public Optional<Cuenta> buscarCuenta(String numeroCuenta) {
+        return (numeroCuenta == null) ? Optional.empty() : Optional.ofNullable(cuentas.get(numeroCuenta));
+    }
+
+    public void ejecutarTransaccion(Transaccion transaccion) throws Exception {
+        if (aplicarTransaccion(transaccion) == ResultadoOperacion.SALDO_INSUFICIENTE) {
+            throw new SaldoInsuficienteException(ResultadoOperacion.SALDO_INSUFICIENTE.getMensaje());
+        }
+    }
+
+    // Variante sin excepciones: un retiro rechazado devuelve SALDO_INSUFICIENTE en lugar de lanzar
+    public ResultadoOperacion intentarTransaccion(Transaccion transaccion) {
+        return intentarTransaccion(transaccion, 0);
+    }
+
+    private ResultadoOperacion intentarTransaccion(Transaccion transaccion, long huella) {
+        try {
+            return aplicarTransaccion(transaccion, huella);
+        } catch (SaldoInsuficienteException e) {
+            return ResultadoOperacion.SALDO_INSUFICIENTE;
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            System.out.println(e.getMessage());
+            // Solo transacciones propias (fuera de cooperativa.transactions) lanzan otras excepciones
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    // Con clave de idempotencia: si la clave ya se usó dentro de la ventana, devuelve el resultado original
+    // sin volver a aplicar la transacción (un reintento tras un timeout no deposita dos veces). Con bitácora
+    // la clave se registra junto con la transacción, así que también se respeta después de recuperar.
+    public void ejecutarTransaccion(String claveIdempotencia, Transaccion transaccion) throws Exception {
+        if (intentarTransaccion(claveIdempotencia, transaccion) == ResultadoOperacion.SALDO_INSUFICIENTE) {
+            throw new SaldoInsuficienteException(ResultadoOperacion.SALDO_INSUFICIENTE.getMensaje());
+        }
+    }
+
+    public ResultadoOperacion intentarTransaccion(String claveIdempotencia, Transaccion transaccion) {
+        VentanaIdempotencia.validarClave(claveIdempotencia);
+        CompletableFuture<ResultadoOperacion> original = idempotencia.reservar(claveIdempotencia);
+        if (original != null) {
+            // Repetida, o en curso en otro hilo: se espera el resultado del primer envío
+            REPETIDAS.incrementar();
+            try {
+                return original.join();
+            } catch (CompletionException e) {
+                throw (e.getCause() instanceof RuntimeException causa) ? causa : e;
+            }
+        }
+        ResultadoOperacion resultado;
+        try {
+            resultado = intentarTransaccion(transaccion, VentanaIdempotencia.huella(claveIdempotencia));
+        } catch (RuntimeException e) {
+            // Un error no es un resultado: la clave queda libre para reintentar
+            idempotencia.liberar(claveIdempotencia, e);
             throw e;
         }
+        idempotencia.completar(claveIdempotencia, resultado);
+        return resultado;
     }
 
-    public Cuenta buscarCuentaPorNumero(String numeroCuenta) throws CuentaNoEncontradaException {
+    // Resultado registrado para la clave, o null si no se usó (o ya venció); no la reserva
+    ResultadoOperacion resultadoClave(String claveIdempotencia) {
+        return idempotencia.buscar(claveIdempotencia);
+    }
+
+    VentanaIdempotencia getIdempotencia() {
+        return idempotencia;
+    }
+
+    private ResultadoOperacion aplicarTransaccion(Transaccion transaccion) throws Exception {
+        return aplicarTransaccion(transaccion, 0);
+    }
+
+    // "huella": clave de idempotencia ya reservada (ver VentanaIdempotencia.huella), 0 si no hay
+    private ResultadoOperacion aplicarTransaccion(Transaccion transaccion, long huella) throws Exception {
+        long inicio = LATENCIA_TRANSACCION.inicio();
         try {
-            if (numeroCuenta == null || numeroCuenta.isEmpty()) {
-                throw new IllegalArgumentException("El número de cuenta no puede ser nulo o vacío.");
+            validarTransaccion(transaccion);
+            long secuencia = aplicarSinSincronizar(transaccion, huella);
+            if (secuencia == RECHAZADA) {
+                if (huella != 0) {
+                    sincronizarBitacora(registrarRechazo(huella));
+                }
+                return ResultadoOperacion.SALDO_INSUFICIENTE;
             }
-            Cuenta cuenta = cuentas.get(numeroCuenta);
-            if (cuenta == null) {
-                throw new CuentaNoEncontradaException("Cuenta con número " + numeroCuenta + " no encontrada.");
+            // La espera del fsync ocurre fuera de los candados: así varias transacciones comparten uno
+            sincronizarBitacora(secuencia);
+            return ResultadoOperacion.OK;
+        } finally {
+            LATENCIA_TRANSACCION.registrarDesde(inicio);
+        }
+    }
+
+    void validarTransaccion(Transaccion transaccion) {
+        if (transaccion == null) {
+            throw new IllegalArgumentException("La transacción no puede ser nula.");
+        }
+        Bitacora bitacora = this.bitacora;
+        if (bitacora != null && !Bitacora.soporta(transaccion)) {
+            throw new IllegalArgumentException("Tipo de transacción no soportado por la bitácora.");
+        }
+    }
+
+    // Aplica una transacción ya validada sin esperar a que la bitácora sea durable. Devuelve la secuencia
+    // que hay que pasar a sincronizarBitacora (0 sin bitácora) o RECHAZADA si no hubo saldo suficiente.
+    long aplicarSinSincronizar(Transaccion transaccion) throws Exception {
+        return aplicarSinSincronizar(transaccion, 0);
+    }
+
+    // Con "huella" distinta de 0, la clave va en el registro de la transacción y se anota en la ventana
+    long aplicarSinSincronizar(Transaccion transaccion, long huella) throws Exception {
+        Bitacora bitacora = this.bitacora;
+        // Tomamos los candados de las cuentas afectadas para que el orden del historial y de la
+        // bitácora coincida con el orden en que se aplicaron los movimientos de cada cuenta
+        List<Cuenta> afectadas = cuentasAfectadas(transaccion);
+        long secuencia = 0;
+        bloquear(afectadas);
+        long epoca = entrarEscritura(afectadas);
+        try {
+            // Con los candados tomados, la verificación de saldo no puede quedar desactualizada
+            Cuenta debitada = cuentaDebitada(transaccion);
+            if (debitada != null && debitada.getSaldoCentavos() < transaccion.getMontoCentavos()) {
+                SALDO_INSUFICIENTE.incrementar();
+                return RECHAZADA;
             }
-            return cuenta;
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            throw e;
+            // El lugar en el historial se reserva antes de tocar los saldos
+            long reserva = historialTransacciones.reservar(transaccion);
+            try {
+                transaccion.ejecutar();
+            } catch (Exception | Error e) {
+                historialTransacciones.anular(reserva);
+                throw e;
+            }
+            historialTransacciones.registrar(transaccion, reserva);
+            if (bitacora != null) {
+                secuencia = (huella == 0)
+                        ? bitacora.registrarTransaccion(transaccion)
+                        : bitacora.registrarTransaccion(transaccion, huella, (byte) ResultadoOperacion.OK.ordinal());
+                for (Cuenta cuenta : afectadas) {
+                    cuenta.setVersion(secuencia);
+                }
+            }
+            // Después del registro y dentro de la época: un snapshot posterior al registro ya ve la clave
+            if (huella != 0) {
+                idempotencia.anotar(huella, ResultadoOperacion.OK);
+            }
+        } finally {
+            salirEscritura(epoca);
+            desbloquear(afectadas);
         }
+        return secuencia;
     }
 
-    public void ejecutarTransaccion(Transaccion transaccion) throws Exception {
+    // Una transacción con clave rechazada por saldo: la clave se registra sola, para que tras una caída el
+    // reintento reciba el mismo rechazo. Devuelve la secuencia a sincronizar (0 sin bitácora).
+    long registrarRechazo(long huella) {
+        Bitacora bitacora = this.bitacora;
+        long secuencia = 0;
+        long epoca = entrarEscritura(List.of());
         try {
-            if (transaccion == null) {
-                throw new IllegalArgumentException("La transacción no puede ser nula.");
+            if (bitacora != null) {
+                secuencia = bitacora.registrarClave(huella, (byte) ResultadoOperacion.SALDO_INSUFICIENTE.ordinal());
             }
-            transaccion.ejecutar();
-            historialTransacciones.add(transaccion);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            throw e;
+            idempotencia.anotar(huella, ResultadoOperacion.SALDO_INSUFICIENTE);
+        } finally {
+            salirEscritura(epoca);
+        }
+        return secuencia;
+    }
+
+    // Espera a que la bitácora sea durable hasta "secuencia" (un solo fsync puede cubrir varias)
+    void sincronizarBitacora(long secuencia) {
+        Bitacora bitacora = this.bitacora;
+        if (bitacora != null && secuencia > 0) {
+            long inicio = LATENCIA_FSYNC.inicio();
+            bitacora.sincronizar(secuencia);
+            LATENCIA_FSYNC.registrarDesde(inicio);
         }
     }
 
+    // Lotes => valida todo el lote, agrupa por cuenta y aplica un único cambio de saldo por cuenta
+    public ResultadoLote ejecutarLote(List<Transaccion> lote, ResultadoLote.Modo modo) {
+        long inicio = LATENCIA_LOTE.inicio();
+        ResultadoLote resultado = aplicarLote(lote, modo);
+        LATENCIA_LOTE.registrarDesde(inicio);
+        TRANSACCIONES_EN_LOTE.sumar(resultado.getAplicadas());
+        return resultado;
+    }
+
+    private ResultadoLote aplicarLote(List<Transaccion> lote, ResultadoLote.Modo modo) {
+        if (lote == null) {
+            throw new IllegalArgumentException("El lote no puede ser nulo.");
+        }
+        if (modo == null) {
+            throw new IllegalArgumentException("El modo del lote no puede ser nulo.");
+        }
+        ResultadoLote resultado = new ResultadoLote(modo, lote.size());
+        Bitacora bitacora = this.bitacora;
+
+        // 1) Validación de todo el lote antes de tocar cualquier cuenta
+        boolean[] validas = new boolean[lote.size()];
+        Map<String, Cuenta> afectadas = new TreeMap<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Transaccion transaccion = lote.get(i);
+            try {
+                for (Cuenta cuenta : validarEnLote(transaccion)) {
+                    afectadas.put(cuenta.getNumeroCuenta(), cuenta);
+                }
+                validas[i] = true;
+            } catch (Exception e) {
+                resultado.agregarFallo(i, transaccion, e);
+            }
+        }
+        if (modo == ResultadoLote.Modo.TODO_O_NADA && !resultado.isExitoso()) {
+            return resultado;
+        }
+
+        List<Cuenta> ordenadas = new ArrayList<>(afectadas.values());
+        long ultima = 0;
+        bloquear(ordenadas);
+        long epoca = entrarEscritura(ordenadas);
+        try {
+            // 2) Simulación en orden sobre saldos de trabajo en centavos (detecta saldos insuficientes)
+            Map<Cuenta, long[]> saldos = new IdentityHashMap<>();
+            Map<Cuenta, List<Transaccion>> porCuenta = new IdentityHashMap<>();
+            List<Transaccion> aceptadas = new ArrayList<>();
+            for (int i = 0; i < lote.size(); i++) {
+                if (!validas[i]) {
+                    continue;
+                }
+                Transaccion transaccion = lote.get(i);
+                Cuenta debitada = cuentaDebitada(transaccion);
+                Cuenta acreditada = cuentaAcreditada(transaccion);
+                long monto = transaccion.getMontoCentavos();
+                if (debitada != null) {
+                    long[] saldo = saldos.computeIfAbsent(debitada, c -> new long[] { c.getSaldoCentavos() });
+                    if (saldo[0] < monto) {
+                        SALDO_INSUFICIENTE.incrementar();
+                        resultado.agregarFallo(i, transaccion,
+                                new SaldoInsuficienteException("Saldo insuficiente para realizar el retiro."));
+                        if (modo == ResultadoLote.Modo.TODO_O_NADA) {
+                            return resultado;
+                        }
+                        continue;
+                    }
+                    saldo[0] -= monto;
+                    porCuenta.computeIfAbsent(debitada, c -> new ArrayList<>()).add(transaccion);
+                }
+                if (acreditada != null) {
+                    long[] saldo = saldos.computeIfAbsent(acreditada, c -> new long[] { c.getSaldoCentavos() });
+                    saldo[0] = Dinero.sumar(saldo[0], monto);
+                    porCuenta.computeIfAbsent(acreditada, c -> new ArrayList<>()).add(transaccion);
+                }
+                aceptadas.add(transaccion);
+            }
+
+            // 3) Un solo cambio de saldo por cuenta, con los lugares en el historial ya reservados
+            long[] reservas = historialTransacciones.reservar(aceptadas);
+            try {
+                for (Map.Entry<Cuenta, long[]> entrada : saldos.entrySet()) {
+                    Cuenta cuenta = entrada.getKey();
+                    long neto = entrada.getValue()[0] - cuenta.getSaldoCentavos();
+                    if (neto > 0) {
+                        cuenta.depositarCentavos(neto);
+                    } else if (neto < 0) {
+                        cuenta.retirarCentavos(-neto);
+                    }
+                }
+            } catch (SaldoInsuficienteException | RuntimeException | Error e) {
+                historialTransacciones.anular(reservas);
+                throw e;
+            }
+
+            // 4) Registro en bloque en cada cuenta, en el historial y en la bitácora
+            porCuenta.forEach(Cuenta::registrarTransacciones);
+            for (int i = 0; i < aceptadas.size(); i++) {
+                historialTransacciones.registrar(aceptadas.get(i), reservas[i]);
+            }
+            if (bitacora != null) {
+                for (Transaccion transaccion : aceptadas) {
+                    ultima = bitacora.registrarTransaccion(transaccion);
+                    for (Cuenta cuenta : cuentasAfectadas(transaccion)) {
+                        cuenta.setVersion(ultima);
+                    }
+                }
+            }
+            resultado.setAplicadas(aceptadas.size());
+        } catch (SaldoInsuficienteException e) {
+            // No ocurre: la simulación garantiza que ningún saldo neto queda negativo
+            throw new IllegalStateException(e);
+        } finally {
+            salirEscritura(epoca);
+            desbloquear(ordenadas);
+        }
+        if (bitacora != null && ultima > 0) {
+            bitacora.sincronizar(ultima);
+        }
+        return resultado;
+    }
+
+    // Devuelve las cuentas que toca la transacción si puede ejecutarse en lote
+    private List<Cuenta> validarEnLote(Transaccion transaccion) throws CuentaNoEncontradaException {
+        if (transaccion == null) {
+            throw new IllegalArgumentException("La transacción no puede ser nula.");
+        }
+        List<Cuenta> afectadas = cuentasAfectadas(transaccion);
+        if (afectadas.isEmpty()) {
+            throw new IllegalArgumentException("Tipo de transacción no soportado en lotes.");
+        }
+        for (Cuenta cuenta : afectadas) {
+            if (cuentas.get(cuenta.getNumeroCuenta()) != cuenta) {
+                throw new CuentaNoEncontradaException("Cuenta con número " + cuenta.getNumeroCuenta() + " no encontrada.");
+            }
+        }
+        return afectadas;
+    }
+
+    private static Cuenta cuentaDebitada(Transaccion transaccion) {
+        if (transaccion instanceof Retiro retiro) {
+            return retiro.getCuenta();
+        }
+        if (transaccion instanceof Transferencia transferencia) {
+            return transferencia.getOrigen();
+        }
+        return null;
+    }
+
+    private static Cuenta cuentaAcreditada(Transaccion transaccion) {
+        if (transaccion instanceof Deposito deposito) {
+            return deposito.getCuenta();
+        }
+        if (transaccion instanceof Interes interes) {
+            return interes.getCuenta();
+        }
+        if (transaccion instanceof Transferencia transferencia) {
+            return transferencia.getDestino();
+        }
+        return null;
+    }
+
     // Métodos para reportes y estadísticas
     public Stream<String> listarNombresSocios() {
-        return socios.values().stream().map(Socio::getNombre);
+        return socios.listar().stream().map(Socio::getNombre);
     }
 
     public Stream<Cuenta> listarCuentas(){
-        return listarSocios().stream()
-                .flatMap(socio -> socio.getCuentas().stream());
+        // Toda cuenta de un socio está registrada en el mapa de cuentas: evitamos copiar la lista de socios
+        return cuentas.values().stream();
     }
 
-    public List<Cuenta> cuentasConSaldoMayorA(BigDecimal monto) {
+    // Usa el índice por saldo: O(log n) más el tamaño del resultado, de menor a mayor saldo
+    public Stream<Cuenta> cuentasConSaldoMayorA(BigDecimal monto) {
         if (monto == null || monto.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("El monto debe ser mayor o igual a cero.");
         }
-        return listarCuentas()
-                .filter(cuenta -> cuenta.getSaldo().compareTo(monto) > 0)
-                .collect(Collectors.toList());
+        // Los saldos son múltiplos de un centavo: saldo > monto equivale a saldo > piso(monto)
+        return indiceSaldos.mayoresA(Dinero.pisoCentavos(monto));
     }
 
+    public Stream<Cuenta> cuentasConSaldoEntre(BigDecimal minimo, BigDecimal maximo) {
+        if (minimo == null || maximo == null) {
+            throw new IllegalArgumentException("Los límites del rango no pueden ser nulos.");
+        }
+        if (minimo.compareTo(maximo) > 0) {
+            throw new IllegalArgumentException("El mínimo del rango no puede ser mayor que el máximo.");
+        }
+        // saldo >= minimo equivale a saldo >= techo(minimo); saldo <= maximo a saldo <= piso(maximo)
+        return indiceSaldos.entre(Dinero.techoCentavos(minimo), Dinero.pisoCentavos(maximo));
+    }
+
+    // Las "cantidad" cuentas de mayor saldo, de mayor a menor
+    public Stream<Cuenta> cuentasConMayorSaldo(int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa.");
+        }
+        return indiceSaldos.mayores(cantidad);
+    }
+
+    // O(1): se mantiene de forma incremental con cada depósito, retiro e interés. Cada operación de la
+    // cooperativa lo cambia de una vez (ver TotalesSaldos): nunca muestra una transferencia a medias
     public BigDecimal saldoTotalEnCuentas() {
-        return listarCuentas()                
-                .map(Cuenta::getSaldo)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return Dinero.aDecimal(totales.total());
+    }
+
+    public BigDecimal saldoTotalPorTipo(String tipoCuenta) {
+        return Dinero.aDecimal(totales.total(tipoCuenta));
+    }
+
+    public Map<String, BigDecimal> saldosPorTipo() {
+        Map<String, BigDecimal> saldos = new TreeMap<>();
+        totales.porTipo().forEach((tipo, total) -> saldos.put(tipo, Dinero.aDecimal(total.sum())));
+        return saldos;
+    }
+
+    // Reportes sobre el historial: una pasada sin materializarlo, en paralelo si es grande. Las variantes
+    // con ControlReporte se pueden cancelar o limitar en tiempo (lanzan CancellationException).
+    public List<VolumenDiario> volumenDiario(LocalDate desde, LocalDate hasta) {
+        return volumenDiario(desde, hasta, ControlReporte.sinLimite());
+    }
+
+    public List<VolumenDiario> volumenDiario(LocalDate desde, LocalDate hasta, ControlReporte control) {
+        validarPeriodo(desde, hasta, control);
+        return analitica.volumenDiario(desde, hasta, control);
+    }
+
+    public List<MovimientoCuenta> cuentasConMasMovimiento(int cantidad, LocalDateTime desde, LocalDateTime hasta) {
+        return cuentasConMasMovimiento(cantidad, desde, hasta, ControlReporte.sinLimite());
+    }
+
+    public List<MovimientoCuenta> cuentasConMasMovimiento(int cantidad, LocalDateTime desde, LocalDateTime hasta,
+                                                          ControlReporte control) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa.");
+        }
+        validarPeriodo(desde, hasta, control);
+        return analitica.mayoresMovimientos(cantidad, desde, hasta, control);
+    }
+
+    // Cuentas sin transacciones desde "desde" (las que nunca tuvieron, si se abrieron antes). O(1) por cuenta:
+    // usa la fecha de la última transacción que cada cuenta mantiene, sin leer el historial.
+    public Stream<Cuenta> cuentasInactivasDesde(LocalDateTime desde) {
+        return cuentasInactivasDesde(desde, ControlReporte.sinLimite());
+    }
+
+    public Stream<Cuenta> cuentasInactivasDesde(LocalDateTime desde, ControlReporte control) {
+        if (desde == null || control == null) {
+            throw new IllegalArgumentException("La fecha y el control del reporte no pueden ser nulos.");
+        }
+        return listarCuentas().filter(cuenta -> {
+            control.verificar();
+            LocalDateTime ultima = cuenta.getFechaUltimaTransaccion();
+            return ((ultima != null) ? ultima : cuenta.getFechaApertura()).isBefore(desde);
+        });
+    }
+
+    private static <T extends Comparable<? super T>> void validarPeriodo(T desde, T hasta, ControlReporte control) {
+        if (desde == null || hasta == null || control == null) {
+            throw new IllegalArgumentException("El período y el control del reporte no pueden ser nulos.");
+        }
+        if (desde.compareTo(hasta) > 0) {
+            throw new IllegalArgumentException("El inicio del período no puede ser posterior al fin.");
+        }
+    }
+
+    // Métricas del proceso (Metricas.reporte) más los tamaños de esta cooperativa, como texto de una línea por métrica
+    public String reporteMetricas() {
+        Map<String, Long> medidas = new TreeMap<>();
+        medidas.put("cooperativa.socios", (long) socios.cantidad());
+        medidas.put("cooperativa.cuentas", (long) cuentas.size());
+        medidas.put("historial.transacciones", historialTransacciones.cantidad());
+        return Metricas.reporte(medidas);
+    }
+
+    // Recorrido completo (reduce) sobre todas las cuentas, sin usar los totales incrementales
+    public BigDecimal recalcularSaldoTotal() {
+        long total = listarCuentas()
+                .mapToLong(Cuenta::getSaldoCentavos)
+                .reduce(0L, Dinero::sumar);
+        return Dinero.aDecimal(total);
+    }
+
+    // Modo verificación: con todas las cuentas bloqueadas compara los totales incrementales con un recálculo
+    public boolean verificarTotales() {
+        List<Cuenta> todas = listarCuentas()
+                .sorted(Comparator.comparing(Cuenta::getNumeroCuenta))
+                .collect(Collectors.toList());
+        bloquear(todas);
+        try {
+            Map<String, Long> recalculados = todas.stream()
+                    .collect(Collectors.groupingBy(Cuenta::getTipoCuenta,
+                            Collectors.reducing(0L, Cuenta::getSaldoCentavos, Dinero::sumar)));
+            long total = recalculados.values().stream().reduce(0L, Dinero::sumar);
+            if (total != totales.total()) {
+                return false;
+            }
+            for (String tipo : totales.porTipo().keySet()) {
+                if (recalculados.getOrDefault(tipo, 0L) != totales.total(tipo)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            desbloquear(todas);
+        }
     }
 
     
     public void aplicarInteresAnualCuentasAhorros() {
-        listarCuentas()
+        aplicarInteresAnualCuentasAhorros(corridasInteres.get() + 1);
+    }
+
+    /*
+     * Abona el interés anual en paralelo (bloques de cuentas sobre el pool ForkJoin). Cada abono es
+     * una transacción Interes en el historial y en la bitácora. La cuenta guarda la última corrida
+     * abonada como punto de control: repetir una corrida interrumpida solo abona las cuentas pendientes.
+     */
+    public void aplicarInteresAnualCuentasAhorros(long corrida) {
+        if (corrida <= 0) {
+            throw new IllegalArgumentException("La corrida de intereses debe ser positiva.");
+        }
+        corridasInteres.accumulateAndGet(corrida, Math::max);
+        Bitacora bitacora = this.bitacora;
+        CuentaAhorros[] ahorros = listarCuentas()
                 .filter(cuenta -> cuenta instanceof CuentaAhorros)
                 .map(cuenta -> (CuentaAhorros) cuenta)
-                .forEach(CuentaAhorros::aplicarInteresAnualCuentas);
+                .toArray(CuentaAhorros[]::new);
+        long inicio = LATENCIA_INTERESES.inicio();
+        long ultima = ForkJoinPool.commonPool().invoke(new TareaInteres(ahorros, 0, ahorros.length, corrida, bitacora));
+        if (bitacora != null && ultima > 0) {
+            bitacora.sincronizar(ultima);
+        }
+        LATENCIA_INTERESES.registrarDesde(inicio);
+    }
+
+    // Devuelve la secuencia de bitácora del abono (0 si no hubo registro)
+    private long abonarInteres(CuentaAhorros cuenta, long corrida, Bitacora bitacora) {
+        cuenta.getLock().lock();
+        long epoca = entrarEscritura(List.of(cuenta));
+        try {
+            if (cuenta.getUltimaCorridaInteres() >= corrida) {
+                return 0;
+            }
+            BigDecimal monto = cuenta.calcularInteresAnualAbonable();
+            if (monto.signum() == 0) {
+                cuenta.marcarCorridaInteres(corrida);
+                return 0;
+            }
+            Interes interes = new Interes(cuenta, monto, corrida);
+            long reserva = historialTransacciones.reservar(interes);
+            try {
+                interes.ejecutar();
+            } catch (RuntimeException | Error e) {
+                historialTransacciones.anular(reserva);
+                throw e;
+            }
+            historialTransacciones.registrar(interes, reserva);
+            if (bitacora == null) {
+                return 0;
+            }
+            long secuencia = bitacora.registrarTransaccion(interes);
+            cuenta.setVersion(secuencia);
+            return secuencia;
+        } finally {
+            salirEscritura(epoca);
+            cuenta.getLock().unlock();
+        }
+    }
+
+    // ForkJoinTask es Serializable, pero las tareas de intereses nunca se serializan
+    private class TareaInteres extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CuentaAhorros[] ahorros;
+        private final int desde;
+        private final int hasta;
+        private final long corrida;
+        private final Bitacora bitacora;
+
+        TareaInteres(CuentaAhorros[] ahorros, int desde, int hasta, long corrida, Bitacora bitacora) {
+            this.ahorros = ahorros;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.corrida = corrida;
+            this.bitacora = bitacora;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hasta - desde <= BLOQUE_INTERESES) {
+                long ultima = 0;
+                for (int i = desde; i < hasta; i++) {
+                    ultima = Math.max(ultima, abonarInteres(ahorros[i], corrida, bitacora));
+                }
+                return ultima;
+            }
+            int medio = (desde + hasta) >>> 1;
+            TareaInteres izquierda = new TareaInteres(ahorros, desde, medio, corrida, bitacora);
+            izquierda.fork();
+            long derecha = new TareaInteres(ahorros, medio, hasta, corrida, bitacora).compute();
+            return Math.max(derecha, izquierda.join());
+        }
+    }
+
+    // Utils => candados de las cuentas que toca una transacción, en orden de número de cuenta
+    // Ordenadas por número de cuenta (orden de los candados)
+    List<Cuenta> cuentasAfectadas(Transaccion transaccion) {
+        if (transaccion instanceof Deposito deposito) {
+            return List.of(deposito.getCuenta());
+        }
+        if (transaccion instanceof Retiro retiro) {
+            return List.of(retiro.getCuenta());
+        }
+        if (transaccion instanceof Interes interes) {
+            return List.of(interes.getCuenta());
+        }
+        if (transaccion instanceof Transferencia transferencia) {
+            Cuenta origen = transferencia.getOrigen();
+            Cuenta destino = transferencia.getDestino();
+            return origen.getNumeroCuenta().compareTo(destino.getNumeroCuenta()) < 0
+                    ? List.of(origen, destino)
+                    : List.of(destino, origen);
+        }
+        return List.of();
+    }
+
+    private static void bloquear(List<Cuenta> afectadas) {
+        for (Cuenta cuenta : afectadas) {
+            cuenta.getLock().lock();
+        }
+    }
+
+    private static void desbloquear(List<Cuenta> afectadas) {
+        for (int i = afectadas.size() - 1; i >= 0; i--) {
+            afectadas.get(i).getLock().unlock();
+        }
+    }
+
+    // Cortes => con los candados de las cuentas ya tomados, registra al escritor en la época actual y
+    // guarda el saldo previo de cada cuenta para el corte de esa época. Devuelve la época para salirEscritura.
+    private long entrarEscritura(List<? extends Cuenta> afectadas) {
+        long epoca;
+        while (true) {
+            epoca = epocaCorte;
+            escritores[(int) (epoca & 1)].incrementAndGet();
+            if (epocaCorte == epoca) {
+                break;
+            }
+            // Empezó un corte entre la lectura y el registro: que no espere por nosotros
+            escritores[(int) (epoca & 1)].decrementAndGet();
+        }
+        for (Cuenta cuenta : afectadas) {
+            cuenta.prepararEscritura(epoca);
+        }
+        totales.abrir();
+        return epoca;
+    }
+
+    // Todavía con los candados tomados: los totales reciben la diferencia neta de toda la escritura
+    private void salirEscritura(long epoca) {
+        totales.aplicar();
+        escritores[(int) (epoca & 1)].decrementAndGet();
+    }
+
+    /*
+     * Corte consistente de los saldos sin bloquear a los escritores. El corte abre una época nueva y
+     * espera solo a los escritores de la anterior, que ya tenían sus candados. Desde ese momento cada
+     * escritor nuevo, antes de tocar una cuenta, guarda su saldo previo para la época (Cuenta.prepararEscritura):
+     * el corte lee ese saldo si existe y si no el actual, que todavía no cambió. El resultado equivale a
+     * detener todas las escrituras en el instante en que se abrió la época, pero los escritores nunca esperan
+     * y las lecturas no toman candados. Cubre las operaciones hechas a través de la cooperativa.
+     */
+    public CorteSaldos corteDeSaldos() {
+        return corte(cuentas.values());
+    }
+
+    // Corte de solo algunas cuentas (por ejemplo, las de un socio), con la misma garantía
+    public CorteSaldos corteDeSaldos(Collection<String> numerosCuenta) throws CuentaNoEncontradaException {
+        if (numerosCuenta == null) {
+            throw new IllegalArgumentException("Los números de cuenta no pueden ser nulos.");
+        }
+        List<Cuenta> seleccionadas = new ArrayList<>(numerosCuenta.size());
+        for (String numero : numerosCuenta) {
+            seleccionadas.add(buscarCuentaPorNumero(numero));
+        }
+        return corte(seleccionadas);
+    }
+
+    private CorteSaldos corte(Collection<Cuenta> origen) {
+        long inicio = LATENCIA_CORTE.inicio();
+        synchronized (corteLock) {
+            long epoca = nuevaEpoca();
+            Cuenta[] leidas = origen.toArray(new Cuenta[0]);
+            long[] saldos = new long[leidas.length];
+            for (int i = 0; i < leidas.length; i++) {
+                saldos[i] = leidas[i].getSaldoEnCorte(epoca);
+            }
+            CorteSaldos corte = new CorteSaldos(epoca, leidas, saldos);
+            LATENCIA_CORTE.registrarDesde(inicio);
+            return corte;
+        }
+    }
+
+    // Abre una época de corte y espera a los escritores de la anterior. Se llama con "corteLock" tomado.
+    private long nuevaEpoca() {
+        long epoca = epocaCorte + 1;
+        epocaCorte = epoca;
+        AtomicLong anteriores = escritores[(int) ((epoca - 1) & 1)];
+        while (anteriores.get() != 0) {
+            // Son escrituras cortas y ya en curso; ceder el procesador les permite terminar
+            Thread.yield();
+        }
+        return epoca;
+    }
+
+    // Claves de idempotencia para un snapshot con corte en "corte". Toda clave registrada hasta el corte
+    // se anotó dentro de una época ya terminada, así que está en la ventana. Quien escribe el snapshot
+    // sincroniza la bitácora después del cuerpo, para que ninguna clave ni saldo sea más durable que su registro.
+    private List<Snapshot.Clave> clavesParaSnapshot() {
+        synchronized (corteLock) {
+            nuevaEpoca();
+        }
+        return idempotencia.exportar();
+    }
+
+    // Persistencia => recupera el estado (snapshot + bitácora) y registra en la bitácora las operaciones siguientes
+    public void abrirBitacora(Path archivo, boolean commitGrupal) throws IOException {
+        if (bitacora != null) {
+            throw new IllegalStateException("La bitácora ya está abierta.");
+        }
+        Path snapshot = archivo.resolveSibling(archivo.getFileName() + ".snapshot");
+        Recuperacion recuperacion = new Recuperacion();
+        if (Files.exists(snapshot)) {
+            recuperacion.corte = Snapshot.leer(snapshot, recuperacion);
+        }
+        // Mientras se reproduce, "bitacora" sigue en null y las operaciones no se vuelven a registrar
+        bitacora = Bitacora.abrir(archivo, commitGrupal, recuperacion.corte, recuperacion);
+        archivoSnapshot = snapshot;
+    }
+
+    // Guarda un snapshot y descarta de la bitácora lo que ya quedó cubierto por él
+    public void tomarSnapshot() throws IOException {
+        synchronized (snapshotLock) {
+            Bitacora bitacora = this.bitacora;
+            if (bitacora == null) {
+                throw new IllegalStateException("La bitácora no está abierta.");
+            }
+            // Todo registro hasta el corte ya está aplicado en memoria (se aplica antes de anexarse)
+            Bitacora.Corte corte = bitacora.marcarCorte();
+            Snapshot.escribir(archivoSnapshot, corte.secuencia(), socios.listar(), clavesParaSnapshot(), bitacora);
+            bitacora.compactar(corte);
+        }
+    }
+
+    public void iniciarSnapshotsPeriodicos(Duration intervalo) {
+        if (intervalo == null || intervalo.isNegative() || intervalo.isZero()) {
+            throw new IllegalArgumentException("El intervalo debe ser positivo.");
+        }
+        synchronized (snapshotLock) {
+            if (snapshots != null) {
+                throw new IllegalStateException("Los snapshots periódicos ya están activos.");
+            }
+            snapshots = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "cooperativa-snapshots");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            long periodo = intervalo.toMillis();
+            snapshots.scheduleWithFixedDelay(() -> {
+                try {
+                    tomarSnapshot();
+                } catch (IOException | RuntimeException e) {
+                    // Un snapshot fallido no afecta la bitácora: se reintenta en el siguiente ciclo
+                }
+            }, periodo, periodo, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void cerrarBitacora() throws IOException {
+        synchronized (snapshotLock) {
+            if (snapshots != null) {
+                snapshots.shutdownNow();
+                snapshots = null;
+            }
+        }
+        Bitacora actual = bitacora;
+        if (actual != null) {
+            bitacora = null;
+            actual.close();
+        }
+    }
+
+    // Cierra la bitácora y borra el historial en disco; la cooperativa no se puede usar después
+    @Override
+    public void close() throws IOException {
+        try {
+            cerrarBitacora();
+        } finally {
+            historialTransacciones.cerrar();
+        }
+    }
+
+    // Replicación => el primario entrega su bitácora a las réplicas (ver ServidorReplicacion)
+    Bitacora getBitacoraReplicacion() {
+        Bitacora actual = bitacora;
+        if (actual == null) {
+            throw new IllegalStateException("La bitácora no está abierta.");
+        }
+        return actual;
+    }
+
+    // Escribe en "out" un snapshot del estado actual y devuelve el cursor desde su corte. Bajo snapshotLock
+    // nadie compacta entre el corte y el cursor. Las cuentas se leen sin detener las escrituras, así que el
+    // snapshot se arma en memoria y solo se envía cuando la bitácora ya es durable hasta su último registro
+    // (también el corte): la réplica no recibe nada que el primario pueda perder.
+    Bitacora.Cursor enviarSnapshot(DataOutputStream out) throws IOException {
+        synchronized (snapshotLock) {
+            Bitacora actual = getBitacoraReplicacion();
+            Bitacora.Corte corte = actual.marcarCorte();
+            List<Snapshot.Clave> claves = clavesParaSnapshot();
+            ByteArrayOutputStream cuerpo = new ByteArrayOutputStream();
+            Snapshot.escribir(new DataOutputStream(cuerpo), corte.secuencia(), socios.listar(), claves);
+            actual.sincronizar(actual.getUltimaSecuencia());
+            cuerpo.writeTo(out);
+            return actual.cursor(corte);
+        }
+    }
+
+    // Receptor para aplicar en esta cooperativa (sin bitácora propia) el flujo de un primario (ver ReplicaCooperativa)
+    ReceptorBitacora receptorReplica() {
+        if (bitacora != null) {
+            throw new IllegalStateException("Una réplica no puede tener bitácora propia.");
+        }
+        return new Recuperacion();
+    }
+
+    /*
+     * Aplica los registros del snapshot y de la bitácora. Los registros con secuencia <= corte
+     * ya están en el snapshot; entre los posteriores, la versión de cada cuenta indica si su
+     * saldo ya incluye el movimiento (en ese caso solo se reconstruye el historial).
+     *
+     * También aplica el flujo de un primario en una réplica, que atiende lecturas mientras tanto:
+     * por eso cada registro se aplica con los candados de sus cuentas y dentro de una época de corte,
+     * como aplicarSinSincronizar. Si la réplica recibe un snapshot y ya tenía la cuenta, su saldo se
+     * lleva al del snapshot (los movimientos que se saltó no quedan en su historial).
+     */
+    private class Recuperacion implements ReceptorBitacora {
+
+        private long corte = 0;
+
+        @Override
+        public void socio(long secuencia, String id, String nombre, String cedula) {
+            if (socios.porId(id) != null) {
+                return;
+            }
+            agregarSocio(new Socio(id, nombre, cedula));
+        }
+
+        @Override
+        public void cuentaAhorros(long secuencia, String cedula, String numeroCuenta, BigDecimal saldo,
+                LocalDateTime fechaApertura, BigDecimal tasaInteresAnual, long ultimaCorridaInteres)
+                throws Exception {
+            Cuenta existente = cuentas.get(numeroCuenta);
+            if (existente != null) {
+                if (existente.getVersion() < secuencia) {
+                    List<Cuenta> afectadas = List.of(existente);
+                    bloquear(afectadas);
+                    long epoca = entrarEscritura(afectadas);
+                    try {
+                        aplicar(secuencia, existente, saldo.subtract(existente.getSaldo()));
+                        if (existente instanceof CuentaAhorros ahorros) {
+                            ahorros.marcarCorridaInteres(ultimaCorridaInteres);
+                        }
+                    } finally {
+                        salirEscritura(epoca);
+                        desbloquear(afectadas);
+                    }
+                    corridasInteres.accumulateAndGet(ultimaCorridaInteres, Math::max);
+                }
+                return;
+            }
+            CuentaAhorros cuenta = new CuentaAhorros(numeroCuenta, saldo, fechaApertura, tasaInteresAnual);
+            agregarCuentaASocio(cedula, cuenta);
+            cuenta.setVersion(secuencia);
+            cuenta.marcarCorridaInteres(ultimaCorridaInteres);
+            corridasInteres.accumulateAndGet(ultimaCorridaInteres, Math::max);
+        }
+
+        @Override
+        public void deposito(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha)
+                throws Exception {
+            if (secuencia <= corte) {
+                return;
+            }
+            Cuenta cuenta = buscarCuentaPorNumero(numeroCuenta);
+            movimiento(secuencia, new Deposito(cuenta, monto, fecha), List.of(cuenta), monto);
+        }
+
+        @Override
+        public void retiro(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha)
+                throws Exception {
+            if (secuencia <= corte) {
+                return;
+            }
+            Cuenta cuenta = buscarCuentaPorNumero(numeroCuenta);
+            movimiento(secuencia, new Retiro(cuenta, monto, fecha), List.of(cuenta), monto.negate());
+        }
+
+        @Override
+        public void transferencia(long secuencia, String origen, String destino, BigDecimal monto,
+                LocalDateTime fecha) throws Exception {
+            if (secuencia <= corte) {
+                return;
+            }
+            Cuenta cuentaOrigen = buscarCuentaPorNumero(origen);
+            Cuenta cuentaDestino = buscarCuentaPorNumero(destino);
+            Transferencia transferencia = new Transferencia(cuentaOrigen, cuentaDestino, monto, fecha);
+            // Candados en el orden de cuentasAfectadas; los movimientos van en ese mismo orden
+            List<Cuenta> afectadas = cuentasAfectadas(transferencia);
+            movimiento(secuencia, transferencia, afectadas,
+                    (afectadas.get(0) == cuentaOrigen) ? monto.negate() : monto,
+                    (afectadas.get(0) == cuentaOrigen) ? monto : monto.negate());
+        }
+
+        @Override
+        public void interes(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha,
+                long corrida) throws Exception {
+            if (secuencia <= corte) {
+                return;
+            }
+            Cuenta cuenta = buscarCuentaPorNumero(numeroCuenta);
+            if (!(cuenta instanceof CuentaAhorros ahorros)) {
+                List<Cuenta> afectadas = List.of(cuenta);
+                bloquear(afectadas);
+                long epoca = entrarEscritura(afectadas);
+                try {
+                    aplicar(secuencia, cuenta, monto);
+                } finally {
+                    salirEscritura(epoca);
+                    desbloquear(afectadas);
+                }
+                return;
+            }
+            movimiento(secuencia, new Interes(ahorros, monto, fecha, corrida), List.of(cuenta), monto);
+            corridasInteres.accumulateAndGet(corrida, Math::max);
+        }
+
+        // Del snapshot (secuencia 0) o de un registro con clave; repetirla es inofensivo
+        @Override
+        public void idempotencia(long secuencia, long huella, byte resultado, long milis) {
+            idempotencia.restaurar(huella, resultado, milis);
+        }
+
+        @Override
+        public void intencionTransferencia(long secuencia, String id, String origen, String destino,
+                BigDecimal monto, LocalDateTime fecha) {
+            throw new IllegalStateException("Registro de la bitácora de transferencias en la de una cooperativa.");
+        }
+
+        @Override
+        public void finTransferencia(long secuencia, String id) {
+            throw new IllegalStateException("Registro de la bitácora de transferencias en la de una cooperativa.");
+        }
+
+        // "movimientos" va en el orden de "afectadas"
+        private void movimiento(long secuencia, Transaccion transaccion, List<Cuenta> afectadas,
+                BigDecimal... movimientos) throws SaldoInsuficienteException {
+            bloquear(afectadas);
+            long epoca = entrarEscritura(afectadas);
+            try {
+                long reserva = historialTransacciones.reservar(transaccion);
+                try {
+                    for (int i = 0; i < afectadas.size(); i++) {
+                        aplicar(secuencia, afectadas.get(i), movimientos[i]);
+                    }
+                } catch (SaldoInsuficienteException | RuntimeException | Error e) {
+                    historialTransacciones.anular(reserva);
+                    throw e;
+                }
+                if (transaccion instanceof Interes interes) {
+                    interes.getCuenta().marcarCorridaInteres(interes.getCorrida());
+                }
+                for (Cuenta cuenta : afectadas) {
+                    cuenta.registrarTransaccion(transaccion);
+                }
+                historialTransacciones.registrar(transaccion, reserva);
+            } finally {
+                salirEscritura(epoca);
+                desbloquear(afectadas);
+            }
+        }
+
+        private void aplicar(long secuencia, Cuenta cuenta, BigDecimal movimiento)
+                throws SaldoInsuficienteException {
+            if (secuencia <= cuenta.getVersion()) {
+                return;
+            }
+            // Sin diferencia (una réplica que se puso al día con un snapshot) solo avanza la versión
+            if (movimiento.signum() > 0) {
+                cuenta.depositar(movimiento);
+            } else if (movimiento.signum() < 0) {
+                cuenta.retirar(movimiento.negate());
+            }
+            cuenta.setVersion(secuencia);
+        }
     }
 
     // Getters
@@ -175,7 +1290,34 @@ public class Cooperativa {
     public String getDireccion() {
         return direccion;
     }
-    public List<Transaccion> getHistorialTransacciones() {
-        return Collections.unmodifiableList(historialTransacciones);
+    // Todo el historial, de la transacción más antigua a la más reciente (lee del disco a medida que se recorre)
+    public Stream<Transaccion> getHistorialTransacciones() {
+        return historialTransacciones.transacciones();
+    }
+
+    // Página del historial: "cantidad" transacciones a partir de la número "desde" (0 es la más antigua)
+    public List<Transaccion> getHistorialTransacciones(long desde, int cantidad) {
+        if (desde < 0 || cantidad < 0) {
+            throw new IllegalArgumentException("La página del historial no puede tener valores negativos.");
+        }
+        return historialTransacciones.transacciones().skip(desde).limit(cantidad).collect(Collectors.toList());
+    }
+
+    long getUltimaCorridaInteres() {
+        return corridasInteres.get();
+    }
+
+    public long getCantidadTransacciones() {
+        return historialTransacciones.cantidad();
+    }
+
+    // Estado de cuenta del período [desde, hasta) con saldos al inicio y al final (ver Cuenta.estadoDeCuenta)
+    public EstadoCuenta estadoDeCuenta(String numeroCuenta, LocalDateTime desde, LocalDateTime hasta)
+            throws CuentaNoEncontradaException {
+        Cuenta cuenta = buscarCuentaPorNumero(numeroCuenta);
+        long inicio = LATENCIA_ESTADO_CUENTA.inicio();
+        EstadoCuenta estado = cuenta.estadoDeCuenta(desde, hasta);
+        LATENCIA_ESTADO_CUENTA.registrarDesde(inicio);
+        return estado;
     }
 }
\ No newline at end of file
@@ -0,0 +1,670 @@
+package cooperativa.core;
+
+import cooperativa.exceptions.CuentaDuplicadaExceptions;
+import cooperativa.exceptions.CuentaNoEncontradaException;
+import cooperativa.exceptions.SaldoInsuficienteException;
+import cooperativa.exceptions.SocioNoEncontradoException;
+import cooperativa.models.Cuenta;
+import cooperativa.models.EstadoCuenta;
+import cooperativa.models.Socio;
+import cooperativa.persistence.Bitacora;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Interes;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transaccion;
+import cooperativa.transactions.Transferencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Cooperativa repartida en N particiones independientes con la misma API que Cooperativa. Cada
+ * partición es una Cooperativa completa (mapas, historial, índices, bitácora propia) con su propio hilo
+ * para consultas; ninguna comparte candados ni contadores con las demás.
+ *
+ * Enrutamiento (ver particion): las cuentas van a la partición de su número y los socios a la de su
+ * cédula ("partición hogar"). Si un socio abre una cuenta en otra partición, se registra también allí
+ * como invitado (una copia con el mismo id), porque cada partición exige que el socio exista; los listados
+ * solo lo cuentan en su hogar.
+ *
+ * Los reportes que cruzan particiones se calculan por dispersión y reunión: cada partición responde en su
+ * hilo y aquí se combinan (sumas, mezcla de listas ordenadas). Una transferencia entre cuentas de
+ * particiones distintas se coordina como retiro en el origen y depósito en el destino; si el depósito
+ * falla, un depósito de compensación devuelve el dinero al origen. Mientras el dinero está en tránsito la
+ * transferencia retiene la lectura de "transito"; los totales toman la escritura, así que nunca lo pierden
+ * de vista. En el historial de cada partición quedan el retiro y el depósito.
+ *
+ * Con bitácoras, cada transferencia entre particiones registra antes de mover el dinero una intención
+ * durable en "transferencias.bitacora" y, al terminar, su fin. Los pasos llevan claves de idempotencia
+ * derivadas del id de la transferencia ("<id>-r", "<id>-d", "<id>-c"), que cada partición registra con
+ * el movimiento: al abrir las bitácoras, las intenciones sin fin se reanudan y los pasos ya hechos no se
+ * repiten. Si la compensación también falla, la transferencia queda pendiente (ver
+ * getTransferenciasPendientes) y se vuelve a intentar en la próxima recuperación.
+ *
+ * Los lotes no se ofrecen: un lote "todo o nada" entre particiones necesitaría un commit en dos fases.
+ * Para correr las particiones como procesos separados, ver cooperativa.app.ClusterLocal.
+ */
+public class CooperativaParticionada implements Closeable {
+
+    private final String nombre;
+    private final String direccion;
+    private final Cooperativa[] particiones;
+    private final ExecutorService[] ejecutores;
+    private final ReentrantReadWriteLock transito = new ReentrantReadWriteLock();
+    // Claves de idempotencia de las transferencias entre particiones; las demás quedan en la ventana (y la
+    // bitácora) de su partición
+    private final VentanaIdempotencia idempotencia = new VentanaIdempotencia(Duration.ofHours(24), 8, 10_000_000);
+    // Bitácora de las transferencias entre particiones (null sin bitácoras) y las que no terminaron
+    private volatile Bitacora transferencias;
+    private final Map<String, Intencion> pendientes = new ConcurrentHashMap<>();
+
+    // Transferencia entre particiones tal como se registra en la bitácora de transferencias
+    private record Intencion(String id, String origen, String destino, BigDecimal monto, LocalDateTime fecha) {
+    }
+
+    public CooperativaParticionada(String nombre, String direccion, int cantidadParticiones) {
+        if (cantidadParticiones <= 0) {
+            throw new IllegalArgumentException("La cantidad de particiones debe ser mayor que cero.");
+        }
+        this.nombre = nombre;
+        this.direccion = direccion;
+        this.particiones = new Cooperativa[cantidadParticiones];
+        this.ejecutores = new ExecutorService[cantidadParticiones];
+        for (int i = 0; i < cantidadParticiones; i++) {
+            particiones[i] = new Cooperativa(nombre, direccion);
+            int indice = i;
+            ejecutores[i] = Executors.newSingleThreadExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "cooperativa-particion-" + indice);
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    // Partición de una clave (número de cuenta o cédula). Es la misma regla para particiones en procesos separados.
+    public static int particion(String clave, int cantidadParticiones) {
+        return Math.floorMod(clave.hashCode(), cantidadParticiones);
+    }
+
+    public int getCantidadParticiones() {
+        return particiones.length;
+    }
+
+    public Cooperativa getParticion(int indice) {
+        return particiones[indice];
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getDireccion() {
+        return direccion;
+    }
+
+    // Persistencia => una bitácora por partición en "directorio" (particion-<i>.bitacora); cada una se recupera
+    // sola. Después se reanudan las transferencias entre particiones que quedaron a medias.
+    public void abrirBitacoras(Path directorio, boolean commitGrupal) throws IOException {
+        if (transferencias != null) {
+            throw new IllegalStateException("Las bitácoras ya están abiertas.");
+        }
+        Files.createDirectories(directorio);
+        for (int i = 0; i < particiones.length; i++) {
+            particiones[i].abrirBitacora(directorio.resolve("particion-" + i + ".bitacora"), commitGrupal);
+        }
+        RecuperacionTransferencias recuperacion = new RecuperacionTransferencias();
+        transferencias = Bitacora.abrir(directorio.resolve("transferencias.bitacora"), commitGrupal, 0, recuperacion);
+        for (Intencion intencion : recuperacion.pendientes.values()) {
+            pendientes.put(intencion.id(), intencion);
+            reanudar(intencion);
+        }
+        compactarTransferencias();
+    }
+
+    // Snapshot de cada partición; la bitácora de transferencias se reescribe con solo las pendientes
+    public void tomarSnapshots() throws IOException {
+        for (Cooperativa particion : particiones) {
+            particion.tomarSnapshot();
+        }
+        compactarTransferencias();
+    }
+
+    public void cerrarBitacoras() throws IOException {
+        for (Cooperativa particion : particiones) {
+            particion.cerrarBitacora();
+        }
+        Bitacora actual = transferencias;
+        if (actual != null) {
+            transferencias = null;
+            actual.close();
+        }
+    }
+
+    // Transferencias entre particiones en curso o que quedaron a medias porque falló la compensación
+    public int getTransferenciasPendientes() {
+        return pendientes.size();
+    }
+
+    // Termina las tareas en curso de cada partición y luego cierra las bitácoras y las particiones
+    @Override
+    public void close() throws IOException {
+        for (ExecutorService ejecutor : ejecutores) {
+            ejecutor.shutdown();
+        }
+        try {
+            for (ExecutorService ejecutor : ejecutores) {
+                ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            cerrarBitacoras();
+        } finally {
+            for (Cooperativa particion : particiones) {
+                particion.close();
+            }
+        }
+    }
+
+    // Socios => en su partición hogar
+    public void agregarSocio(Socio socio) {
+        if (socio == null) {
+            throw new IllegalArgumentException("El socio no puede ser nulo.");
+        }
+        hogar(socio.getCedula()).agregarSocio(socio);
+    }
+
+    public List<Socio> listarSocios() {
+        // Cada partición aporta solo los socios de los que es hogar; los invitados se repiten en otras
+        return reunir(particion -> particion.listarSocios().stream()
+                .filter(socio -> hogar(socio.getCedula()) == particion)
+                .collect(Collectors.toList()))
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    public Socio buscarSocioPorCedula(String cedula) throws SocioNoEncontradoException {
+        if (cedula == null) {
+            throw new SocioNoEncontradoException("Socio con cédula null no encontrado.");
+        }
+        return hogar(cedula).buscarSocioPorCedula(cedula);
+    }
+
+    // Cuentas del socio en todas las particiones (cada partición tiene su propia copia del socio con las
+    // cuentas que abrió allí)
+    public List<Cuenta> cuentasDeSocio(String cedula) throws SocioNoEncontradoException {
+        buscarSocioPorCedula(cedula);
+        Map<Cuenta, Boolean> cuentas = new IdentityHashMap<>();
+        for (Cooperativa particion : particiones) {
+            try {
+                particion.buscarSocioPorCedula(cedula).getCuentas().forEach(cuenta -> cuentas.put(cuenta, true));
+            } catch (SocioNoEncontradoException e) {
+                // El socio no tiene cuentas en esta partición
+            }
+        }
+        return new ArrayList<>(cuentas.keySet());
+    }
+
+    // Cuentas => en la partición de su número; el socio se registra allí como invitado si hace falta
+    public void agregarCuentaASocio(String cedula, Cuenta cuenta)
+            throws SocioNoEncontradoException, CuentaDuplicadaExceptions {
+        switch (intentarAgregarCuentaASocio(cedula, cuenta)) {
+            case SOCIO_NO_ENCONTRADO -> throw new SocioNoEncontradoException("Socio con cédula " + cedula + " no encontrado.");
+            case CUENTA_DUPLICADA -> throw new CuentaDuplicadaExceptions("La cuenta ya existe en la cooperativa.");
+            default -> {
+            }
+        }
+    }
+
+    public ResultadoOperacion intentarAgregarCuentaASocio(String cedula, Cuenta cuenta) {
+        if (cuenta == null) {
+            throw new IllegalArgumentException("La cuenta no puede ser nula.");
+        }
+        Socio socio;
+        try {
+            socio = buscarSocioPorCedula(cedula);
+        } catch (SocioNoEncontradoException e) {
+            return ResultadoOperacion.SOCIO_NO_ENCONTRADO;
+        }
+        Cooperativa destino = particionDe(cuenta);
+        if (destino != hogar(cedula)) {
+            registrarInvitado(destino, socio);
+        }
+        return destino.intentarAgregarCuentaASocio(cedula, cuenta);
+    }
+
+    private static void registrarInvitado(Cooperativa particion, Socio socio) {
+        try {
+            particion.buscarSocioPorCedula(socio.getCedula());
+        } catch (SocioNoEncontradoException e) {
+            try {
+                // Copia propia: la lista de cuentas de cada partición (y su snapshot) solo tiene las suyas
+                particion.agregarSocio(new Socio(socio.getId(), socio.getNombre(), socio.getCedula()));
+            } catch (IllegalArgumentException repetido) {
+                // Otro hilo lo registró primero: basta con que exista
+            }
+        }
+    }
+
+    public Cuenta buscarCuentaPorNumero(String numeroCuenta) throws CuentaNoEncontradaException {
+        if (numeroCuenta == null || numeroCuenta.isEmpty()) {
+            throw new IllegalArgumentException("El número de cuenta no puede ser nulo o vacío.");
+        }
+        return particiones[particion(numeroCuenta, particiones.length)].buscarCuentaPorNumero(numeroCuenta);
+    }
+
+    public Optional<Cuenta> buscarCuenta(String numeroCuenta) {
+        return (numeroCuenta == null)
+                ? Optional.empty()
+                : particiones[particion(numeroCuenta, particiones.length)].buscarCuenta(numeroCuenta);
+    }
+
+    // Transacciones => en la partición de la cuenta; una transferencia entre particiones se coordina aquí
+    public void ejecutarTransaccion(Transaccion transaccion) throws Exception {
+        if (intentarTransaccion(transaccion) == ResultadoOperacion.SALDO_INSUFICIENTE) {
+            throw new SaldoInsuficienteException(ResultadoOperacion.SALDO_INSUFICIENTE.getMensaje());
+        }
+    }
+
+    public ResultadoOperacion intentarTransaccion(Transaccion transaccion) {
+        if (transaccion instanceof Transferencia transferencia) {
+            Cooperativa origen = particionDe(transferencia.getOrigen());
+            Cooperativa destino = particionDe(transferencia.getDestino());
+            return (origen == destino)
+                    ? origen.intentarTransaccion(transferencia)
+                    : transferirEntreParticiones(transferencia, origen, destino, null);
+        }
+        return particionDe(transaccion).intentarTransaccion(transaccion);
+    }
+
+    public void ejecutarTransaccion(String claveIdempotencia, Transaccion transaccion) throws Exception {
+        if (intentarTransaccion(claveIdempotencia, transaccion) == ResultadoOperacion.SALDO_INSUFICIENTE) {
+            throw new SaldoInsuficienteException(ResultadoOperacion.SALDO_INSUFICIENTE.getMensaje());
+        }
+    }
+
+    // Misma semántica que Cooperativa.intentarTransaccion(clave, transaccion). Una transacción de una sola
+    // partición usa la clave allí, donde se registra en la bitácora con la transacción; una transferencia
+    // entre particiones la usa como id (ver transferirEntreParticiones).
+    public ResultadoOperacion intentarTransaccion(String claveIdempotencia, Transaccion transaccion) {
+        VentanaIdempotencia.validarClave(claveIdempotencia);
+        if (!(transaccion instanceof Transferencia transferencia)) {
+            return particionDe(transaccion).intentarTransaccion(claveIdempotencia, transaccion);
+        }
+        Cooperativa origen = particionDe(transferencia.getOrigen());
+        Cooperativa destino = particionDe(transferencia.getDestino());
+        if (origen == destino) {
+            return origen.intentarTransaccion(claveIdempotencia, transferencia);
+        }
+        CompletableFuture<ResultadoOperacion> original = idempotencia.reservar(claveIdempotencia);
+        if (original != null) {
+            try {
+                return original.join();
+            } catch (CompletionException e) {
+                throw (e.getCause() instanceof RuntimeException causa) ? causa : e;
+            }
+        }
+        ResultadoOperacion resultado;
+        try {
+            resultado = transferirEntreParticiones(transferencia, origen, destino, claveIdempotencia);
+        } catch (RuntimeException e) {
+            idempotencia.liberar(claveIdempotencia, e);
+            throw e;
+        }
+        idempotencia.completar(claveIdempotencia, resultado);
+        return resultado;
+    }
+
+    // "clave": la de idempotencia, o null. Es el id de la transferencia, salvo que un intento anterior con la
+    // misma clave se haya compensado: un error no es un resultado y la clave queda libre para reintentar.
+    private ResultadoOperacion transferirEntreParticiones(Transferencia transferencia, Cooperativa origen,
+                                                          Cooperativa destino, String clave) {
+        // Las dos cuentas tienen que estar en sus particiones: al reanudar se buscan por número
+        if (origen.buscarCuenta(transferencia.getOrigen().getNumeroCuenta()).orElse(null) != transferencia.getOrigen()
+                || destino.buscarCuenta(transferencia.getDestino().getNumeroCuenta()).orElse(null)
+                        != transferencia.getDestino()) {
+            throw new IllegalArgumentException("Las cuentas de la transferencia no pertenecen a la cooperativa.");
+        }
+        transito.readLock().lock();
+        try {
+            String id = (clave == null) ? UUID.randomUUID().toString() : clave;
+            for (int intento = 1; origen.resultadoClave(id + "-c") != null; intento++) {
+                id = clave + "#" + intento;
+            }
+            Intencion intencion = new Intencion(id, transferencia.getOrigen().getNumeroCuenta(),
+                    transferencia.getDestino().getNumeroCuenta(), transferencia.getMonto(), transferencia.getFecha());
+            pendientes.put(id, intencion);
+            Bitacora bitacora = transferencias;
+            if (bitacora != null) {
+                // Durable antes de mover el dinero
+                bitacora.sincronizar(bitacora.registrarIntencion(intencion.id(), intencion.origen(),
+                        intencion.destino(), intencion.monto(), intencion.fecha()));
+            }
+            return mover(intencion, origen, transferencia.getOrigen(), destino, transferencia.getDestino());
+        } finally {
+            transito.readLock().unlock();
+        }
+    }
+
+    // Retiro, depósito y, si el depósito falla sin haberse aplicado, compensación. Cada paso lleva su clave
+    // derivada del id: al reanudar, los pasos ya hechos devuelven su resultado sin aplicarse otra vez.
+    private ResultadoOperacion mover(Intencion intencion, Cooperativa origen, Cuenta cuentaOrigen,
+                                     Cooperativa destino, Cuenta cuentaDestino) {
+        String id = intencion.id();
+        ResultadoOperacion retiro = origen.intentarTransaccion(id + "-r",
+                new Retiro(cuentaOrigen, intencion.monto(), intencion.fecha()));
+        if (!retiro.isExitoso()) {
+            terminar(id);
+            return retiro;
+        }
+        try {
+            destino.intentarTransaccion(id + "-d", new Deposito(cuentaDestino, intencion.monto(), intencion.fecha()));
+        } catch (RuntimeException e) {
+            if (destino.resultadoClave(id + "-d") != null) {
+                // El depósito se aplicó y falló la bitácora del destino: no se compensa. Queda pendiente y la
+                // recuperación lo repite si no llegó a ser durable.
+                throw e;
+            }
+            compensar(intencion, origen, cuentaOrigen, e);
+        }
+        terminar(id);
+        return ResultadoOperacion.OK;
+    }
+
+    // El dinero vuelve a la cuenta de origen y se relanza "error"; si tampoco se puede, la transferencia queda
+    // pendiente y se avisa con IllegalStateException
+    private void compensar(Intencion intencion, Cooperativa origen, Cuenta cuentaOrigen, RuntimeException error) {
+        ResultadoOperacion devolucion;
+        try {
+            devolucion = origen.intentarTransaccion(intencion.id() + "-c",
+                    new Deposito(cuentaOrigen, intencion.monto(), intencion.fecha()));
+        } catch (RuntimeException falla) {
+            error.addSuppressed(falla);
+            devolucion = null;
+        }
+        if (devolucion != ResultadoOperacion.OK) {
+            throw new IllegalStateException("La transferencia " + intencion.id()
+                    + " quedó pendiente: no se pudo devolver el dinero a la cuenta " + intencion.origen() + ".", error);
+        }
+        terminar(intencion.id());
+        throw error;
+    }
+
+    private void terminar(String id) {
+        pendientes.remove(id);
+        Bitacora bitacora = transferencias;
+        if (bitacora != null) {
+            // Sin esperar el fsync: si se pierde, la recuperación repite pasos que ya no se aplican
+            bitacora.registrarFinTransferencia(id);
+        }
+    }
+
+    // Al abrir las bitácoras: termina (o compensa) una transferencia que quedó a medias
+    private void reanudar(Intencion intencion) {
+        Cooperativa origen = particiones[particion(intencion.origen(), particiones.length)];
+        Cooperativa destino = particiones[particion(intencion.destino(), particiones.length)];
+        Cuenta cuentaOrigen = origen.buscarCuenta(intencion.origen()).orElse(null);
+        Cuenta cuentaDestino = destino.buscarCuenta(intencion.destino()).orElse(null);
+        if (cuentaOrigen == null || cuentaDestino == null) {
+            // Las bitácoras de las particiones no tienen la cuenta: no hay nada que mover
+            terminar(intencion.id());
+            return;
+        }
+        if (origen.resultadoClave(intencion.id() + "-c") != null) {
+            // Ya se había devuelto el dinero
+            terminar(intencion.id());
+            return;
+        }
+        try {
+            mover(intencion, origen, cuentaOrigen, destino, cuentaDestino);
+        } catch (RuntimeException e) {
+            // Compensada, o sigue pendiente y se reintenta en la próxima recuperación
+        }
+    }
+
+    // Reescribe la bitácora de transferencias con solo las pendientes. Con la escritura de "transito" no hay
+    // transferencias en curso.
+    private void compactarTransferencias() throws IOException {
+        Bitacora bitacora = transferencias;
+        if (bitacora == null) {
+            return;
+        }
+        transito.writeLock().lock();
+        try {
+            Bitacora.Corte corte = bitacora.marcarCorte();
+            for (Intencion intencion : pendientes.values()) {
+                bitacora.registrarIntencion(intencion.id(), intencion.origen(), intencion.destino(),
+                        intencion.monto(), intencion.fecha());
+            }
+            bitacora.sincronizar(bitacora.getUltimaSecuencia());
+            bitacora.compactar(corte);
+        } finally {
+            transito.writeLock().unlock();
+        }
+    }
+
+    // Reportes => dispersión y reunión
+    public Stream<String> listarNombresSocios() {
+        return listarSocios().stream().map(Socio::getNombre);
+    }
+
+    public Stream<Cuenta> listarCuentas() {
+        return Stream.of(particiones).flatMap(Cooperativa::listarCuentas);
+    }
+
+    // De menor a mayor saldo, como en Cooperativa
+    public Stream<Cuenta> cuentasConSaldoMayorA(BigDecimal monto) {
+        return mezclar(reunir(particion -> particion.cuentasConSaldoMayorA(monto).collect(Collectors.toList())),
+                Comparator.comparingLong(Cuenta::getSaldoCentavos)).stream();
+    }
+
+    public Stream<Cuenta> cuentasConSaldoEntre(BigDecimal minimo, BigDecimal maximo) {
+        return mezclar(reunir(particion -> particion.cuentasConSaldoEntre(minimo, maximo).collect(Collectors.toList())),
+                Comparator.comparingLong(Cuenta::getSaldoCentavos)).stream();
+    }
+
+    // Cada partición aporta sus "cantidad" mayores: entre todas están las "cantidad" mayores de la cooperativa
+    public Stream<Cuenta> cuentasConMayorSaldo(int cantidad) {
+        return mezclar(reunir(particion -> particion.cuentasConMayorSaldo(cantidad).collect(Collectors.toList())),
+                Comparator.comparingLong(Cuenta::getSaldoCentavos).reversed()).stream().limit(cantidad);
+    }
+
+    // Corte consistente de todas las cuentas: un corte por partición (ver Cooperativa.corteDeSaldos) sin
+    // transferencias entre particiones a medio camino
+    public CorteSaldos corteDeSaldos() {
+        transito.writeLock().lock();
+        try {
+            return CorteSaldos.unir(reunir(Cooperativa::corteDeSaldos));
+        } finally {
+            transito.writeLock().unlock();
+        }
+    }
+
+    // Sin dinero en tránsito: espera a que terminen las transferencias entre particiones en curso. Dentro de
+    // cada partición vale lo mismo que en Cooperativa (contadores O(1), no un corte)
+    public BigDecimal saldoTotalEnCuentas() {
+        transito.writeLock().lock();
+        try {
+            return reunir(Cooperativa::saldoTotalEnCuentas).stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        } finally {
+            transito.writeLock().unlock();
+        }
+    }
+
+    public BigDecimal saldoTotalPorTipo(String tipoCuenta) {
+        transito.writeLock().lock();
+        try {
+            return reunir(particion -> particion.saldoTotalPorTipo(tipoCuenta)).stream()
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        } finally {
+            transito.writeLock().unlock();
+        }
+    }
+
+    public Map<String, BigDecimal> saldosPorTipo() {
+        List<Map<String, BigDecimal>> parciales;
+        transito.writeLock().lock();
+        try {
+            parciales = reunir(Cooperativa::saldosPorTipo);
+        } finally {
+            transito.writeLock().unlock();
+        }
+        Map<String, BigDecimal> saldos = new TreeMap<>();
+        for (Map<String, BigDecimal> parcial : parciales) {
+            parcial.forEach((tipo, saldo) -> saldos.merge(tipo, saldo, BigDecimal::add));
+        }
+        return saldos;
+    }
+
+    // Todas las particiones abonan la misma corrida, en paralelo; se parte de la mayor que conozca alguna
+    public void aplicarInteresAnualCuentasAhorros() {
+        long corrida = 1 + Stream.of(particiones).mapToLong(Cooperativa::getUltimaCorridaInteres).max().orElse(0);
+        reunir(particion -> {
+            particion.aplicarInteresAnualCuentasAhorros(corrida);
+            return null;
+        });
+    }
+
+    // Una transferencia entre particiones cuenta dos veces (retiro y depósito)
+    public long getCantidadTransacciones() {
+        return reunir(Cooperativa::getCantidadTransacciones).stream().mapToLong(Long::longValue).sum();
+    }
+
+    public EstadoCuenta estadoDeCuenta(String numeroCuenta, LocalDateTime desde, LocalDateTime hasta)
+            throws CuentaNoEncontradaException {
+        return particiones[particion(numeroCuenta, particiones.length)].estadoDeCuenta(numeroCuenta, desde, hasta);
+    }
+
+    // Utils => enrutamiento y dispersión/reunión
+    private Cooperativa hogar(String cedula) {
+        return particiones[particion(cedula, particiones.length)];
+    }
+
+    private Cooperativa particionDe(Cuenta cuenta) {
+        return particiones[particion(cuenta.getNumeroCuenta(), particiones.length)];
+    }
+
+    private Cooperativa particionDe(Transaccion transaccion) {
+        if (transaccion instanceof Deposito deposito) {
+            return particionDe(deposito.getCuenta());
+        }
+        if (transaccion instanceof Retiro retiro) {
+            return particionDe(retiro.getCuenta());
+        }
+        if (transaccion instanceof Interes interes) {
+            return particionDe(interes.getCuenta());
+        }
+        if (transaccion == null) {
+            throw new IllegalArgumentException("La transacción no puede ser nula.");
+        }
+        throw new IllegalArgumentException("Tipo de transacción no soportado por la cooperativa particionada.");
+    }
+
+    // Ejecuta la consulta en el hilo de cada partición y devuelve los resultados en orden de partición
+    private <T> List<T> reunir(Function<Cooperativa, T> consulta) {
+        List<CompletableFuture<T>> futuros = new ArrayList<>(particiones.length);
+        for (int i = 0; i < particiones.length; i++) {
+            Cooperativa particion = particiones[i];
+            futuros.add(CompletableFuture.supplyAsync(() -> consulta.apply(particion), ejecutores[i]));
+        }
+        List<T> resultados = new ArrayList<>(particiones.length);
+        for (CompletableFuture<T> futuro : futuros) {
+            try {
+                resultados.add(futuro.join());
+            } catch (CompletionException e) {
+                throw (e.getCause() instanceof RuntimeException causa) ? causa : e;
+            }
+        }
+        return resultados;
+    }
+
+    // Mezcla listas ya ordenadas según "orden"
+    private static List<Cuenta> mezclar(List<List<Cuenta>> listas, Comparator<Cuenta> orden) {
+        List<Cuenta> todas = new ArrayList<>();
+        listas.forEach(todas::addAll);
+        todas.sort(orden);
+        return todas;
+    }
+
+    // Intenciones sin fin de la bitácora de transferencias, en orden
+    private static final class RecuperacionTransferencias implements ReceptorBitacora {
+
+        private final Map<String, Intencion> pendientes = new LinkedHashMap<>();
+
+        @Override
+        public void intencionTransferencia(long secuencia, String id, String origen, String destino,
+                BigDecimal monto, LocalDateTime fecha) {
+            pendientes.put(id, new Intencion(id, origen, destino, monto, fecha));
+        }
+
+        @Override
+        public void finTransferencia(long secuencia, String id) {
+            pendientes.remove(id);
+        }
+
+        @Override
+        public void socio(long secuencia, String id, String nombre, String cedula) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+
+        @Override
+        public void cuentaAhorros(long secuencia, String cedula, String numeroCuenta, BigDecimal saldo,
+                LocalDateTime fechaApertura, BigDecimal tasaInteresAnual, long ultimaCorridaInteres) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+
+        @Override
+        public void deposito(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+
+        @Override
+        public void retiro(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+
+        @Override
+        public void transferencia(long secuencia, String origen, String destino, BigDecimal monto,
+                LocalDateTime fecha) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+
+        @Override
+        public void interes(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha,
+                long corrida) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+
+        @Override
+        public void idempotencia(long secuencia, long huella, byte resultado, long milis) {
+            throw new IllegalStateException("La bitácora de transferencias solo tiene intenciones.");
+        }
+    }
+}
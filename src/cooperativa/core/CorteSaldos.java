@@ -0,0 +1,83 @@
+package cooperativa.core;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.Dinero;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/*
+ * Saldos de un conjunto de cuentas en un mismo instante lógico (ver Cooperativa.corteDeSaldos):
+ * cada transacción aparece completa o no aparece, así que una transferencia nunca se ve en una cuenta
+ * y no en la otra. Los saldos se guardan en centavos, en el orden en que se leyeron.
+ */
+public final class CorteSaldos {
+
+    private final long epoca;
+    private final Cuenta[] cuentas;
+    private final long[] saldos;
+    private final long total;
+
+    CorteSaldos(long epoca, Cuenta[] cuentas, long[] saldos) {
+        this.epoca = epoca;
+        this.cuentas = cuentas;
+        this.saldos = saldos;
+        long suma = 0;
+        for (long saldo : saldos) {
+            suma = Dinero.sumar(suma, saldo);
+        }
+        this.total = suma;
+    }
+
+    // Une los cortes de varias particiones (ver CooperativaParticionada.corteDeSaldos); cada una aporta su
+    // época, así que la suma también crece con cada corte
+    static CorteSaldos unir(List<CorteSaldos> cortes) {
+        int cantidad = 0;
+        long epoca = 0;
+        for (CorteSaldos corte : cortes) {
+            cantidad += corte.cuentas.length;
+            epoca += corte.epoca;
+        }
+        Cuenta[] cuentas = new Cuenta[cantidad];
+        long[] saldos = new long[cantidad];
+        int i = 0;
+        for (CorteSaldos corte : cortes) {
+            System.arraycopy(corte.cuentas, 0, cuentas, i, corte.cuentas.length);
+            System.arraycopy(corte.saldos, 0, saldos, i, corte.saldos.length);
+            i += corte.cuentas.length;
+        }
+        return new CorteSaldos(epoca, cuentas, saldos);
+    }
+
+    // Crece con cada corte: sirve para ordenar cortes tomados en distintos momentos
+    public long getEpoca() {
+        return epoca;
+    }
+
+    public int getCantidadCuentas() {
+        return cuentas.length;
+    }
+
+    public BigDecimal getTotal() {
+        return Dinero.aDecimal(total);
+    }
+
+    public Map<String, BigDecimal> getTotalesPorTipo() {
+        Map<String, Long> porTipo = new TreeMap<>();
+        for (int i = 0; i < cuentas.length; i++) {
+            porTipo.merge(cuentas[i].getTipoCuenta(), saldos[i], Dinero::sumar);
+        }
+        Map<String, BigDecimal> totales = new TreeMap<>();
+        porTipo.forEach((tipo, suma) -> totales.put(tipo, Dinero.aDecimal(suma)));
+        return totales;
+    }
+
+    public void forEach(BiConsumer<Cuenta, BigDecimal> accion) {
+        for (int i = 0; i < cuentas.length; i++) {
+            accion.accept(cuentas[i], Dinero.aDecimal(saldos[i]));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package cooperativa.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import cooperativa.models.ArchivoHistorial;
+import cooperativa.models.Cuenta;
+import cooperativa.persistence.SegmentosHistorial;
+import cooperativa.transactions.CodificacionCompacta;
+import cooperativa.transactions.Transaccion;
+
+/*
+ * Historial global: cada transacción se escribe en los segmentos en disco al registrarse (solo copia
+ * a memoria mapeada, sin fsync). Registrar no toma ningún candado global: los segmentos reservan la
+ * posición de cada registro con un incremento atómico. La reserva se hace antes de cambiar los saldos,
+ * así que si el historial no puede crecer la transacción falla sin tocar las cuentas; si la transacción
+ * falla después de reservar, la reserva se anula. Solo las transacciones de otros tipos, que no se
+ * pueden escribir en disco, quedan en un anillo en memoria con las últimas que llegaron.
+ */
+class HistorialTransacciones {
+
+    private static final int RECIENTES = 4096;
+    // Reserva de las transacciones que van al anillo en memoria
+    static final long SIN_RESERVA = -1;
+
+    private final SegmentosHistorial segmentos;
+    private final LongAdder total = new LongAdder();
+    // Transacciones de otros tipos, con la posición que tenía el siguiente registro en disco cuando
+    // llegaron (para intercalarlas al recorrer). Protegidos por "this".
+    private final Transaccion[] otras = new Transaccion[RECIENTES];
+    private final long[] posicionesOtras = new long[RECIENTES];
+    private long cantidadOtras;
+
+    HistorialTransacciones(SegmentosHistorial segmentos) {
+        this.segmentos = segmentos;
+    }
+
+    // Se llama antes de cambiar los saldos, con los candados de las cuentas afectadas tomados
+    long reservar(Transaccion transaccion) {
+        return (CodificacionCompacta.cuenta(transaccion) != null) ? segmentos.reservar() : SIN_RESERVA;
+    }
+
+    // Si una reserva falla, anula las anteriores del lote
+    long[] reservar(List<Transaccion> lote) {
+        long[] reservas = new long[lote.size()];
+        Arrays.fill(reservas, SIN_RESERVA);
+        try {
+            for (int i = 0; i < reservas.length; i++) {
+                reservas[i] = reservar(lote.get(i));
+            }
+        } catch (RuntimeException | Error e) {
+            anular(reservas);
+            throw e;
+        }
+        return reservas;
+    }
+
+    void anular(long reserva) {
+        if (reserva != SIN_RESERVA) {
+            segmentos.anular(reserva);
+        }
+    }
+
+    void anular(long[] reservas) {
+        for (long reserva : reservas) {
+            anular(reserva);
+        }
+    }
+
+    // Debe llamarse con los candados de las cuentas afectadas tomados y la reserva de "reservar". Con la
+    // posición en disco ya conocida, también deja la transacción en el historial en memoria de cada cuenta.
+    void registrar(Transaccion transaccion, long reserva) {
+        Cuenta cuenta = CodificacionCompacta.cuenta(transaccion);
+        if (cuenta != null) {
+            Cuenta destino = CodificacionCompacta.destino(transaccion);
+            long posicion = segmentos.escribir(reserva, transaccion, cuenta.getUltimaPosicionHistorial(),
+                    (destino != null) ? destino.getUltimaPosicionHistorial() : -1);
+            cuenta.registrarTransaccion(transaccion, posicion);
+            if (destino != null) {
+                destino.registrarTransaccion(transaccion, posicion);
+            }
+        } else {
+            synchronized (this) {
+                int indice = (int) (cantidadOtras++ % RECIENTES);
+                otras[indice] = transaccion;
+                posicionesOtras[indice] = segmentos.getSiguientePosicion();
+            }
+        }
+        total.increment();
+    }
+
+    void cerrar() throws IOException {
+        segmentos.close();
+    }
+
+    ArchivoHistorial getArchivo() {
+        return segmentos;
+    }
+
+    long cantidad() {
+        return total.sum();
+    }
+
+    // Recorrido de la más antigua a la más reciente. Las transacciones de otros tipos se intercalan entre
+    // los tramos del disco; si no hay ninguna, el recorrido es el de los segmentos (y admite paralelo).
+    Stream<Transaccion> transacciones() {
+        Transaccion[] enMemoria;
+        long[] posiciones;
+        long limite;
+        synchronized (this) {
+            int tamano = (int) Math.min(cantidadOtras, RECIENTES);
+            enMemoria = new Transaccion[tamano];
+            posiciones = new long[tamano];
+            for (int i = 0; i < tamano; i++) {
+                int indice = (int) ((cantidadOtras - tamano + i) % RECIENTES);
+                enMemoria[i] = otras[indice];
+                posiciones[i] = posicionesOtras[indice];
+            }
+            limite = segmentos.getSiguientePosicion();
+        }
+        if (enMemoria.length == 0) {
+            return segmentos.transacciones(limite);
+        }
+        List<Stream<Transaccion>> tramos = new ArrayList<>(2 * enMemoria.length + 1);
+        long desde = 0;
+        for (int i = 0; i < enMemoria.length; i++) {
+            tramos.add(segmentos.transacciones(desde, posiciones[i]));
+            tramos.add(Stream.of(enMemoria[i]));
+            desde = posiciones[i];
+        }
+        tramos.add(segmentos.transacciones(desde, limite));
+        return tramos.stream().flatMap(Function.identity());
+    }
+}
@@ -0,0 +1,74 @@
+package cooperativa.core;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.ObservadorSaldo;
+
+/*
+ * Índice de cuentas ordenado por saldo (en centavos) y, a igual saldo, por número de cuenta.
+ * Es una skip list concurrente: las consultas por umbral, rango y top-K cuestan O(log n) más
+ * el tamaño del resultado y se recorren como Stream sin copiar a una lista.
+ *
+ * Cada cambio de saldo mueve la entrada de la cuenta bajo su candado, así que el índice de una
+ * cuenta nunca queda desordenado respecto a sí mismo. Las consultas son débilmente consistentes:
+ * con movimientos en curso una cuenta puede aparecer con su saldo anterior o faltar un instante.
+ */
+class IndiceSaldos implements ObservadorSaldo {
+
+    // "cuenta" es null solo en las entradas centinela usadas como límite inferior de un saldo
+    private record Entrada(long saldo, Cuenta cuenta) {
+    }
+
+    private static final Comparator<Entrada> ORDEN = Comparator.comparingLong(Entrada::saldo)
+            .thenComparing(Entrada::cuenta,
+                    Comparator.nullsFirst(Comparator.comparing(Cuenta::getNumeroCuenta)));
+
+    private final ConcurrentSkipListSet<Entrada> entradas = new ConcurrentSkipListSet<>(ORDEN);
+
+    // Debe llamarse con el candado de la cuenta tomado, justo antes de observarla
+    void registrar(Cuenta cuenta) {
+        entradas.add(new Entrada(cuenta.getSaldoCentavos(), cuenta));
+    }
+
+    @Override
+    public void saldoCambiado(Cuenta cuenta, long saldoAnterior, long saldoNuevo) {
+        if (saldoAnterior != saldoNuevo) {
+            entradas.remove(new Entrada(saldoAnterior, cuenta));
+            entradas.add(new Entrada(saldoNuevo, cuenta));
+        }
+    }
+
+    // Cuentas con saldo > umbral, de menor a mayor saldo
+    Stream<Cuenta> mayoresA(long umbral) {
+        if (umbral == Long.MAX_VALUE) {
+            return Stream.empty();
+        }
+        return cuentas(entradas.tailSet(new Entrada(umbral + 1, null), true));
+    }
+
+    // Cuentas con minimo <= saldo <= maximo, de menor a mayor saldo
+    Stream<Cuenta> entre(long minimo, long maximo) {
+        if (minimo > maximo) {
+            return Stream.empty();
+        }
+        NavigableSet<Entrada> desde = entradas.tailSet(new Entrada(minimo, null), true);
+        if (maximo == Long.MAX_VALUE) {
+            return cuentas(desde);
+        }
+        return cuentas(desde.headSet(new Entrada(maximo + 1, null), false));
+    }
+
+    // Las k cuentas de mayor saldo, de mayor a menor
+    Stream<Cuenta> mayores(int k) {
+        return cuentas(entradas.descendingSet()).limit(k);
+    }
+
+    // distinct(): un recorrido concurrente con el movimiento de una entrada podría verla dos veces
+    private static Stream<Cuenta> cuentas(NavigableSet<Entrada> vista) {
+        return vista.stream().map(Entrada::cuenta).distinct();
+    }
+}
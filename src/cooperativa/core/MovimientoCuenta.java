@@ -0,0 +1,9 @@
+package cooperativa.core;
+
+import java.math.BigDecimal;
+
+import cooperativa.models.Cuenta;
+
+// Movimiento de una cuenta en un período: volumen (suma de montos), efecto neto sobre el saldo y cantidad
+public record MovimientoCuenta(Cuenta cuenta, BigDecimal volumen, BigDecimal neto, long transacciones) {
+}
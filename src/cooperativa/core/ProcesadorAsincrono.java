@@ -0,0 +1,296 @@
+package cooperativa.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import cooperativa.metricas.Histograma;
+import cooperativa.metricas.Metricas;
+import cooperativa.models.Cuenta;
+import cooperativa.transactions.Transaccion;
+
+/*
+ * Envío asíncrono de transacciones: enviar() devuelve un CompletableFuture con el resultado.
+ *
+ * Etapas, unidas por colas acotadas:
+ *   1. Validación, en el hilo de quien envía (los errores llegan como un futuro fallido).
+ *   2. Ejecución por particiones: cada cuenta pertenece a una partición atendida por un único hilo,
+ *      así que las transacciones de una cuenta se aplican en el orden en que se enviaron y las de
+ *      cuentas de distintas particiones avanzan en paralelo. Una transferencia entre dos particiones
+ *      entra en las colas de ambas y se aplica cuando las dos llegan a ella (la primera espera): no se
+ *      adelanta a ella ninguna transacción posterior de ninguna de las dos cuentas.
+ *   3. Bitácora: un hilo espera un solo fsync por todo lo pendiente y completa los futuros, así los
+ *      hilos de ejecución no esperan al disco.
+ * Si una cola se llena, enviar() bloquea a quien envía (contrapresión).
+ *
+ * Los futuros se completan desde los hilos del procesador: las continuaciones no deberían bloquear.
+ * Un error al aplicar o al sincronizar (incluido un Error) falla solo los futuros afectados.
+ * Un rechazo por saldo se completa al aplicarse y puede llegar antes que el OK (pendiente del fsync)
+ * de una transacción anterior de la misma cuenta; el orden de aplicación sí es el de envío.
+ */
+public final class ProcesadorAsincrono implements AutoCloseable {
+
+    private static final Histograma LATENCIA = Metricas.histograma("procesador.latencia");
+    private static final Tarea FIN = new Tarea(null, 0);
+
+    private final Cooperativa cooperativa;
+    private final Particion[] particiones;
+    private final BlockingQueue<Tarea> pendientesBitacora;
+    private final Thread hiloBitacora;
+    // Serializa el encolado de las transferencias entre particiones: todas las colas las ven en el mismo
+    // orden y ninguna partición puede quedar esperando una transferencia que la otra tiene detrás
+    private final Object encoladoCompartido = new Object();
+    // enviar() toma la lectura y close() la escritura: nada se encola después de las marcas de fin
+    private final ReentrantReadWriteLock estado = new ReentrantReadWriteLock();
+    private boolean cerrado;
+
+    public ProcesadorAsincrono(Cooperativa cooperativa) {
+        this(cooperativa, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    public ProcesadorAsincrono(Cooperativa cooperativa, int cantidadParticiones, int capacidadCola) {
+        if (cooperativa == null) {
+            throw new IllegalArgumentException("La cooperativa no puede ser nula.");
+        }
+        if (cantidadParticiones <= 0 || capacidadCola <= 0) {
+            throw new IllegalArgumentException("Las particiones y la capacidad de las colas deben ser mayores que cero.");
+        }
+        this.cooperativa = cooperativa;
+        this.pendientesBitacora = new ArrayBlockingQueue<>(capacidadCola * cantidadParticiones);
+        this.particiones = new Particion[cantidadParticiones];
+        for (int i = 0; i < cantidadParticiones; i++) {
+            particiones[i] = new Particion(i, capacidadCola);
+        }
+        this.hiloBitacora = new Thread(this::sincronizarPendientes, "cooperativa-async-bitacora");
+        hiloBitacora.setDaemon(true);
+        hiloBitacora.start();
+    }
+
+    // Bloquea mientras la cola de la partición (o de alguna de las dos) esté llena
+    public CompletableFuture<ResultadoOperacion> enviar(Transaccion transaccion) throws InterruptedException {
+        return enviar(transaccion, 0);
+    }
+
+    private CompletableFuture<ResultadoOperacion> enviar(Transaccion transaccion, long huella)
+            throws InterruptedException {
+        Tarea tarea = new Tarea(transaccion, huella);
+        try {
+            cooperativa.validarTransaccion(transaccion);
+        } catch (RuntimeException e) {
+            tarea.futuro.completeExceptionally(e);
+            return tarea.futuro;
+        }
+        List<Cuenta> afectadas = cooperativa.cuentasAfectadas(transaccion);
+        // Las transacciones de otros tipos no declaran cuentas: van todas a la primera partición
+        Particion primera = afectadas.isEmpty() ? particiones[0] : particion(afectadas.get(0));
+        Particion segunda = (afectadas.size() > 1) ? particion(afectadas.get(1)) : primera;
+
+        estado.readLock().lockInterruptibly();
+        try {
+            if (cerrado) {
+                throw new IllegalStateException("El procesador está cerrado.");
+            }
+            if (primera == segunda) {
+                primera.cola.put(tarea);
+            } else {
+                tarea.llegadasPendientes = new AtomicInteger(2);
+                synchronized (encoladoCompartido) {
+                    primera.cola.put(tarea);
+                    segunda.cola.put(tarea);
+                }
+            }
+        } finally {
+            estado.readLock().unlock();
+        }
+        return tarea.futuro;
+    }
+
+    // Con clave de idempotencia (ver Cooperativa.intentarTransaccion(clave, transaccion)): una clave repetida
+    // devuelve el resultado del primer envío, aunque todavía esté en curso. La clave se registra en la bitácora
+    // junto con la transacción.
+    public CompletableFuture<ResultadoOperacion> enviar(String claveIdempotencia, Transaccion transaccion)
+            throws InterruptedException {
+        VentanaIdempotencia.validarClave(claveIdempotencia);
+        VentanaIdempotencia idempotencia = cooperativa.getIdempotencia();
+        CompletableFuture<ResultadoOperacion> original = idempotencia.reservar(claveIdempotencia);
+        if (original != null) {
+            // Copia: quien recibe el futuro no puede completar el compartido
+            return original.copy();
+        }
+        CompletableFuture<ResultadoOperacion> futuro;
+        try {
+            futuro = enviar(transaccion, VentanaIdempotencia.huella(claveIdempotencia));
+        } catch (InterruptedException | RuntimeException e) {
+            idempotencia.liberar(claveIdempotencia, e);
+            throw e;
+        }
+        return futuro.whenComplete((resultado, error) -> {
+            if (error == null) {
+                idempotencia.completar(claveIdempotencia, resultado);
+            } else {
+                idempotencia.liberar(claveIdempotencia, error);
+            }
+        });
+    }
+
+    // Deja de aceptar transacciones, termina de aplicar las encoladas y espera su fsync. Si se interrumpe al
+    // hilo que cierra, deja de esperar (lo ya encolado se sigue aplicando) y conserva la interrupción.
+    @Override
+    public void close() {
+        try {
+            cerrar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void cerrar() throws InterruptedException {
+        estado.writeLock().lockInterruptibly();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+        } finally {
+            estado.writeLock().unlock();
+        }
+        for (Particion particion : particiones) {
+            particion.cola.put(FIN);
+        }
+        for (Particion particion : particiones) {
+            particion.hilo.join();
+        }
+        pendientesBitacora.put(FIN);
+        hiloBitacora.join();
+    }
+
+    private Particion particion(Cuenta cuenta) {
+        return particiones[Math.floorMod(cuenta.getNumeroCuenta().hashCode(), particiones.length)];
+    }
+
+    private void aplicar(Tarea tarea) throws InterruptedException {
+        long secuencia;
+        try {
+            secuencia = cooperativa.aplicarSinSincronizar(tarea.transaccion, tarea.huella);
+            if (secuencia == Cooperativa.RECHAZADA) {
+                tarea.resultado = ResultadoOperacion.SALDO_INSUFICIENTE;
+                // Sin clave el rechazo no se registra; con clave, hay que esperar el fsync de su registro
+                secuencia = (tarea.huella == 0) ? 0 : cooperativa.registrarRechazo(tarea.huella);
+            }
+        } catch (Throwable e) {
+            // También un Error: el futuro falla y el hilo de la partición sigue atendiendo su cola
+            tarea.futuro.completeExceptionally(e);
+            return;
+        } finally {
+            tarea.aplicada.countDown();
+        }
+        if (secuencia == 0) {
+            // Sin bitácora no hay nada que esperar
+            tarea.completar(tarea.resultado);
+        } else {
+            tarea.secuencia = secuencia;
+            pendientesBitacora.put(tarea);
+        }
+    }
+
+    // Commit grupal de la etapa: toma todo lo pendiente, sincroniza hasta la mayor secuencia y completa
+    private void sincronizarPendientes() {
+        List<Tarea> lote = new ArrayList<>();
+        boolean seguir = true;
+        while (seguir) {
+            try {
+                lote.add(pendientesBitacora.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendientesBitacora.drainTo(lote);
+            long hasta = 0;
+            for (Tarea tarea : lote) {
+                if (tarea == FIN) {
+                    seguir = false;
+                } else {
+                    hasta = Math.max(hasta, tarea.secuencia);
+                }
+            }
+            Throwable error = null;
+            try {
+                cooperativa.sincronizarBitacora(hasta);
+            } catch (Throwable e) {
+                // Como en aplicar: los futuros del lote fallan y el hilo sigue con el próximo
+                error = e;
+            }
+            for (Tarea tarea : lote) {
+                if (tarea == FIN) {
+                    continue;
+                }
+                if (error == null) {
+                    tarea.completar(tarea.resultado);
+                } else {
+                    tarea.futuro.completeExceptionally(error);
+                }
+            }
+            lote.clear();
+        }
+    }
+
+    private static final class Tarea {
+        final Transaccion transaccion;
+        // Clave de idempotencia (ver VentanaIdempotencia.huella), 0 si no hay
+        final long huella;
+        final CompletableFuture<ResultadoOperacion> futuro = new CompletableFuture<>();
+        // Desde enviar() hasta el resultado, incluida la espera en las colas y el fsync
+        final long inicio = LATENCIA.inicio();
+        // Solo en transferencias entre dos particiones: cuántas faltan por llegar a la tarea
+        AtomicInteger llegadasPendientes;
+        final CountDownLatch aplicada = new CountDownLatch(1);
+        long secuencia;
+        ResultadoOperacion resultado = ResultadoOperacion.OK;
+
+        Tarea(Transaccion transaccion, long huella) {
+            this.transaccion = transaccion;
+            this.huella = huella;
+        }
+
+        void completar(ResultadoOperacion resultado) {
+            LATENCIA.registrarDesde(inicio);
+            futuro.complete(resultado);
+        }
+    }
+
+    private final class Particion implements Runnable {
+        final BlockingQueue<Tarea> cola;
+        final Thread hilo;
+
+        Particion(int numero, int capacidad) {
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+            this.hilo = new Thread(this, "cooperativa-async-" + numero);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Tarea tarea = cola.take();
+                    if (tarea == FIN) {
+                        return;
+                    }
+                    if (tarea.llegadasPendientes != null && tarea.llegadasPendientes.decrementAndGet() > 0) {
+                        // La otra partición la aplica; esperamos para no adelantar lo que sigue en esta cola
+                        tarea.aplicada.await();
+                    } else {
+                        aplicar(tarea);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
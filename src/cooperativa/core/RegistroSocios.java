@@ -0,0 +1,138 @@
+package cooperativa.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+
+import cooperativa.models.Socio;
+
+/*
+ * Registro compacto de los socios de una cooperativa. Cada socio recibe al agregarse un número denso
+ * (0, 1, 2...) que es su posición en un arreglo; la cédula y el id (UUID) son alias que llevan a ese
+ * número por dos tablas hash abiertas de enteros (sondeo lineal, a lo sumo medio llenas). Por socio
+ * cuesta una referencia y dos enteros por tabla, en lugar de dos nodos de ConcurrentHashMap y el id
+ * como String.
+ *
+ * Las altas se serializan con el monitor del registro y son atómicas: la cédula y el id se validan y se
+ * reservan juntos. Las búsquedas no toman candados. Un alta escribe el socio en el arreglo (y publica el
+ * arreglo nuevo si creció) antes de escribir su número en las tablas, que son AtomicIntegerArray: quien
+ * encuentra el número ya ve al socio. Las tablas se reconstruyen completas antes de publicarse.
+ */
+final class RegistroSocios {
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private volatile Socio[] porNumero = new Socio[CAPACIDAD_INICIAL];
+    private volatile int cantidad;
+    // Número + 1 de cada socio (0 = libre); siempre con al menos el doble de posiciones que socios
+    private volatile AtomicIntegerArray porCedula = new AtomicIntegerArray(CAPACIDAD_INICIAL * 2);
+    private volatile AtomicIntegerArray porId = new AtomicIntegerArray(CAPACIDAD_INICIAL * 2);
+
+    // Devuelve el número asignado; lanza IllegalArgumentException si la cédula o el id ya existen
+    synchronized int agregar(Socio socio) {
+        if (porCedula(socio.getCedula()) != null) {
+            throw new IllegalArgumentException("Ya existe un socio con la cédula " + socio.getCedula() + ".");
+        }
+        if (buscar(porId, socio.hashId(), existente -> existente.mismoId(socio)) != null) {
+            throw new IllegalArgumentException("El socio ya existe en la cooperativa.");
+        }
+        int numero = cantidad;
+        Socio[] socios = porNumero;
+        if (numero == socios.length) {
+            socios = Arrays.copyOf(socios, numero * 2);
+            socios[numero] = socio;
+            porNumero = socios;
+        } else {
+            socios[numero] = socio;
+        }
+        if ((numero + 1) * 2 > porCedula.length()) {
+            // Se reconstruyen con el socio nuevo incluido y recién entonces se publican
+            porCedula = reconstruir(socios, numero + 1, true);
+            porId = reconstruir(socios, numero + 1, false);
+        } else {
+            insertar(porCedula, socio.getCedula().hashCode(), numero);
+            insertar(porId, socio.hashId(), numero);
+        }
+        cantidad = numero + 1;
+        return numero;
+    }
+
+    Socio porCedula(String cedula) {
+        return (cedula == null) ? null
+                : buscar(porCedula, cedula.hashCode(), socio -> socio.getCedula().equals(cedula));
+    }
+
+    Socio porId(String id) {
+        return (id == null) ? null : buscar(porId, Socio.hashId(id), socio -> socio.tieneId(id));
+    }
+
+    Socio porNumero(int numero) {
+        int hasta = cantidad;
+        Socio[] socios = porNumero;
+        return (numero >= 0 && numero < hasta) ? socios[numero] : null;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    // Vista en orden de alta de los socios agregados hasta ahora; no copia el arreglo
+    List<Socio> listar() {
+        int hasta = cantidad;
+        Socio[] socios = porNumero;
+        return new AbstractList<>() {
+            @Override
+            public Socio get(int indice) {
+                if (indice < 0 || indice >= hasta) {
+                    throw new IndexOutOfBoundsException(indice);
+                }
+                return socios[indice];
+            }
+
+            @Override
+            public int size() {
+                return hasta;
+            }
+        };
+    }
+
+    private Socio buscar(AtomicIntegerArray tabla, int hash, Predicate<Socio> coincide) {
+        int mascara = tabla.length() - 1;
+        for (int i = posicion(hash, mascara); ; i = (i + 1) & mascara) {
+            int numero = tabla.get(i) - 1;
+            if (numero < 0) {
+                return null;
+            }
+            // Leído después del número: ya contiene al socio
+            Socio socio = porNumero[numero];
+            if (coincide.test(socio)) {
+                return socio;
+            }
+        }
+    }
+
+    private static AtomicIntegerArray reconstruir(Socio[] socios, int cantidad, boolean cedulas) {
+        AtomicIntegerArray tabla = new AtomicIntegerArray(Integer.highestOneBit(cantidad) * 4);
+        for (int numero = 0; numero < cantidad; numero++) {
+            Socio socio = socios[numero];
+            insertar(tabla, cedulas ? socio.getCedula().hashCode() : socio.hashId(), numero);
+        }
+        return tabla;
+    }
+
+    private static void insertar(AtomicIntegerArray tabla, int hash, int numero) {
+        int mascara = tabla.length() - 1;
+        int i = posicion(hash, mascara);
+        while (tabla.get(i) != 0) {
+            i = (i + 1) & mascara;
+        }
+        tabla.set(i, numero + 1);
+    }
+
+    private static int posicion(int hash, int mascara) {
+        int mezcla = hash * 0x9E3779B9;
+        return (mezcla ^ (mezcla >>> 16)) & mascara;
+    }
+}
@@ -0,0 +1,227 @@
+package cooperativa.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Histograma;
+import cooperativa.metricas.Metricas;
+import cooperativa.persistence.Bitacora;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.persistence.Snapshot;
+
+/*
+ * Réplica de lectura: aplica en una Cooperativa local, sin bitácora propia, el flujo de la bitácora de
+ * un primario (ver ServidorReplicacion) en el mismo orden en que el primario lo registró. Las consultas
+ * sobre getCooperativa() (umbrales, socios, historial, cortes) ven siempre un prefijo de lo que el primario
+ * ya hizo durable. Nada debe escribir directamente en esa cooperativa: la réplica divergiría.
+ *
+ * Un hilo propio se conecta, aplica y confirma. Si la conexión se corta, reintenta con espera creciente
+ * y retoma desde la última secuencia aplicada; si el primario ya compactó esa parte, recibe un snapshot.
+ * El estado está en memoria: una réplica que se reinicia vuelve a empezar desde cero.
+ *
+ * Retraso: getPendientes() son los registros durables en el primario que todavía no se aplicaron y
+ * getRetrasoMilis() cuánto hace que hay alguno pendiente (0 al día). Ambos se publican como medidas
+ * "replica.*" en Metricas, junto con el histograma "replica.retraso" (del envío del primario a la
+ * aplicación, por mensaje) y los contadores de reconexiones y snapshots.
+ */
+public class ReplicaCooperativa implements Closeable {
+
+    private static final long ESPERA_MINIMA_MS = 50;
+    private static final long ESPERA_MAXIMA_MS = 2_000;
+    private static final Histograma RETRASO = Metricas.histograma("replica.retraso");
+    private static final Contador RECONEXIONES = Metricas.contador("replica.reconexiones");
+    private static final Contador SNAPSHOTS = Metricas.contador("replica.snapshots");
+
+    private final Cooperativa cooperativa;
+    private final ReceptorBitacora receptor;
+    private final int puertoPrimario;
+    private final Thread hilo;
+
+    private volatile long aplicada;
+    private volatile long durablePrimario;
+    // System.nanoTime() desde el que hay registros pendientes; 0 al día
+    private volatile long pendienteDesde;
+    private volatile boolean cerrada;
+    private volatile Socket socket;
+    private volatile String error;
+
+    public ReplicaCooperativa(Cooperativa cooperativa, int puertoPrimario) {
+        if (cooperativa == null) {
+            throw new IllegalArgumentException("La cooperativa no puede ser nula.");
+        }
+        this.cooperativa = cooperativa;
+        this.receptor = cooperativa.receptorReplica();
+        this.puertoPrimario = puertoPrimario;
+        Metricas.medida("replica.secuencia_aplicada", this::getSecuenciaAplicada);
+        Metricas.medida("replica.pendientes", this::getPendientes);
+        Metricas.medida("replica.retraso_ms", this::getRetrasoMilis);
+        this.hilo = new Thread(this::replicar, "cooperativa-replica");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    public Cooperativa getCooperativa() {
+        return cooperativa;
+    }
+
+    public long getSecuenciaAplicada() {
+        return aplicada;
+    }
+
+    public long getPendientes() {
+        return Math.max(0, durablePrimario - aplicada);
+    }
+
+    public long getRetrasoMilis() {
+        long desde = pendienteDesde;
+        return (desde == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - desde);
+    }
+
+    public boolean isConectada() {
+        Socket actual = socket;
+        return actual != null && !actual.isClosed();
+    }
+
+    // Motivo por el que la réplica se detuvo (divergió del primario); null si sigue replicando
+    public String getError() {
+        return error;
+    }
+
+    // Espera a que la réplica aplique hasta "secuencia"; devuelve false si se agota el tiempo
+    public boolean esperarSecuencia(long secuencia, Duration tiempo) throws InterruptedException {
+        long limite = System.nanoTime() + tiempo.toNanos();
+        synchronized (this) {
+            while (aplicada < secuencia) {
+                long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                if (restante <= 0 || error != null) {
+                    return false;
+                }
+                wait(restante);
+            }
+            return true;
+        }
+    }
+
+    // No interrumpe al hilo (el historial en disco usa FileChannel): cierra el socket y lo despierta
+    @Override
+    public void close() throws IOException {
+        cerrada = true;
+        Metricas.quitarMedida("replica.secuencia_aplicada");
+        Metricas.quitarMedida("replica.pendientes");
+        Metricas.quitarMedida("replica.retraso_ms");
+        Socket actual = socket;
+        if (actual != null) {
+            actual.close();
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            hilo.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replicar() {
+        long espera = ESPERA_MINIMA_MS;
+        while (!cerrada) {
+            try (Socket conexion = new Socket(InetAddress.getLoopbackAddress(), puertoPrimario)) {
+                conexion.setTcpNoDelay(true);
+                socket = conexion;
+                if (cerrada) {
+                    return;
+                }
+                DataInputStream in = new DataInputStream(new BufferedInputStream(conexion.getInputStream(), 256 * 1024));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(conexion.getOutputStream()));
+                out.writeLong(aplicada);
+                out.flush();
+                espera = ESPERA_MINIMA_MS;
+                while (true) {
+                    byte tipo = in.readByte();
+                    switch (tipo) {
+                        case ServidorReplicacion.SNAPSHOT -> {
+                            avanzar(Snapshot.leer(in, receptor));
+                            SNAPSHOTS.incrementar();
+                        }
+                        case ServidorReplicacion.REGISTROS -> {
+                            long durable = in.readLong();
+                            long enviado = in.readLong();
+                            byte[] registros = new byte[in.readInt()];
+                            in.readFully(registros);
+                            durablePrimario = Math.max(durablePrimario, durable);
+                            avanzar(Bitacora.reproducir(registros, receptor));
+                            RETRASO.registrar(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - enviado));
+                        }
+                        case ServidorReplicacion.LATIDO -> {
+                            durablePrimario = Math.max(durablePrimario, in.readLong());
+                            in.readLong();
+                            actualizarRetraso();
+                        }
+                        case ServidorReplicacion.ERROR -> {
+                            detener(in.readUTF());
+                            return;
+                        }
+                        default -> throw new IOException("Mensaje de replicación desconocido: " + tipo);
+                    }
+                    if (tipo != ServidorReplicacion.LATIDO) {
+                        out.writeLong(aplicada);
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                // Primario caído o conexión cortada: se reintenta desde la última secuencia aplicada
+            } catch (RuntimeException e) {
+                // Un registro que no se puede aplicar significa que la réplica ya no coincide con el primario
+                detener("No se pudo aplicar el flujo del primario: " + e.getMessage());
+                return;
+            }
+            if (cerrada) {
+                return;
+            }
+            RECONEXIONES.incrementar();
+            esperar(espera);
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+        }
+    }
+
+    private void avanzar(long secuencia) {
+        synchronized (this) {
+            aplicada = Math.max(aplicada, secuencia);
+            notifyAll();
+        }
+        actualizarRetraso();
+    }
+
+    private void actualizarRetraso() {
+        if (getPendientes() == 0) {
+            pendienteDesde = 0;
+        } else if (pendienteDesde == 0) {
+            pendienteDesde = System.nanoTime();
+        }
+    }
+
+    private synchronized void detener(String motivo) {
+        error = motivo;
+        notifyAll();
+    }
+
+    private synchronized void esperar(long milis) {
+        try {
+            if (!cerrada) {
+                wait(milis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
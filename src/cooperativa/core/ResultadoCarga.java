@@ -0,0 +1,78 @@
+package cooperativa.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Reporte de una carga masiva (ver CargaMasiva): cuántos socios y cuentas se agregaron y qué líneas fallaron
+public class ResultadoCarga {
+
+    // "linea" es el número de línea del CSV (desde 1) o el número de registro en un snapshot
+    public record Fallo(long linea, String motivo) {
+    }
+
+    private final List<Fallo> fallos = new ArrayList<>();
+    private long lineas;
+    private long socios;
+    private long cuentas;
+    private long milis;
+
+    @Override
+    public String toString() {
+        return "ResultadoCarga{" +
+                "lineas=" + lineas +
+                ", socios=" + socios +
+                ", cuentas=" + cuentas +
+                ", fallos=" + fallos.size() +
+                ", milis=" + milis +
+                '}';
+    }
+
+    ResultadoCarga() {
+    }
+
+    void agregarFallo(long linea, String motivo) {
+        fallos.add(new Fallo(linea, motivo));
+    }
+
+    void contarSocio() {
+        socios++;
+    }
+
+    void contarCuenta() {
+        cuentas++;
+    }
+
+    // Al terminar la carga: los fallos quedan en el orden del archivo
+    void terminar(long lineas, long milis) {
+        this.lineas = lineas;
+        this.milis = milis;
+        fallos.sort(Comparator.comparingLong(Fallo::linea));
+    }
+
+    // Getters
+    public long getLineas() {
+        return lineas;
+    }
+
+    public long getSocios() {
+        return socios;
+    }
+
+    public long getCuentas() {
+        return cuentas;
+    }
+
+    public long getMilis() {
+        return milis;
+    }
+
+    public List<Fallo> getFallos() {
+        return Collections.unmodifiableList(fallos);
+    }
+
+    public boolean isExitoso() {
+        return fallos.isEmpty();
+    }
+}
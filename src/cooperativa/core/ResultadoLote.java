@@ -0,0 +1,71 @@
+package cooperativa.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cooperativa.transactions.Transaccion;
+
+// Reporte de la ejecución de un lote: cuántas transacciones se aplicaron y cuáles fallaron (por posición)
+public class ResultadoLote {
+
+    public enum Modo {
+        // Si una transacción falla, no se aplica ninguna
+        TODO_O_NADA,
+        // Se aplican las que son válidas y se reportan las que fallan
+        MEJOR_ESFUERZO
+    }
+
+    public record Fallo(int indice, Transaccion transaccion, Exception error) {
+    }
+
+    private final Modo modo;
+    private final int total;
+    private final List<Fallo> fallos;
+    private int aplicadas;
+
+    @Override
+    public String toString() {
+        return "ResultadoLote{" +
+                "modo=" + modo +
+                ", total=" + total +
+                ", aplicadas=" + aplicadas +
+                ", fallos=" + fallos.size() +
+                '}';
+    }
+
+    ResultadoLote(Modo modo, int total) {
+        this.modo = modo;
+        this.total = total;
+        this.fallos = new ArrayList<>();
+    }
+
+    void agregarFallo(int indice, Transaccion transaccion, Exception error) {
+        fallos.add(new Fallo(indice, transaccion, error));
+    }
+
+    void setAplicadas(int aplicadas) {
+        this.aplicadas = aplicadas;
+    }
+
+    // Getters
+    public Modo getModo() {
+        return modo;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getAplicadas() {
+        return aplicadas;
+    }
+
+    public List<Fallo> getFallos() {
+        return Collections.unmodifiableList(fallos);
+    }
+
+    public boolean isExitoso() {
+        return fallos.isEmpty();
+    }
+}
@@ -0,0 +1,24 @@
+package cooperativa.core;
+
+// Resultado de las variantes "intentar..." de Cooperativa: los rechazos de negocio se devuelven, no se lanzan
+public enum ResultadoOperacion {
+
+    OK("Operación realizada."),
+    SALDO_INSUFICIENTE("Saldo insuficiente para realizar el retiro."),
+    SOCIO_NO_ENCONTRADO("Socio no encontrado."),
+    CUENTA_DUPLICADA("La cuenta ya existe en la cooperativa.");
+
+    private final String mensaje;
+
+    ResultadoOperacion(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public boolean isExitoso() {
+        return this == OK;
+    }
+}
@@ -0,0 +1,199 @@
+package cooperativa.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Metricas;
+import cooperativa.persistence.Bitacora;
+
+/*
+ * Replicación del primario, solo en localhost. Cada réplica (ver ReplicaCooperativa) se conecta, envía
+ * la última secuencia que aplicó y recibe, en orden, los registros durables de la bitácora posteriores
+ * a ella. Si esos registros ya se compactaron, primero recibe un snapshot del estado actual. Al día,
+ * el servidor espera registros nuevos y envía un latido cada LATIDO_MS para que la réplica conozca
+ * su retraso aunque no haya escrituras.
+ *
+ * Mensajes (DataOutputStream):
+ *   réplica -> primario: [long última secuencia aplicada], al conectarse y tras aplicar cada mensaje
+ *   primario -> réplica: [byte SNAPSHOT][snapshot, ver Snapshot.escribir]
+ *                        [byte REGISTROS][long secuencia durable][long milis de envío][int n][n bytes]
+ *                        [byte LATIDO][long secuencia durable][long milis de envío]
+ *                        [byte ERROR][mensaje]  (la réplica está por delante del primario: divergió)
+ *
+ * Los hilos de las réplicas no se interrumpen nunca (ver Bitacora): close() cierra los sockets y cada
+ * hilo termina con el error de E/S.
+ */
+public class ServidorReplicacion implements Closeable {
+
+    static final byte SNAPSHOT = 1;
+    static final byte REGISTROS = 2;
+    static final byte LATIDO = 3;
+    static final byte ERROR = 4;
+
+    private static final int BLOQUE = 256 * 1024;
+    private static final long LATIDO_MS = 200;
+    private static final Contador BLOQUES_ENVIADOS = Metricas.contador("replicacion.bloques_enviados");
+    private static final Contador SNAPSHOTS_ENVIADOS = Metricas.contador("replicacion.snapshots_enviados");
+
+    private final Cooperativa cooperativa;
+    private final ServerSocket servidor;
+    private final ExecutorService conexiones;
+    private final Thread aceptador;
+    private final Set<Conectada> conectadas = ConcurrentHashMap.newKeySet();
+
+    // Puerto 0: el sistema elige uno libre (ver getPuerto)
+    public ServidorReplicacion(Cooperativa cooperativa, int puerto) throws IOException {
+        if (cooperativa == null) {
+            throw new IllegalArgumentException("La cooperativa no puede ser nula.");
+        }
+        // Sin bitácora no hay nada que replicar
+        cooperativa.getBitacoraReplicacion();
+        this.cooperativa = cooperativa;
+        this.servidor = new ServerSocket();
+        servidor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 64);
+        this.conexiones = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "cooperativa-replicacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.aceptador = new Thread(this::aceptar, "cooperativa-replicacion-aceptador");
+        aceptador.setDaemon(true);
+        aceptador.start();
+        Metricas.medida("replicacion.replicas", conectadas::size);
+        Metricas.medida("replicacion.pendientes_max", this::getPendientesMaximo);
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    public int getCantidadReplicas() {
+        return conectadas.size();
+    }
+
+    // Registros durables que la réplica más atrasada todavía no confirmó
+    public long getPendientesMaximo() {
+        long durable;
+        try {
+            durable = cooperativa.getBitacoraReplicacion().getSecuenciaPersistida();
+        } catch (IllegalStateException e) {
+            return 0;
+        }
+        long pendientes = 0;
+        for (Conectada replica : conectadas) {
+            pendientes = Math.max(pendientes, durable - replica.confirmada);
+        }
+        return pendientes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Metricas.quitarMedida("replicacion.replicas");
+        Metricas.quitarMedida("replicacion.pendientes_max");
+        servidor.close();
+        for (Conectada replica : conectadas) {
+            replica.socket.close();
+        }
+        conexiones.shutdown();
+    }
+
+    private void aceptar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                socket.setTcpNoDelay(true);
+                conexiones.execute(() -> atender(socket));
+            } catch (IOException e) {
+                // Servidor cerrado (o conexión fallida al aceptar): el bucle decide si sigue
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        Conectada replica = new Conectada(socket);
+        conectadas.add(replica);
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BLOQUE));
+            long desde = in.readLong();
+            replica.confirmada = desde;
+            Bitacora bitacora = cooperativa.getBitacoraReplicacion();
+            Bitacora.Cursor cursor;
+            try {
+                cursor = bitacora.cursor(desde);
+            } catch (IllegalArgumentException e) {
+                out.writeByte(ERROR);
+                out.writeUTF(e.getMessage());
+                out.flush();
+                return;
+            }
+            long ultimoEnvio = 0;
+            while (!servidor.isClosed()) {
+                if (cursor == null) {
+                    // La réplica quedó detrás de una compactación
+                    out.writeByte(SNAPSHOT);
+                    cursor = cooperativa.enviarSnapshot(out);
+                    out.flush();
+                    SNAPSHOTS_ENVIADOS.incrementar();
+                    continue;
+                }
+                byte[] registros = bitacora.leer(cursor, BLOQUE);
+                if (registros == null) {
+                    cursor = null;
+                    continue;
+                }
+                long ahora = System.currentTimeMillis();
+                if (registros.length > 0) {
+                    out.writeByte(REGISTROS);
+                    out.writeLong(bitacora.getSecuenciaPersistida());
+                    out.writeLong(ahora);
+                    out.writeInt(registros.length);
+                    out.write(registros);
+                    out.flush();
+                    BLOQUES_ENVIADOS.incrementar();
+                    ultimoEnvio = ahora;
+                } else if (ahora - ultimoEnvio >= LATIDO_MS) {
+                    out.writeByte(LATIDO);
+                    out.writeLong(bitacora.getSecuenciaPersistida());
+                    out.writeLong(ahora);
+                    out.flush();
+                    ultimoEnvio = ahora;
+                } else {
+                    bitacora.esperarDurable(cursor.getSecuencia(), LATIDO_MS);
+                }
+                // Confirmaciones ya recibidas: no se espera por ellas
+                while (in.available() >= Long.BYTES) {
+                    replica.confirmada = in.readLong();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Réplica desconectada, servidor cerrado o bitácora cerrada: la réplica reintentará
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            conectadas.remove(replica);
+        }
+    }
+
+    private static final class Conectada {
+        private final Socket socket;
+        private volatile long confirmada;
+
+        Conectada(Socket socket) {
+            this.socket = socket;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cooperativa.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.ObservadorSaldo;
+
+/*
+ * Totales de saldo mantenidos de forma incremental (en centavos): el total de la cooperativa y
+ * uno por tipo de cuenta. Cada cambio de saldo suma su diferencia en un LongAdder, así que
+ * varios hilos actualizan sin competir por un mismo contador y la lectura es O(1).
+ *
+ * Dentro de una escritura de la cooperativa (abrir ... aplicar) las diferencias de cada hilo se acumulan y
+ * se suman de una vez al terminar, con los candados de las cuentas todavía tomados. Así el total nunca ve
+ * una transferencia a medias: su diferencia neta es 0 y no lo toca. Entre tipos de cuenta distintos los dos
+ * totales por tipo se actualizan uno tras otro, así que saldosPorTipo puede ver uno solo por un instante.
+ */
+class TotalesSaldos implements ObservadorSaldo {
+
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> porTipo = new ConcurrentHashMap<>();
+    // Diferencias de la escritura en curso de cada hilo
+    private final ThreadLocal<Pendientes> pendientes = ThreadLocal.withInitial(Pendientes::new);
+
+    // Debe llamarse con el candado de la cuenta tomado, justo antes de observarla
+    void registrar(Cuenta cuenta) {
+        sumar(cuenta.getTipoCuenta(), cuenta.getSaldoCentavos());
+    }
+
+    @Override
+    public void saldoCambiado(Cuenta cuenta, long saldoAnterior, long saldoNuevo) {
+        Pendientes actual = pendientes.get();
+        if (actual.abierta) {
+            actual.sumar(cuenta.getTipoCuenta(), saldoNuevo - saldoAnterior);
+        } else {
+            sumar(cuenta.getTipoCuenta(), saldoNuevo - saldoAnterior);
+        }
+    }
+
+    // Desde aquí hasta aplicar, los cambios de saldo de este hilo se acumulan sin tocar los totales
+    void abrir() {
+        pendientes.get().abierta = true;
+    }
+
+    // Suma las diferencias netas de la escritura; debe llamarse antes de soltar los candados
+    void aplicar() {
+        Pendientes actual = pendientes.get();
+        actual.abierta = false;
+        if (actual.total != 0) {
+            total.add(actual.total);
+        }
+        for (int i = 0; i < actual.cantidad; i++) {
+            if (actual.diferencias[i] != 0) {
+                porTipo.computeIfAbsent(actual.tipos[i], t -> new LongAdder()).add(actual.diferencias[i]);
+            }
+            actual.tipos[i] = null;
+            actual.diferencias[i] = 0;
+        }
+        actual.total = 0;
+        actual.cantidad = 0;
+    }
+
+    private void sumar(String tipo, long diferencia) {
+        total.add(diferencia);
+        porTipo.computeIfAbsent(tipo, t -> new LongAdder()).add(diferencia);
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    long total(String tipo) {
+        LongAdder adder = porTipo.get(tipo);
+        return (adder != null) ? adder.sum() : 0;
+    }
+
+    Map<String, LongAdder> porTipo() {
+        return porTipo;
+    }
+
+    // Pocas entradas (una por tipo de cuenta): se buscan en orden
+    private static final class Pendientes {
+        boolean abierta;
+        long total;
+        String[] tipos = new String[4];
+        long[] diferencias = new long[4];
+        int cantidad;
+
+        void sumar(String tipo, long diferencia) {
+            total += diferencia;
+            for (int i = 0; i < cantidad; i++) {
+                if (tipos[i].equals(tipo)) {
+                    diferencias[i] += diferencia;
+                    return;
+                }
+            }
+            if (cantidad == tipos.length) {
+                tipos = Arrays.copyOf(tipos, cantidad * 2);
+                diferencias = Arrays.copyOf(diferencias, cantidad * 2);
+            }
+            tipos[cantidad] = tipo;
+            diferencias[cantidad++] = diferencia;
+        }
+    }
+}
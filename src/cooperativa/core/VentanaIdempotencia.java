@@ -0,0 +1,300 @@
+package cooperativa.core;
+
+import cooperativa.persistence.Snapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Claves de idempotencia vistas en la última ventana de tiempo, con el resultado de su transacción.
+ *
+ * Por clave se guarda una huella de 64 bits y un byte de resultado en tablas de direccionamiento
+ * abierto (long[] y byte[]): unos 12 a 24 bytes por clave, en lugar de un String y una entrada de mapa.
+ * La ventana se divide en generaciones; cada una es una tabla y al vencer se descarta entera, sin
+ * recorrer claves. Si llegan más claves que la capacidad, la generación más antigua se descarta antes
+ * de tiempo: la memoria queda acotada y lo que se acorta es la ventana.
+ *
+ * Las tablas se reparten en franjas por huella, cada una con su propio monitor. Una clave reservada y
+ * todavía sin resultado queda en "enCurso": un envío concurrente con la misma clave espera ese resultado
+ * en lugar de aplicar la transacción otra vez.
+ *
+ * Persistencia: la huella viaja en el mismo registro de bitácora que la transacción (ver anotar) y el
+ * snapshot guarda la ventana entera (ver exportar); al recuperar, restaurar la reconstruye. Para ubicar
+ * cada clave en su generación se guarda también la hora de reloj en que se anotó.
+ */
+final class VentanaIdempotencia {
+
+    private static final int FRANJAS = 16;
+    private static final int CAPACIDAD_INICIAL = 64;
+    private static final ResultadoOperacion[] RESULTADOS = ResultadoOperacion.values();
+
+    private final long duracionGeneracion;
+    private final int maximoPorGeneracion;
+    private final Franja[] franjas = new Franja[FRANJAS];
+    private final ConcurrentHashMap<Long, CompletableFuture<ResultadoOperacion>> enCurso = new ConcurrentHashMap<>();
+
+    VentanaIdempotencia(Duration ventana, int generaciones, int capacidad) {
+        if (ventana == null || ventana.isNegative() || ventana.isZero()) {
+            throw new IllegalArgumentException("La ventana debe ser positiva.");
+        }
+        if (generaciones <= 0 || capacidad <= 0) {
+            throw new IllegalArgumentException("Las generaciones y la capacidad deben ser mayores que cero.");
+        }
+        this.duracionGeneracion = Math.max(1, ventana.toNanos() / generaciones);
+        this.maximoPorGeneracion = Math.max(1, capacidad / (generaciones * FRANJAS));
+        long ahora = System.nanoTime();
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja(generaciones, ahora);
+        }
+    }
+
+    // Si la clave ya tiene resultado (o está en curso), devuelve su futuro; si es nueva la reserva y devuelve
+    // null: quien llama aplica la transacción y luego llama a completar o a liberar
+    CompletableFuture<ResultadoOperacion> reservar(String clave) {
+        long huella = huella(clave);
+        Franja franja = franjas[(int) (huella >>> 60)];
+        synchronized (franja) {
+            // Primero las claves en curso: una anotada todavía no es durable y su resultado se espera
+            CompletableFuture<ResultadoOperacion> enEspera = enCurso.get(huella);
+            if (enEspera != null) {
+                return enEspera;
+            }
+            int resultado = franja.buscar(huella, System.nanoTime(), duracionGeneracion);
+            if (resultado >= 0) {
+                return CompletableFuture.completedFuture(RESULTADOS[resultado]);
+            }
+            // La búsqueda y la reserva ocurren bajo el monitor de la franja: entre envíos concurrentes gana uno
+            return enCurso.putIfAbsent(huella, new CompletableFuture<>());
+        }
+    }
+
+    // Solo consulta: el resultado ya anotado para la clave, o null
+    ResultadoOperacion buscar(String clave) {
+        long huella = huella(clave);
+        Franja franja = franjas[(int) (huella >>> 60)];
+        synchronized (franja) {
+            int resultado = franja.buscar(huella, System.nanoTime(), duracionGeneracion);
+            return (resultado >= 0) ? RESULTADOS[resultado] : null;
+        }
+    }
+
+    void completar(String clave, ResultadoOperacion resultado) {
+        long huella = huella(clave);
+        Franja franja = franjas[(int) (huella >>> 60)];
+        CompletableFuture<ResultadoOperacion> futuro;
+        synchronized (franja) {
+            franja.agregar(huella, (byte) resultado.ordinal(), System.nanoTime(), duracionGeneracion, maximoPorGeneracion);
+            futuro = enCurso.remove(huella);
+        }
+        if (futuro != null) {
+            futuro.complete(resultado);
+        }
+    }
+
+    // Anota el resultado de una clave en curso en cuanto su registro entra en la bitácora, antes del fsync:
+    // así un snapshot tomado después de ese registro ya la incluye. Los envíos repetidos siguen esperando
+    // en "enCurso" hasta completar.
+    void anotar(long huella, ResultadoOperacion resultado) {
+        Franja franja = franjas[(int) (huella >>> 60)];
+        synchronized (franja) {
+            franja.agregar(huella, (byte) resultado.ordinal(), System.nanoTime(), duracionGeneracion, maximoPorGeneracion);
+        }
+    }
+
+    // Recuperación => una clave leída de la bitácora o del snapshot, en la generación que le toca según
+    // "milis" (hora de reloj en que se anotó); si ya venció se descarta
+    void restaurar(long huella, byte resultado, long milis) {
+        if (huella == 0 || resultado < 0 || resultado >= RESULTADOS.length) {
+            throw new IllegalArgumentException("Clave de idempotencia inválida.");
+        }
+        long edad = Math.max(0, System.currentTimeMillis() - milis) * 1_000_000;
+        Franja franja = franjas[(int) (huella >>> 60)];
+        synchronized (franja) {
+            franja.restaurar(huella, resultado, System.nanoTime(), edad, duracionGeneracion);
+        }
+    }
+
+    // Todas las claves vigentes, con la hora de reloj más reciente posible de su generación: tras restaurarlas
+    // vencen como muy pronto cuando lo harían aquí
+    List<Snapshot.Clave> exportar() {
+        List<Snapshot.Clave> claves = new ArrayList<>();
+        for (Franja franja : franjas) {
+            synchronized (franja) {
+                franja.exportar(claves, System.nanoTime(), System.currentTimeMillis(), duracionGeneracion);
+            }
+        }
+        return claves;
+    }
+
+    // La transacción falló con una excepción: la clave queda libre para reintentar y los que esperaban
+    // reciben el mismo error
+    void liberar(String clave, Throwable error) {
+        CompletableFuture<ResultadoOperacion> futuro = enCurso.remove(huella(clave));
+        if (futuro != null) {
+            futuro.completeExceptionally(error);
+        }
+    }
+
+    static void validarClave(String clave) {
+        if (clave == null || clave.isBlank()) {
+            throw new IllegalArgumentException("La clave de idempotencia no puede estar vacía.");
+        }
+    }
+
+    // FNV-1a de 64 bits con mezcla final (fmix64): dos claves distintas chocan con probabilidad ~2^-64
+    static long huella(String clave) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            h = (h ^ clave.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        // 0 marca una posición vacía
+        return (h == 0) ? 1 : h;
+    }
+
+    // Anillo de generaciones de una franja; lo protege su propio monitor
+    private static final class Franja {
+        private final Generacion[] generaciones;
+        private int actual;
+        private long inicioActual;
+
+        Franja(int cantidad, long ahora) {
+            this.generaciones = new Generacion[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                generaciones[i] = new Generacion();
+            }
+            this.inicioActual = ahora;
+        }
+
+        // De la generación actual hacia atrás: los reintentos suelen llegar poco después del original
+        int buscar(long huella, long ahora, long duracion) {
+            rotar(ahora, duracion);
+            for (int i = 0; i < generaciones.length; i++) {
+                int resultado = generaciones[Math.floorMod(actual - i, generaciones.length)].buscar(huella);
+                if (resultado >= 0) {
+                    return resultado;
+                }
+            }
+            return -1;
+        }
+
+        void agregar(long huella, byte resultado, long ahora, long duracion, int maximo) {
+            rotar(ahora, duracion);
+            if (generaciones[actual].cantidad >= maximo) {
+                avanzar();
+                inicioActual = ahora;
+            }
+            generaciones[actual].agregar(huella, resultado);
+        }
+
+        // La generación actual empezó en "inicioActual" y cada anterior cubre "duracion" más atrás
+        void restaurar(long huella, byte resultado, long ahora, long edad, long duracion) {
+            rotar(ahora, duracion);
+            long anotada = ahora - edad;
+            long atras = (anotada - inicioActual >= 0) ? 0 : (inicioActual - anotada + duracion - 1) / duracion;
+            if (atras < generaciones.length) {
+                generaciones[Math.floorMod(actual - (int) atras, generaciones.length)].agregar(huella, resultado);
+            }
+        }
+
+        void exportar(List<Snapshot.Clave> claves, long ahora, long milis, long duracion) {
+            rotar(ahora, duracion);
+            for (int atras = 0; atras < generaciones.length; atras++) {
+                // Lo más reciente que puede tener la generación: el comienzo de la siguiente
+                long edad = (atras == 0) ? 0 : Math.max(0, ahora - inicioActual + (atras - 1) * duracion);
+                generaciones[Math.floorMod(actual - atras, generaciones.length)]
+                        .exportar(claves, milis - edad / 1_000_000);
+            }
+        }
+
+        private void rotar(long ahora, long duracion) {
+            long vencidas = (ahora - inicioActual) / duracion;
+            if (vencidas <= 0) {
+                return;
+            }
+            for (long i = 0; i < Math.min(vencidas, generaciones.length); i++) {
+                avanzar();
+            }
+            inicioActual += vencidas * duracion;
+        }
+
+        // La generación siguiente es la más antigua: se vacía y pasa a ser la actual
+        private void avanzar() {
+            actual = (actual + 1) % generaciones.length;
+            generaciones[actual].vaciar();
+        }
+    }
+
+    // Tabla de huellas con sondeo lineal; crece al pasar de 3/4 de ocupación
+    private static final class Generacion {
+        private long[] huellas = new long[CAPACIDAD_INICIAL];
+        private byte[] resultados = new byte[CAPACIDAD_INICIAL];
+        private int cantidad;
+
+        int buscar(long huella) {
+            int mascara = huellas.length - 1;
+            for (int i = (int) huella & mascara; huellas[i] != 0; i = (i + 1) & mascara) {
+                if (huellas[i] == huella) {
+                    return resultados[i];
+                }
+            }
+            return -1;
+        }
+
+        void agregar(long huella, byte resultado) {
+            if (4 * (cantidad + 1) > 3 * huellas.length) {
+                crecer();
+            }
+            int mascara = huellas.length - 1;
+            int i = (int) huella & mascara;
+            while (huellas[i] != 0 && huellas[i] != huella) {
+                i = (i + 1) & mascara;
+            }
+            if (huellas[i] == 0) {
+                cantidad++;
+            }
+            huellas[i] = huella;
+            resultados[i] = resultado;
+        }
+
+        private void crecer() {
+            long[] anteriores = huellas;
+            byte[] resultadosAnteriores = resultados;
+            huellas = new long[anteriores.length * 2];
+            resultados = new byte[anteriores.length * 2];
+            cantidad = 0;
+            for (int i = 0; i < anteriores.length; i++) {
+                if (anteriores[i] != 0) {
+                    agregar(anteriores[i], resultadosAnteriores[i]);
+                }
+            }
+        }
+
+        void exportar(List<Snapshot.Clave> claves, long milis) {
+            for (int i = 0; i < huellas.length; i++) {
+                if (huellas[i] != 0) {
+                    claves.add(new Snapshot.Clave(huellas[i], resultados[i], milis));
+                }
+            }
+        }
+
+        // Devuelve la memoria de una generación grande; una pequeña solo se limpia
+        void vaciar() {
+            if (huellas.length > CAPACIDAD_INICIAL) {
+                huellas = new long[CAPACIDAD_INICIAL];
+                resultados = new byte[CAPACIDAD_INICIAL];
+            } else {
+                Arrays.fill(huellas, 0);
+            }
+            cantidad = 0;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package cooperativa.core;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Depósitos y retiros de un día (ver Cooperativa.volumenDiario)
+public record VolumenDiario(LocalDate fecha, BigDecimal depositos, long cantidadDepositos,
+                            BigDecimal retiros, long cantidadRetiros) {
+}
@@ -1,7 +1,9 @@
 package cooperativa.exceptions;
 
 public class CuentaDuplicadaExceptions extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public CuentaDuplicadaExceptions(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
\ No newline at end of file
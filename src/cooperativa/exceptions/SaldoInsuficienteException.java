@@ -1,7 +1,10 @@
 package cooperativa.exceptions;
 
 public class SaldoInsuficienteException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    // Sin traza de pila: es un rechazo de negocio frecuente, no un error de programación
     public SaldoInsuficienteException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
\ No newline at end of file
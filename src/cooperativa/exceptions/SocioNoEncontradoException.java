@@ -1,7 +1,9 @@
 package cooperativa.exceptions;
 
 public class SocioNoEncontradoException extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public SocioNoEncontradoException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
\ No newline at end of file
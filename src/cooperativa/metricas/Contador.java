@@ -0,0 +1,32 @@
+package cooperativa.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Contador sin candados: cada hilo suma en su propia celda del LongAdder (ver Metricas.contador)
+public final class Contador {
+
+    private final LongAdder valor = new LongAdder();
+
+    Contador() {
+    }
+
+    public void incrementar() {
+        if (Metricas.ACTIVAS) {
+            valor.increment();
+        }
+    }
+
+    public void sumar(long cantidad) {
+        if (Metricas.ACTIVAS) {
+            valor.add(cantidad);
+        }
+    }
+
+    public long valor() {
+        return valor.sum();
+    }
+
+    void reiniciar() {
+        valor.reset();
+    }
+}
@@ -0,0 +1,120 @@
+package cooperativa.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Histograma de latencias en nanosegundos con cubetas log-lineales, al estilo HdrHistogram: cada potencia
+ * de 2 se divide en 16 cubetas, así que un percentil se reporta con un error relativo menor al 7% sin
+ * importar la escala (de nanosegundos a horas en 976 cubetas fijas, unos 8 KB). Registrar es un
+ * incremento atómico sobre la cubeta, sin candados ni reservas de memoria.
+ */
+public final class Histograma {
+
+    private static final int BITS_SUBCUBETA = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int CUBETAS = (64 - BITS_SUBCUBETA + 1) * SUBCUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    Histograma() {
+    }
+
+    // Uso: long inicio = HISTOGRAMA.inicio(); ... HISTOGRAMA.registrarDesde(inicio);
+    public long inicio() {
+        return Metricas.ACTIVAS ? System.nanoTime() : 0;
+    }
+
+    public void registrarDesde(long inicio) {
+        if (Metricas.ACTIVAS) {
+            registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    public void registrar(long valor) {
+        if (!Metricas.ACTIVAS) {
+            return;
+        }
+        long v = Math.max(0, valor);
+        cubetas.incrementAndGet(cubeta(v));
+        suma.add(v);
+        // El máximo casi nunca cambia: solo se intenta escribir cuando el valor lo supera
+        long actual;
+        while (v > (actual = maximo.get()) && !maximo.compareAndSet(actual, v)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public long cantidad() {
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += cubetas.get(i);
+        }
+        return total;
+    }
+
+    public long maximo() {
+        return maximo.get();
+    }
+
+    public double promedio() {
+        long cantidad = cantidad();
+        return (cantidad == 0) ? 0 : (double) suma.sum() / cantidad;
+    }
+
+    // Límite superior de la cubeta donde cae el percentil "p" (entre 0 y 1); 0 si no hay registros
+    public long percentil(double p) {
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 1.");
+        }
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rango = Math.max(1, (long) Math.ceil(p * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= rango) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        suma.reset();
+        maximo.set(0);
+    }
+
+    // Los valores menores a 16 tienen cubeta propia; los demás se agrupan por su bit más alto y los
+    // 4 bits siguientes
+    private static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + sub;
+    }
+
+    private static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS) {
+            return cubeta;
+        }
+        int exponente = cubeta / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        long inferior = (long) (SUBCUBETAS + cubeta % SUBCUBETAS) << (exponente - BITS_SUBCUBETA);
+        return inferior + (1L << (exponente - BITS_SUBCUBETA)) - 1;
+    }
+}
@@ -0,0 +1,98 @@
+package cooperativa.metricas;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/*
+ * Registro global de métricas del proceso: contadores y histogramas de latencia por nombre. Cada clase
+ * instrumentada obtiene los suyos una sola vez (campos static final), así que en el camino caliente
+ * no hay búsquedas en el mapa: solo un LongAdder o un incremento atómico y, en los histogramas, dos
+ * lecturas de System.nanoTime().
+ *
+ * Se desactivan con -Dcooperativa.metricas=false: la constante ACTIVAS la resuelve el JIT y las
+ * llamadas quedan vacías.
+ *
+ * Nombres: "<componente>.<métrica>", en minúsculas. reporte() devuelve una línea por métrica, ordenadas:
+ *   contador <nombre> <valor>
+ *   histograma <nombre> n=<cantidad> p50=<µs> p99=<µs> p999=<µs> max=<µs> prom=<µs>
+ *   medida <nombre> <valor>
+ * Las medidas son valores del momento (tamaños, retrasos): las calcula quien llama a reporte o una función
+ * registrada con medida(nombre, valor).
+ */
+public final class Metricas {
+
+    static final boolean ACTIVAS = !"false".equalsIgnoreCase(System.getProperty("cooperativa.metricas"));
+
+    private static final Map<String, Contador> CONTADORES = new ConcurrentHashMap<>();
+    private static final Map<String, Histograma> HISTOGRAMAS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> MEDIDAS = new ConcurrentHashMap<>();
+
+    private Metricas() {
+    }
+
+    public static boolean isActivas() {
+        return ACTIVAS;
+    }
+
+    // Devuelve siempre el mismo contador para el mismo nombre
+    public static Contador contador(String nombre) {
+        return CONTADORES.computeIfAbsent(validarNombre(nombre), n -> new Contador());
+    }
+
+    public static Histograma histograma(String nombre) {
+        return HISTOGRAMAS.computeIfAbsent(validarNombre(nombre), n -> new Histograma());
+    }
+
+    // Reemplaza la función anterior con el mismo nombre; se evalúa en cada reporte
+    public static void medida(String nombre, LongSupplier valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("La función de la medida no puede ser nula.");
+        }
+        MEDIDAS.put(validarNombre(nombre), valor);
+    }
+
+    public static void quitarMedida(String nombre) {
+        MEDIDAS.remove(nombre);
+    }
+
+    public static String reporte() {
+        return reporte(Map.of());
+    }
+
+    // "medidas": valores del momento que no son contadores (tamaños, cantidades), calculados por quien llama
+    public static String reporte(Map<String, Long> medidas) {
+        Map<String, String> lineas = new TreeMap<>();
+        CONTADORES.forEach((nombre, contador) -> lineas.put(nombre, "contador " + nombre + " " + contador.valor()));
+        HISTOGRAMAS.forEach((nombre, histograma) -> lineas.put(nombre, String.format(Locale.ROOT,
+                "histograma %s n=%d p50=%.1f p99=%.1f p999=%.1f max=%.1f prom=%.1f", nombre,
+                histograma.cantidad(), micros(histograma.percentil(0.50)), micros(histograma.percentil(0.99)),
+                micros(histograma.percentil(0.999)), micros(histograma.maximo()), histograma.promedio() / 1_000)));
+        MEDIDAS.forEach((nombre, valor) -> lineas.put(nombre, "medida " + nombre + " " + valor.getAsLong()));
+        medidas.forEach((nombre, valor) -> lineas.put(nombre, "medida " + nombre + " " + valor));
+        StringBuilder reporte = new StringBuilder();
+        for (String linea : lineas.values()) {
+            reporte.append(linea).append('\n');
+        }
+        return reporte.toString();
+    }
+
+    // Pone en cero todas las métricas (por ejemplo, entre etapas de una prueba de carga)
+    public static void reiniciar() {
+        CONTADORES.values().forEach(Contador::reiniciar);
+        HISTOGRAMAS.values().forEach(Histograma::reiniciar);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+
+    private static String validarNombre(String nombre) {
+        if (nombre == null || nombre.isBlank() || nombre.chars().anyMatch(Character::isWhitespace)) {
+            throw new IllegalArgumentException("El nombre de la métrica no puede estar vacío ni tener espacios.");
+        }
+        return nombre;
+    }
+}
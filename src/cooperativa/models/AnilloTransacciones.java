@@ -0,0 +1,137 @@
+package cooperativa.models;
+
+import java.util.Arrays;
+
+import cooperativa.transactions.CodificacionCompacta;
+import cooperativa.transactions.Transaccion;
+
+/*
+ * Buffer circular con las últimas transacciones en memoria. Al llenarse desaloja la más
+ * antigua; si esa transacción ya se escribió en el historial en disco (posición >= 0) sigue
+ * disponible allí. No es seguro para hilos: lo protege quien lo contiene.
+ *
+ * Se guarda por columnas (tipo, cuentas, monto en centavos, fecha en nanos, corrida, posición)
+ * en arreglos primitivos: unos 45 bytes por transacción en lugar de los objetos Transaccion,
+ * BigDecimal y LocalDateTime. Las transacciones se recrean al pedirlas (ver CodificacionCompacta).
+ * Solo las transacciones de otros tipos se guardan como objeto.
+ *
+ * Los arreglos empiezan vacíos y se duplican hasta la capacidad a medida que llegan transacciones:
+ * una cuenta recién abierta (por ejemplo, en una carga masiva) no reserva espacio que quizá no use.
+ * Mientras crece no desaloja nada, así que "inicio" sigue en 0 hasta llegar a la capacidad.
+ */
+public final class AnilloTransacciones {
+
+    private static final int CAPACIDAD_INICIAL = 4;
+    // Compartidos por todos los anillos vacíos: crecer() siempre copia
+    private static final byte[] SIN_TIPOS = new byte[0];
+    private static final Cuenta[] SIN_CUENTAS = new Cuenta[0];
+    private static final long[] SIN_VALORES = new long[0];
+
+    private final int capacidad;
+    private byte[] tipos;
+    private Cuenta[] cuentas;
+    private Cuenta[] destinos;
+    private long[] montos;
+    private long[] fechas;
+    private long[] corridas;
+    // Posición de cada transacción en el historial en disco (-1 si no está escrita)
+    private long[] posiciones;
+    // Transacciones que no se pueden codificar; se crea al aparecer la primera
+    private Transaccion[] otras;
+    private int inicio;
+    private int tamano;
+    private long total;
+
+    public AnilloTransacciones(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor que cero.");
+        }
+        this.capacidad = capacidad;
+        this.tipos = SIN_TIPOS;
+        this.cuentas = SIN_CUENTAS;
+        this.destinos = SIN_CUENTAS;
+        this.montos = SIN_VALORES;
+        this.fechas = SIN_VALORES;
+        this.corridas = SIN_VALORES;
+        this.posiciones = SIN_VALORES;
+    }
+
+    private void crecer(int largo) {
+        tipos = Arrays.copyOf(tipos, largo);
+        cuentas = Arrays.copyOf(cuentas, largo);
+        destinos = Arrays.copyOf(destinos, largo);
+        montos = Arrays.copyOf(montos, largo);
+        fechas = Arrays.copyOf(fechas, largo);
+        corridas = Arrays.copyOf(corridas, largo);
+        posiciones = Arrays.copyOf(posiciones, largo);
+        if (otras != null) {
+            otras = Arrays.copyOf(otras, largo);
+        }
+    }
+
+    public void agregar(Transaccion transaccion, long posicion) {
+        if (tamano == tipos.length && tipos.length < capacidad) {
+            crecer(Math.min(capacidad, Math.max(CAPACIDAD_INICIAL, tipos.length * 2)));
+        }
+        int indice = (inicio + tamano) % tipos.length;
+        if (tamano == tipos.length) {
+            inicio = (inicio + 1) % tipos.length;
+        } else {
+            tamano++;
+        }
+        byte tipo = CodificacionCompacta.tipo(transaccion);
+        tipos[indice] = tipo;
+        posiciones[indice] = posicion;
+        if (tipo == CodificacionCompacta.OTRA) {
+            if (otras == null) {
+                otras = new Transaccion[tipos.length];
+            }
+            otras[indice] = transaccion;
+            cuentas[indice] = null;
+            destinos[indice] = null;
+        } else {
+            if (otras != null) {
+                otras[indice] = null;
+            }
+            cuentas[indice] = CodificacionCompacta.cuenta(transaccion);
+            destinos[indice] = CodificacionCompacta.destino(transaccion);
+            montos[indice] = transaccion.getMontoCentavos();
+            fechas[indice] = CodificacionCompacta.fecha(transaccion);
+            corridas[indice] = CodificacionCompacta.corrida(transaccion);
+        }
+        total++;
+    }
+
+    // Menor posición en disco entre las transacciones del anillo, o -1 si ninguna está escrita
+    public long posicionMasAntigua() {
+        for (int i = 0; i < tamano; i++) {
+            long posicion = posiciones[(inicio + i) % tipos.length];
+            if (posicion >= 0) {
+                return posicion;
+            }
+        }
+        return -1;
+    }
+
+    // Transacciones en memoria, de la más antigua a la más reciente
+    public Transaccion[] copia() {
+        Transaccion[] copia = new Transaccion[tamano];
+        for (int i = 0; i < tamano; i++) {
+            int indice = (inicio + i) % tipos.length;
+            copia[i] = (tipos[indice] == CodificacionCompacta.OTRA)
+                    ? otras[indice]
+                    : CodificacionCompacta.crear(tipos[indice], cuentas[indice], destinos[indice],
+                            montos[indice], fechas[indice], corridas[indice]);
+        }
+        return copia;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    // Transacciones agregadas desde la creación, incluidas las ya desalojadas
+    public long getTotal() {
+        return total;
+    }
+}
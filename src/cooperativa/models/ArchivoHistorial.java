@@ -0,0 +1,19 @@
+package cooperativa.models;
+
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import cooperativa.transactions.Transaccion;
+
+// Nivel en disco del historial de transacciones (lo que ya no cabe en los anillos en memoria)
+public interface ArchivoHistorial {
+
+    // Transacciones de la cuenta cuya última escritura está en "posicion", solo las anteriores a "limite",
+    // de la más antigua a la más reciente
+    Stream<Transaccion> transaccionesDeCuenta(Cuenta cuenta, long posicion, long limite);
+
+    // Posiciones de la cadena de la cuenta desde "posicion" hacia atrás (de la más reciente a la más antigua)
+    LongStream posicionesDeCuenta(Cuenta cuenta, long posicion);
+
+    Transaccion transaccion(long posicion);
+}
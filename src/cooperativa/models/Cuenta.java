@@ -3,18 +3,51 @@ package cooperativa.models;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import cooperativa.exceptions.SaldoInsuficienteException;
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Metricas;
+import cooperativa.transactions.CodificacionCompacta;
 import cooperativa.transactions.Transaccion;
 
 public abstract class Cuenta {
 
     private final String numeroCuenta;
-    private BigDecimal saldo;
+    // Saldo en centavos (ver Dinero); BigDecimal solo en la API pública
+    private volatile long saldo;
     private final LocalDateTime fechaApertura;
-    private final List<Transaccion> transacciones;
+    // Últimas transacciones en memoria; las anteriores quedan en el historial en disco (protegido por "lock")
+    private final AnilloTransacciones recientes;
+    // Candado propio de la cuenta: serializa operaciones sobre la misma cuenta
+    private final ReentrantLock lock;
+    // Secuencia del último registro de bitácora aplicado a la cuenta (protegida por "lock")
+    private long version;
+    // Notificado en cada cambio de saldo (agregados e índices de la cooperativa)
+    private volatile ObservadorSaldo observadorSaldo;
+    // Nivel en disco del historial y posición en él de la última transacción de la cuenta (protegida por "lock")
+    private volatile ArchivoHistorial archivoHistorial;
+    private long ultimaPosicionHistorial = -1;
+    // Para estados de cuenta (protegidos por "lock"): suma de los efectos de las transacciones del
+    // historial sobre el saldo, mayor fecha vista y puntos de control (se crean al llegar al primero)
+    private long movimientoHistorial;
+    private long fechaMaximaHistorial = Long.MIN_VALUE;
+    private long transaccionesEnDisco;
+    private PuntosControlSaldo puntosControl;
+    // Para cortes consistentes sin candados (ver prepararEscritura): saldo previo a la primera escritura de
+    // la época "epocaCorte". El saldo se escribe antes que la época, que es volatile y lo publica.
+    private long saldoEnCorte;
+    private volatile long epocaCorte;
+
+    private static final int TRANSACCIONES_EN_MEMORIA = 32;
+    private static final Contador SALDO_INSUFICIENTE = Metricas.contador("transacciones.saldo_insuficiente");
+    private static final Contador PUNTOS_CONTROL = Metricas.contador("cuentas.puntos_control");
 
     public abstract String getTipoCuenta();
 
@@ -22,7 +55,7 @@ public abstract class Cuenta {
     public String toString() {
         return "Cuenta{" +
                 "numeroCuenta='" + numeroCuenta + '\'' +
-                ", saldo=" + saldo +
+                ", saldo=" + getSaldo() +
                 ", fechaApertura=" + fechaApertura +
                 ", tipoCuenta=" + getTipoCuenta() +
                 '}';
@@ -37,9 +70,10 @@ public abstract class Cuenta {
         }
 
         this.numeroCuenta = numeroCuenta;
-        this.saldo = saldoInicial;
+        this.saldo = Dinero.aCentavos(saldoInicial);
         this.fechaApertura = (fechaApertura != null) ? fechaApertura : LocalDateTime.now();
-        this.transacciones = new ArrayList<>();
+        this.recientes = new AnilloTransacciones(TRANSACCIONES_EN_MEMORIA);
+        this.lock = new ReentrantLock();
     }
 
     // UTILS => validadores y registradores
@@ -49,9 +83,65 @@ public abstract class Cuenta {
         }
     }
 
+    // En una cuenta de la cooperativa, las transacciones propias las registra el historial al
+    // escribirlas en disco (ver registrarTransaccion(t, posicion)); aquí solo quedan las demás
     public void registrarTransaccion(Transaccion t) {
         if (t != null) {
-            transacciones.add(t);
+            lock.lock();
+            try {
+                if (archivoHistorial == null || CodificacionCompacta.tipo(t) == CodificacionCompacta.OTRA) {
+                    recientes.agregar(t, -1);
+                    acumular(t);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Registro en bloque (lotes): una sola toma del candado para todas las transacciones
+    public void registrarTransacciones(List<Transaccion> lote) {
+        lock.lock();
+        try {
+            for (Transaccion t : lote) {
+                registrarTransaccion(t);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Debe llamarse con el candado de la cuenta tomado, justo después de escribir la transacción en disco
+    public void registrarTransaccion(Transaccion t, long posicionHistorial) {
+        recientes.agregar(t, posicionHistorial);
+        ultimaPosicionHistorial = posicionHistorial;
+        acumular(t);
+        if (++transaccionesEnDisco % PuntosControlSaldo.INTERVALO == 0) {
+            if (puntosControl == null) {
+                puntosControl = new PuntosControlSaldo();
+            }
+            puntosControl.agregar(fechaMaximaHistorial, posicionHistorial, movimientoHistorial);
+            PUNTOS_CONTROL.incrementar();
+        }
+    }
+
+    private void acumular(Transaccion t) {
+        movimientoHistorial = Dinero.sumar(movimientoHistorial, efectoEnSaldo(t));
+        fechaMaximaHistorial = Math.max(fechaMaximaHistorial, CodificacionCompacta.fecha(t));
+    }
+
+    // Cuánto cambió la transacción el saldo de esta cuenta (0 en transacciones de otros tipos)
+    private long efectoEnSaldo(Transaccion t) {
+        switch (CodificacionCompacta.tipo(t)) {
+            case CodificacionCompacta.DEPOSITO:
+            case CodificacionCompacta.INTERES:
+                return t.getMontoCentavos();
+            case CodificacionCompacta.RETIRO:
+                return -t.getMontoCentavos();
+            case CodificacionCompacta.TRANSFERENCIA:
+                return (CodificacionCompacta.cuenta(t) == this) ? -t.getMontoCentavos() : t.getMontoCentavos();
+            default:
+                return 0;
         }
     }
 
@@ -61,6 +151,10 @@ public abstract class Cuenta {
     }
 
     public BigDecimal getSaldo() {
+        return Dinero.aDecimal(saldo);
+    }
+
+    public long getSaldoCentavos() {
         return saldo;
     }
 
@@ -68,21 +162,231 @@ public abstract class Cuenta {
         return fechaApertura;
     }
 
-    public List<Transaccion> getTransacciones() {
-        return Collections.unmodifiableList(transacciones);
+    // Mayor fecha entre las transacciones registradas, o null si la cuenta no tiene movimientos
+    public LocalDateTime getFechaUltimaTransaccion() {
+        lock.lock();
+        try {
+            return (fechaMaximaHistorial == Long.MIN_VALUE) ? null : CodificacionCompacta.desdeNanos(fechaMaximaHistorial);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Vista de todo el historial de la cuenta, de la más antigua a la más reciente: primero lo que está
+    // en disco y luego lo que sigue en memoria. Las transacciones en disco se leen a medida que se recorre.
+    public Stream<Transaccion> getTransacciones() {
+        Transaccion[] enMemoria;
+        long ultima;
+        long limite;
+        lock.lock();
+        try {
+            enMemoria = recientes.copia();
+            ultima = ultimaPosicionHistorial;
+            limite = recientes.posicionMasAntigua();
+        } finally {
+            lock.unlock();
+        }
+        ArchivoHistorial archivo = archivoHistorial;
+        if (archivo == null || ultima < 0) {
+            return Arrays.stream(enMemoria);
+        }
+        Stream<Transaccion> enDisco = archivo.transaccionesDeCuenta(this, ultima,
+                (limite >= 0) ? limite : Long.MAX_VALUE);
+        return Stream.concat(enDisco, Arrays.stream(enMemoria));
+    }
+
+    // Página del historial: "cantidad" transacciones a partir de la número "desde" (0 es la más antigua)
+    public List<Transaccion> getTransacciones(long desde, int cantidad) {
+        if (desde < 0 || cantidad < 0) {
+            throw new IllegalArgumentException("La página del historial no puede tener valores negativos.");
+        }
+        return getTransacciones().skip(desde).limit(cantidad).collect(Collectors.toList());
+    }
+
+    public long getCantidadTransacciones() {
+        lock.lock();
+        try {
+            return recientes.getTotal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Estado de cuenta del período [desde, hasta). Los puntos de control ubican el período sin recorrer
+    // todo el historial: se leen a lo sumo un bloque antes y uno después, más las transacciones del período.
+    // Los saldos se calculan hacia atrás desde el saldo actual restando los movimientos posteriores.
+    // Supone que las fechas de las transacciones siguen el orden en que se registraron.
+    public EstadoCuenta estadoDeCuenta(LocalDateTime desde, LocalDateTime hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas del período no pueden ser nulas.");
+        }
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial del período debe ser anterior a la final.");
+        }
+        long inicio = CodificacionCompacta.aNanos(desde);
+        long fin = CodificacionCompacta.aNanos(hasta);
+
+        long saldoActual;
+        long movimientoTotal;
+        long movimiento;
+        Iterator<Transaccion> haciaAtras;
+        lock.lock();
+        try {
+            saldoActual = saldo;
+            movimientoTotal = movimientoHistorial;
+            movimiento = movimientoHistorial;
+            ArchivoHistorial archivo = archivoHistorial;
+            if (archivo != null && ultimaPosicionHistorial >= 0) {
+                long posicion = ultimaPosicionHistorial;
+                long parada = -1;
+                if (puntosControl != null) {
+                    int despues = puntosControl.primeroDesde(fin);
+                    if (despues >= 0) {
+                        posicion = puntosControl.posicion(despues);
+                        movimiento = puntosControl.movimiento(despues);
+                    }
+                    int antes = puntosControl.ultimoAntesDe(inicio);
+                    if (antes >= 0) {
+                        parada = puntosControl.posicion(antes);
+                    }
+                }
+                long hastaParada = parada;
+                haciaAtras = archivo.posicionesDeCuenta(this, posicion)
+                        .takeWhile(p -> p != hastaParada)
+                        .mapToObj(archivo::transaccion)
+                        .iterator();
+            } else {
+                List<Transaccion> enMemoria = Arrays.asList(recientes.copia());
+                Collections.reverse(enMemoria);
+                haciaAtras = enMemoria.iterator();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Hacia atrás: "movimiento" es el acumulado justo después de la transacción actual
+        List<Transaccion> periodo = new ArrayList<>();
+        Long alCierre = null;
+        while (haciaAtras.hasNext()) {
+            Transaccion t = haciaAtras.next();
+            if (CodificacionCompacta.tipo(t) == CodificacionCompacta.OTRA) {
+                continue;
+            }
+            long fecha = CodificacionCompacta.fecha(t);
+            if (alCierre == null && fecha < fin) {
+                alCierre = movimiento;
+            }
+            if (fecha < inicio) {
+                break;
+            }
+            if (fecha < fin) {
+                periodo.add(t);
+            }
+            movimiento = Dinero.restar(movimiento, efectoEnSaldo(t));
+        }
+        long alInicio = movimiento;
+        Collections.reverse(periodo);
+        return new EstadoCuenta(numeroCuenta, desde, hasta,
+                Dinero.aDecimal(saldoActual - (movimientoTotal - alInicio)),
+                Dinero.aDecimal(saldoActual - (movimientoTotal - ((alCierre != null) ? alCierre : alInicio))),
+                Collections.unmodifiableList(periodo));
+    }
+
+    // Debe llamarse con el candado tomado y antes de modificar el saldo. La primera escritura de cada época
+    // guarda el saldo previo: el corte de esa época lo usa en lugar del saldo actual (ver getSaldoEnCorte)
+    public void prepararEscritura(long epoca) {
+        if (epoca > epocaCorte) {
+            saldoEnCorte = saldo;
+            epocaCorte = epoca;
+        }
+    }
+
+    // Saldo en el corte "epoca", sin candado. Solo es válido durante ese corte (los cortes no se solapan)
+    public long getSaldoEnCorte(long epoca) {
+        if (epocaCorte == epoca) {
+            return saldoEnCorte;
+        }
+        long actual = saldo;
+        // Si mientras tanto empezó una escritura de la época, el saldo leído puede ser posterior al corte;
+        // el previo ya quedó guardado antes de que cambiara
+        return (epocaCorte == epoca) ? saldoEnCorte : actual;
+    }
+
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    public long getUltimaPosicionHistorial() {
+        return ultimaPosicionHistorial;
+    }
+
+    public void setArchivoHistorial(ArchivoHistorial archivoHistorial) {
+        this.archivoHistorial = archivoHistorial;
+    }
+
+    // Debe llamarse con el candado de la cuenta tomado, para no perder cambios concurrentes
+    public void setObservadorSaldo(ObservadorSaldo observadorSaldo) {
+        this.observadorSaldo = observadorSaldo;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Debe llamarse con el candado de la cuenta tomado
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     // Operaciones
     public void depositar(BigDecimal monto) {
         validarMontoPositivo(monto);
-        this.saldo = this.saldo.add(monto);
+        depositarCentavos(Dinero.aCentavos(monto));
     }
 
     public void retirar(BigDecimal monto) throws SaldoInsuficienteException {
         validarMontoPositivo(monto);
-        if (saldo.compareTo(monto) < 0) {
-            throw new SaldoInsuficienteException("Saldo insuficiente para realizar el retiro.");
+        retirarCentavos(Dinero.aCentavos(monto));
+    }
+
+    // Variantes en centavos: sin BigDecimal intermedios en las rutas de alto volumen
+    public void depositarCentavos(long monto) {
+        if (monto <= 0) {
+            throw new IllegalArgumentException("El monto debe ser mayor que cero.");
+        }
+        lock.lock();
+        try {
+            long anterior = saldo;
+            this.saldo = Dinero.sumar(anterior, monto);
+            notificar(anterior);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void retirarCentavos(long monto) throws SaldoInsuficienteException {
+        if (monto <= 0) {
+            throw new IllegalArgumentException("El monto debe ser mayor que cero.");
+        }
+        lock.lock();
+        try {
+            // La validación y el descuento ocurren bajo el mismo candado: no hay sobregiros
+            if (saldo < monto) {
+                SALDO_INSUFICIENTE.incrementar();
+                throw new SaldoInsuficienteException("Saldo insuficiente para realizar el retiro.");
+            }
+            long anterior = saldo;
+            this.saldo = anterior - monto;
+            notificar(anterior);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notificar(long anterior) {
+        ObservadorSaldo observador = observadorSaldo;
+        if (observador != null) {
+            observador.saldoCambiado(this, anterior, saldo);
         }
-        this.saldo = this.saldo.subtract(monto);
     }
 }
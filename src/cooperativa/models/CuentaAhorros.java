@@ -7,6 +7,8 @@ import java.math.RoundingMode;
 public class CuentaAhorros extends Cuenta {
 
     private final BigDecimal tasaInteresAnual;
+    // Última corrida de intereses ya abonada (protegida por el candado de la cuenta)
+    private long ultimaCorridaInteres;
 
     @Override
     public String getTipoCuenta() {
@@ -35,18 +37,38 @@ public class CuentaAhorros extends Cuenta {
         this.tasaInteresAnual = tasaInteresAnual;
     }
 
-    // Método para calcular y aplicar intereses anuales
-    public void aplicarInteresAnualCuentas() {
+    // Fórmula: Interés Anual = Saldo * Tasa Anual / 100, con 10 decimales
+    public BigDecimal calcularInteresAnual() {
+        return interesAnual(10);
+    }
+
+    // El mismo interés redondeado HALF_UP a centavos: es lo que se abona, porque el saldo se guarda en centavos
+    public BigDecimal calcularInteresAnualAbonable() {
+        return interesAnual(Dinero.ESCALA);
+    }
 
-        // Fórmula: Interés Anual = Saldo * Tasa Anual / 100
-        BigDecimal interesAnual = getSaldo()
+    // Se redondea una sola vez, desde el producto exacto
+    private BigDecimal interesAnual(int escala) {
+        return getSaldo()
                 .multiply(tasaInteresAnual)
-                .divide(BigDecimal.valueOf(100), 10, RoundingMode.HALF_UP);
+                .divide(BigDecimal.valueOf(100), escala, RoundingMode.HALF_UP);
+    }
 
-        // Actualizamos el saldo
-        depositar(interesAnual);
-        //
+    // Método para calcular y aplicar intereses anuales; devuelve el interés abonado (en centavos enteros)
+    public BigDecimal aplicarInteresAnualCuentas() {
+        // El cálculo y el abono se hacen bajo el candado de la cuenta
+        getLock().lock();
+        try {
+            BigDecimal interesAnual = calcularInteresAnualAbonable();
 
+            // Actualizamos el saldo (un interés de cero centavos no genera abono)
+            if (interesAnual.signum() > 0) {
+                depositarCentavos(Dinero.aCentavos(interesAnual));
+            }
+            return interesAnual;
+        } finally {
+            getLock().unlock();
+        }
     }
 
     // Getters and Setters
@@ -54,4 +76,15 @@ public class CuentaAhorros extends Cuenta {
         return tasaInteresAnual;
     }
 
+    public long getUltimaCorridaInteres() {
+        return ultimaCorridaInteres;
+    }
+
+    // Debe llamarse con el candado de la cuenta tomado; nunca retrocede
+    public void marcarCorridaInteres(long corrida) {
+        if (corrida > ultimaCorridaInteres) {
+            ultimaCorridaInteres = corrida;
+        }
+    }
+
 }
\ No newline at end of file
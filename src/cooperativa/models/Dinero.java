@@ -0,0 +1,66 @@
+package cooperativa.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Conversión entre BigDecimal (API pública) y centavos en long (representación interna de saldos y montos).
+// aCentavos rechaza más de 2 decimales (antes se aceptaban): quien necesite otra precisión redondea antes.
+public final class Dinero {
+
+    public static final int ESCALA = 2;
+
+    private Dinero() {
+    }
+
+    public static long aCentavos(BigDecimal monto) {
+        if (monto == null) {
+            throw new IllegalArgumentException("El monto no puede ser nulo.");
+        }
+        try {
+            return monto.setScale(ESCALA, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("El monto debe tener máximo " + ESCALA
+                    + " decimales y estar dentro del rango permitido: " + monto);
+        }
+    }
+
+    public static BigDecimal aDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    // Mayor número de centavos que no supera el monto (saturado al rango de long)
+    public static long pisoCentavos(BigDecimal monto) {
+        return centavosSaturados(monto.setScale(ESCALA, RoundingMode.FLOOR));
+    }
+
+    // Menor número de centavos que no es inferior al monto (saturado al rango de long)
+    public static long techoCentavos(BigDecimal monto) {
+        return centavosSaturados(monto.setScale(ESCALA, RoundingMode.CEILING));
+    }
+
+    private static long centavosSaturados(BigDecimal escalado) {
+        if (escalado.compareTo(aDecimal(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (escalado.compareTo(aDecimal(Long.MIN_VALUE)) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return escalado.unscaledValue().longValue();
+    }
+
+    public static long sumar(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Desbordamiento al sumar montos.");
+        }
+    }
+
+    public static long restar(long a, long b) {
+        try {
+            return Math.subtractExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Desbordamiento al restar montos.");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package cooperativa.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import cooperativa.transactions.Transaccion;
+
+// Estado de cuenta del período [desde, hasta): saldo al inicio, saldo al final y las transacciones en orden
+public record EstadoCuenta(String numeroCuenta, LocalDateTime desde, LocalDateTime hasta,
+        BigDecimal saldoInicial, BigDecimal saldoFinal, List<Transaccion> transacciones) {
+}
@@ -0,0 +1,7 @@
+package cooperativa.models;
+
+// Recibe cada cambio de saldo de una cuenta (en centavos), con el candado de la cuenta tomado
+@FunctionalInterface
+public interface ObservadorSaldo {
+    void saldoCambiado(Cuenta cuenta, long saldoAnterior, long saldoNuevo);
+}
@@ -0,0 +1,66 @@
+package cooperativa.models;
+
+import java.util.Arrays;
+
+/*
+ * Puntos de control del historial de una cuenta, uno cada INTERVALO transacciones escritas en
+ * disco: la mayor fecha vista hasta ese punto, la posición de la transacción y el movimiento
+ * acumulado (suma de los efectos sobre el saldo) después de ella. Permiten ubicar un rango de
+ * fechas con búsqueda binaria y recorrer solo los bloques que lo cubren.
+ * No es seguro para hilos: lo protege el candado de la cuenta.
+ */
+final class PuntosControlSaldo {
+
+    static final int INTERVALO = 256;
+
+    private long[] fechas = new long[8];
+    private long[] posiciones = new long[8];
+    private long[] movimientos = new long[8];
+    private int cantidad;
+
+    void agregar(long fechaMaxima, long posicion, long movimiento) {
+        if (cantidad == fechas.length) {
+            fechas = Arrays.copyOf(fechas, cantidad * 2);
+            posiciones = Arrays.copyOf(posiciones, cantidad * 2);
+            movimientos = Arrays.copyOf(movimientos, cantidad * 2);
+        }
+        fechas[cantidad] = fechaMaxima;
+        posiciones[cantidad] = posicion;
+        movimientos[cantidad] = movimiento;
+        cantidad++;
+    }
+
+    // Último punto cuya fecha máxima es < fecha (todo lo anterior a él también lo es), o -1
+    int ultimoAntesDe(long fecha) {
+        return buscar(fecha) - 1;
+    }
+
+    // Primer punto cuya fecha máxima es >= fecha, o -1 si no hay
+    int primeroDesde(long fecha) {
+        int punto = buscar(fecha);
+        return (punto < cantidad) ? punto : -1;
+    }
+
+    // Cantidad de puntos con fecha máxima < fecha (las fechas máximas no decrecen)
+    private int buscar(long fecha) {
+        int bajo = 0;
+        int alto = cantidad;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (fechas[medio] < fecha) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    long posicion(int punto) {
+        return posiciones[punto];
+    }
+
+    long movimiento(int punto) {
+        return movimientos[punto];
+    }
+}
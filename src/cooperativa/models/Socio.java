@@ -1,53 +1,145 @@
 package cooperativa.models;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
+/*
+ * Socio de la cooperativa. Se guarda de forma compacta porque puede haber millones:
+ *
+ * - El id (un UUID aleatorio, o el que viene de la bitácora) se guarda como dos long y getId() lo
+ *   vuelve a escribir al pedirlo. Un id que no tiene la forma canónica de un UUID se guarda como texto.
+ *   Dentro de la cooperativa el socio se identifica por un número denso (ver RegistroSocios); el id es
+ *   el alias externo que queda en la bitácora, los snapshots y las respuestas del servidor.
+ *
+ * - Las cuentas van en un arreglo en orden de apertura que se duplica al llenarse. Con más de
+ *   CUENTAS_SIN_INDICE se agrega una tabla hash abierta por número de cuenta (sondeo lineal, a lo sumo
+ *   medio llena), así que buscarCuenta y la validación de repetidas son O(1) también para socios con
+ *   miles de cuentas. Las altas se serializan con el monitor del socio; las lecturas no toman candados:
+ *   cada cuenta se escribe en el arreglo antes de publicar la nueva cantidad.
+ */
 public class Socio {
 
-    private final String id;
+    private static final Cuenta[] SIN_CUENTAS = new Cuenta[0];
+    private static final int CUENTAS_SIN_INDICE = 8;
+
+    private final long idAlto;
+    private final long idBajo;
+    // Solo si el id no es un UUID canónico; null en otro caso
+    private final String idTexto;
     private final String nombre;
     private final String cedula;
-    private final List<Cuenta> cuentas;
+    private volatile Cuenta[] cuentas = SIN_CUENTAS;
+    private volatile int cantidadCuentas;
+    private volatile Cuenta[] indiceCuentas;
 
     @Override
     public String toString() {
         return "Socio{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", nombre='" + nombre + '\'' +
                 ", cedula='" + cedula + '\'' +
-                ", cuentas=" + cuentas +
+                ", cuentas=" + getCuentas() +
                 '}';
     }
 
     public Socio(String nombre, String cedula) {
+        // Generamos un ID único para el socio
+        this(UUID.randomUUID().toString(), nombre, cedula);
+    }
+
+    // Constructor con ID conocido (recuperación desde la bitácora)
+    public Socio(String id, String nombre, String cedula) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("El id del socio no puede ser nulo o vacío");
+        }
         if (nombre == null || nombre.isEmpty()) {
             throw new IllegalArgumentException("El nombre no puede ser nulo o vacío");
         }
         if (cedula == null || cedula.isEmpty()) {
             throw new IllegalArgumentException("La cédula no puede ser nula o vacía");
         }
-        // Generamos un ID único para el socio
-        this.id = java.util.UUID.randomUUID().toString();
+        if (esUuid(id)) {
+            this.idAlto = hexadecimal(id, 0, 18);
+            this.idBajo = hexadecimal(id, 19, 36);
+            this.idTexto = null;
+        } else {
+            this.idAlto = 0;
+            this.idBajo = 0;
+            this.idTexto = id;
+        }
         this.nombre = nombre;
         this.cedula = cedula;
-        this.cuentas = new ArrayList<>();
     }
 
     // Utils
     protected void validarRepetida(Cuenta cuenta) {
-        for (Cuenta c : cuentas) {
-            if (c.getNumeroCuenta().equals(cuenta.getNumeroCuenta())) {
-                throw new IllegalArgumentException("La cuenta ya existe para este socio");
+        if (buscarCuenta(cuenta.getNumeroCuenta()).isPresent()) {
+            throw new IllegalArgumentException("La cuenta ya existe para este socio");
+        }
+    }
+
+    // Forma canónica (minúsculas, como UUID.toString): así getId() devuelve exactamente el texto recibido
+    private static boolean esUuid(String id) {
+        if (id.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            boolean valido = (i == 8 || i == 13 || i == 18 || i == 23)
+                    ? c == '-'
+                    : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+            if (!valido) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hexadecimal(String id, int desde, int hasta) {
+        long valor = 0;
+        for (int i = desde; i < hasta; i++) {
+            char c = id.charAt(i);
+            if (c != '-') {
+                valor = (valor << 4) | Character.digit(c, 16);
             }
         }
+        return valor;
+    }
+
+    // Identidad => hash y comparación del id sin escribirlo como texto (ver RegistroSocios)
+    public int hashId() {
+        return (idTexto != null) ? idTexto.hashCode() : Long.hashCode(idAlto * 31 + idBajo);
+    }
+
+    public static int hashId(String id) {
+        if (id != null && esUuid(id)) {
+            return Long.hashCode(hexadecimal(id, 0, 18) * 31 + hexadecimal(id, 19, 36));
+        }
+        return (id != null) ? id.hashCode() : 0;
+    }
+
+    public boolean tieneId(String id) {
+        if (id == null) {
+            return false;
+        }
+        if (idTexto != null) {
+            return idTexto.equals(id);
+        }
+        return esUuid(id) && hexadecimal(id, 0, 18) == idAlto && hexadecimal(id, 19, 36) == idBajo;
+    }
+
+    public boolean mismoId(Socio otro) {
+        return (idTexto != null)
+                ? idTexto.equals(otro.idTexto)
+                : otro.idTexto == null && idAlto == otro.idAlto && idBajo == otro.idBajo;
     }
 
     // Getters and Setters
     public String getId() {
-        return id;
+        return (idTexto != null) ? idTexto : new UUID(idAlto, idBajo).toString();
     }
 
     public String getNombre() {
@@ -58,24 +150,77 @@ public class Socio {
         return cedula;
     }
 
+    // Vista de las cuentas abiertas hasta ahora (las posteriores no aparecen en ella)
     public List<Cuenta> getCuentas() {
-        return Collections.unmodifiableList(cuentas);
+        int cantidad = cantidadCuentas;
+        return Collections.unmodifiableList(Arrays.asList(cuentas).subList(0, cantidad));
     }
 
-    public void agregarCuenta(Cuenta cuenta) {
+    public synchronized void agregarCuenta(Cuenta cuenta) {
         if (cuenta == null) {
             throw new IllegalArgumentException("La cuenta no puede ser nula");
         }
         // Validamos que no este repetida, si es así, lanza excepción
         validarRepetida(cuenta);
-        // Si pasa la validación, la agregamos
-        cuentas.add(cuenta);
+        // Si pasa la validación, la agregamos: primero en el arreglo y el índice, luego se publica la cantidad
+        int cantidad = cantidadCuentas;
+        Cuenta[] actuales = cuentas;
+        if (cantidad == actuales.length) {
+            actuales = Arrays.copyOf(actuales, Math.max(1, cantidad * 2));
+            actuales[cantidad] = cuenta;
+            cuentas = actuales;
+        } else {
+            actuales[cantidad] = cuenta;
+        }
+        if (cantidad + 1 > CUENTAS_SIN_INDICE) {
+            Cuenta[] indice = indiceCuentas;
+            if (indice == null || (cantidad + 1) * 2 > indice.length) {
+                // Se reconstruye completo y se publica ya lleno: los lectores nunca ven una tabla a medias
+                indice = new Cuenta[Integer.highestOneBit(cantidad + 1) * 4];
+                for (int i = 0; i <= cantidad; i++) {
+                    indexar(indice, actuales[i]);
+                }
+                indiceCuentas = indice;
+            } else {
+                indexar(indice, cuenta);
+            }
+        }
+        cantidadCuentas = cantidad + 1;
     }
 
     public Optional<Cuenta> buscarCuenta(String numeroCuenta) {
-        return cuentas.stream()
-                .filter(cuenta -> cuenta.getNumeroCuenta().equals(numeroCuenta))
-                .findFirst();
+        // Leer primero la cantidad hace visibles el arreglo y el índice de todas las altas ya terminadas
+        int cantidad = cantidadCuentas;
+        Cuenta[] indice = indiceCuentas;
+        if (indice != null) {
+            int mascara = indice.length - 1;
+            for (int i = posicion(numeroCuenta, mascara); indice[i] != null; i = (i + 1) & mascara) {
+                if (indice[i].getNumeroCuenta().equals(numeroCuenta)) {
+                    return Optional.of(indice[i]);
+                }
+            }
+            return Optional.empty();
+        }
+        Cuenta[] actuales = cuentas;
+        for (int i = 0; i < cantidad; i++) {
+            if (actuales[i].getNumeroCuenta().equals(numeroCuenta)) {
+                return Optional.of(actuales[i]);
+            }
+        }
+        return Optional.empty();
     }
 
+    private static void indexar(Cuenta[] indice, Cuenta cuenta) {
+        int mascara = indice.length - 1;
+        int i = posicion(cuenta.getNumeroCuenta(), mascara);
+        while (indice[i] != null) {
+            i = (i + 1) & mascara;
+        }
+        indice[i] = cuenta;
+    }
+
+    private static int posicion(String numeroCuenta, int mascara) {
+        int hash = numeroCuenta.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mascara;
+    }
 }
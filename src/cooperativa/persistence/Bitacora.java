@@ -0,0 +1,692 @@
+package cooperativa.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Interes;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transaccion;
+import cooperativa.transactions.Transferencia;
+
+/*
+ * Bitácora binaria de solo anexado (write-ahead log) sobre FileChannel.
+ *
+ * Formato de cada registro:
+ *   [int longitud del cuerpo][byte tipo][long secuencia][cuerpo][int CRC32 de tipo+secuencia+cuerpo]
+ *
+ * Con commit grupal, los registros se acumulan en un buffer y un único force()
+ * cubre todos los registros escritos hasta ese momento; quien llama a
+ * sincronizar() solo espera si su secuencia todavía no es durable.
+ *
+ * Tras un snapshot, compactar() descarta los registros ya cubiertos por él.
+ *
+ * Una transacción con clave de idempotencia va en un registro CLAVE que envuelve al de la transacción:
+ *   [long huella][byte resultado][long hora en milisegundos][byte tipo interno][cuerpo interno]
+ * Así la clave y el movimiento son durables juntos. Un rechazo con clave lleva tipo interno 0 y sin cuerpo.
+ *
+ * La cooperativa particionada usa una bitácora aparte, con el mismo formato, para las transferencias entre
+ * particiones: INTENCION antes de mover el dinero y FIN_TRANSFERENCIA cuando ya no queda nada por hacer.
+ *
+ * Los montos se escriben en centavos; los de registros anteriores con más decimales se redondean al leerlos
+ * (ver Codificacion.leerMonto).
+ *
+ * Para replicar, un Cursor recorre los registros durables en el orden del archivo (ver leer). Las
+ * posiciones de los cursores son lógicas: no cambian al compactar, que solo mueve la "base" del archivo.
+ */
+public class Bitacora implements Closeable {
+
+    // Tipos de registro
+    static final byte SOCIO = 1;
+    static final byte CUENTA_AHORROS = 2;
+    static final byte DEPOSITO = 3;
+    static final byte RETIRO = 4;
+    static final byte TRANSFERENCIA = 5;
+    static final byte INTERES = 6; // Formato anterior (sin fecha ni corrida, hasta 10 decimales): solo se lee
+    static final byte ABONO_INTERES = 7;
+    static final byte CLAVE = 8;
+    static final byte INTENCION = 9;
+    static final byte FIN_TRANSFERENCIA = 10;
+
+    private static final int CABECERA = 4 + 1 + 8;
+    private static final int COLA = 4;
+    private static final int TAMANO_MAXIMO_CUERPO = 1 << 20;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final Path archivo;
+    private final boolean commitGrupal;
+    private final Object escritura = new Object();
+    private final Object sincronizacion = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+    private final CRC32 crc = new CRC32();
+
+    // Protegidos por "escritura"
+    private FileChannel canal;
+    private long secuencia;
+    private long posicionEscrita;
+
+    private volatile long secuenciaPersistida;
+    // Para los lectores de réplica (sin tomar "escritura"): archivo actual y último punto durable
+    private volatile Tramo tramo;
+    private volatile Durable durable;
+    private final Object avisos = new Object();
+
+    // Punto de corte para un snapshot: secuencia y posición en el archivo de su último registro
+    public record Corte(long secuencia, long posicion) {
+    }
+
+    // "base": posición lógica del primer byte del archivo; "compactada": los registros con secuencia
+    // menor o igual ya no están en él
+    private record Tramo(FileChannel canal, long base, long compactada) {
+    }
+
+    // Posición lógica del final del último registro durable
+    private record Durable(long secuencia, long posicion) {
+    }
+
+    // Posición de lectura de una réplica: el siguiente registro a entregar es el posterior a "secuencia"
+    public static final class Cursor {
+        private long secuencia;
+        private long posicion;
+
+        private Cursor(long secuencia, long posicion) {
+            this.secuencia = secuencia;
+            this.posicion = posicion;
+        }
+
+        public long getSecuencia() {
+            return secuencia;
+        }
+    }
+
+    private Bitacora(Path archivo, FileChannel canal, boolean commitGrupal, long secuencia, long posicion,
+                     long compactada) {
+        this.archivo = archivo;
+        this.canal = canal;
+        this.commitGrupal = commitGrupal;
+        this.secuencia = secuencia;
+        this.posicionEscrita = posicion;
+        this.secuenciaPersistida = secuencia;
+        this.tramo = new Tramo(canal, 0, compactada);
+        this.durable = new Durable(secuencia, posicion);
+    }
+
+    // Abre (o crea) la bitácora, entrega al receptor todos los registros válidos y la deja lista para anexar.
+    // Un registro final incompleto o corrupto (caída a mitad de escritura) se descarta.
+    // La numeración continúa al menos desde "secuenciaMinima" (el corte del último snapshot).
+    public static Bitacora abrir(Path archivo, boolean commitGrupal, long secuenciaMinima, ReceptorBitacora receptor)
+            throws IOException {
+        FileChannel canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long[] fin = reproducir(canal, receptor);
+            canal.truncate(fin[0]);
+            canal.position(fin[0]);
+            long ultima = Math.max(fin[1], secuenciaMinima);
+            // Sin registros, todo lo anterior quedó en el snapshot
+            long compactada = (fin[2] > 0) ? fin[2] - 1 : ultima;
+            return new Bitacora(archivo, canal, commitGrupal, ultima, fin[0], compactada);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    // Devuelve {posición del último registro válido, última secuencia, primera secuencia (0 si no hay registros)}
+    private static long[] reproducir(FileChannel canal, ReceptorBitacora receptor) throws IOException {
+        canal.position(0);
+        // No se cierra el stream: cerraría también el canal
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(canal), TAMANO_BUFFER));
+        CRC32 verificador = new CRC32();
+        long valido = 0;
+        long ultimaSecuencia = 0;
+        long primeraSecuencia = 0;
+        while (true) {
+            byte[] registro;
+            int crcLeido;
+            try {
+                int longitud = in.readInt();
+                if (longitud < 0 || longitud > TAMANO_MAXIMO_CUERPO) {
+                    break;
+                }
+                registro = new byte[1 + 8 + longitud];
+                in.readFully(registro);
+                crcLeido = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            verificador.reset();
+            verificador.update(registro);
+            if ((int) verificador.getValue() != crcLeido) {
+                break;
+            }
+            long seq = despachar(registro, 0, registro.length, receptor);
+            valido += 4 + registro.length + COLA;
+            ultimaSecuencia = seq;
+            if (primeraSecuencia == 0) {
+                primeraSecuencia = seq;
+            }
+        }
+        return new long[] { valido, ultimaSecuencia, primeraSecuencia };
+    }
+
+    // Entrega al receptor los registros completos de "registros" (tal como los devuelve leer) y devuelve
+    // la secuencia del último. En una réplica, un registro que no pasa el CRC corta la conexión.
+    public static long reproducir(byte[] registros, ReceptorBitacora receptor) throws IOException {
+        ByteBuffer datos = ByteBuffer.wrap(registros);
+        CRC32 verificador = new CRC32();
+        long ultima = 0;
+        while (datos.hasRemaining()) {
+            int longitud = (datos.remaining() >= 4) ? datos.getInt() : -1;
+            if (longitud < 0 || longitud > TAMANO_MAXIMO_CUERPO || datos.remaining() < 1 + 8 + longitud + COLA) {
+                throw new IOException("Registro de bitácora incompleto.");
+            }
+            int inicio = datos.position();
+            verificador.reset();
+            verificador.update(registros, inicio, 1 + 8 + longitud);
+            datos.position(inicio + 1 + 8 + longitud);
+            if ((int) verificador.getValue() != datos.getInt()) {
+                throw new IOException("Registro de bitácora corrupto.");
+            }
+            ultima = despachar(registros, inicio, 1 + 8 + longitud, receptor);
+        }
+        return ultima;
+    }
+
+    // "registro": [tipo][secuencia][cuerpo] ya verificado; devuelve la secuencia
+    private static long despachar(byte[] registro, int desde, int longitud, ReceptorBitacora receptor)
+            throws IOException {
+        ByteBuffer cabecera = ByteBuffer.wrap(registro, desde, 9);
+        byte tipo = cabecera.get();
+        long seq = cabecera.getLong();
+        DataInputStream cuerpo = new DataInputStream(
+                new ByteArrayInputStream(registro, desde + 9, longitud - 9));
+        try {
+            despachar(tipo, seq, cuerpo, receptor);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("La bitácora no coincide con el estado en la secuencia " + seq, e);
+        }
+        return seq;
+    }
+
+    private static void despachar(byte tipo, long seq, DataInputStream in, ReceptorBitacora receptor)
+            throws Exception {
+        switch (tipo) {
+            case SOCIO -> receptor.socio(seq, in.readUTF(), in.readUTF(), in.readUTF());
+            case CUENTA_AHORROS -> receptor.cuentaAhorros(seq, in.readUTF(), in.readUTF(),
+                    Codificacion.leerMonto(in), Codificacion.leerFecha(in), Codificacion.leerDecimal(in), 0);
+            case DEPOSITO -> receptor.deposito(seq, in.readUTF(), Codificacion.leerMonto(in),
+                    Codificacion.leerFecha(in));
+            case RETIRO -> receptor.retiro(seq, in.readUTF(), Codificacion.leerMonto(in),
+                    Codificacion.leerFecha(in));
+            case TRANSFERENCIA -> receptor.transferencia(seq, in.readUTF(), in.readUTF(),
+                    Codificacion.leerMonto(in), Codificacion.leerFecha(in));
+            case INTERES -> {
+                String numeroCuenta = in.readUTF();
+                BigDecimal monto = Codificacion.leerMonto(in);
+                // Un interés que redondeado queda en cero no se aplica, igual que hoy no se abona
+                if (monto.signum() != 0) {
+                    receptor.interes(seq, numeroCuenta, monto, null, 0);
+                }
+            }
+            case ABONO_INTERES -> receptor.interes(seq, in.readUTF(), Codificacion.leerMonto(in),
+                    Codificacion.leerFecha(in), in.readLong());
+            case INTENCION -> receptor.intencionTransferencia(seq, in.readUTF(), in.readUTF(), in.readUTF(),
+                    Codificacion.leerMonto(in), Codificacion.leerFecha(in));
+            case FIN_TRANSFERENCIA -> receptor.finTransferencia(seq, in.readUTF());
+            case CLAVE -> {
+                long huella = in.readLong();
+                byte resultado = in.readByte();
+                long milis = in.readLong();
+                byte interno = in.readByte();
+                if (interno == CLAVE) {
+                    throw new IllegalStateException("Registro de clave anidado.");
+                }
+                if (interno != 0) {
+                    despachar(interno, seq, in, receptor);
+                }
+                receptor.idempotencia(seq, huella, resultado, milis);
+            }
+            default -> throw new IllegalStateException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+
+    // Registro de operaciones: devuelven la secuencia asignada, que debe pasarse a sincronizar()
+    public long registrarSocio(Socio socio) {
+        Cuerpo cuerpo = new Cuerpo();
+        cuerpo.texto(socio.getId()).texto(socio.getNombre()).texto(socio.getCedula());
+        return agregar(SOCIO, cuerpo.bytes());
+    }
+
+    public long registrarCuenta(String cedula, Cuenta cuenta) {
+        if (!(cuenta instanceof CuentaAhorros ahorros)) {
+            throw new IllegalArgumentException("Tipo de cuenta no soportado por la bitácora.");
+        }
+        Cuerpo cuerpo = new Cuerpo();
+        cuerpo.texto(cedula).texto(ahorros.getNumeroCuenta()).decimal(ahorros.getSaldo())
+                .fecha(ahorros.getFechaApertura()).decimal(ahorros.getTasaInteresAnual());
+        return agregar(CUENTA_AHORROS, cuerpo.bytes());
+    }
+
+    public long registrarTransaccion(Transaccion transaccion) {
+        Cuerpo cuerpo = new Cuerpo();
+        byte tipo = escribirTransaccion(cuerpo, transaccion);
+        return agregar(tipo, cuerpo.bytes());
+    }
+
+    // Transacción con clave de idempotencia: la huella y el resultado quedan en el mismo registro
+    public long registrarTransaccion(Transaccion transaccion, long huella, byte resultado) {
+        Cuerpo interno = new Cuerpo();
+        byte tipo = escribirTransaccion(interno, transaccion);
+        Cuerpo cuerpo = new Cuerpo();
+        cuerpo.entero(huella).octeto(resultado).entero(System.currentTimeMillis()).octeto(tipo)
+                .agregar(interno.bytes());
+        return agregar(CLAVE, cuerpo.bytes());
+    }
+
+    // Clave de una transacción que no movió dinero (por ejemplo, un retiro rechazado)
+    public long registrarClave(long huella, byte resultado) {
+        Cuerpo cuerpo = new Cuerpo();
+        cuerpo.entero(huella).octeto(resultado).entero(System.currentTimeMillis()).octeto((byte) 0);
+        return agregar(CLAVE, cuerpo.bytes());
+    }
+
+    private static byte escribirTransaccion(Cuerpo cuerpo, Transaccion transaccion) {
+        if (transaccion instanceof Deposito deposito) {
+            cuerpo.texto(deposito.getCuenta().getNumeroCuenta()).decimal(deposito.getMonto()).fecha(deposito.getFecha());
+            return DEPOSITO;
+        }
+        if (transaccion instanceof Retiro retiro) {
+            cuerpo.texto(retiro.getCuenta().getNumeroCuenta()).decimal(retiro.getMonto()).fecha(retiro.getFecha());
+            return RETIRO;
+        }
+        if (transaccion instanceof Transferencia transferencia) {
+            cuerpo.texto(transferencia.getOrigen().getNumeroCuenta())
+                    .texto(transferencia.getDestino().getNumeroCuenta())
+                    .decimal(transferencia.getMonto()).fecha(transferencia.getFecha());
+            return TRANSFERENCIA;
+        }
+        if (transaccion instanceof Interes interes) {
+            cuerpo.texto(interes.getCuenta().getNumeroCuenta()).decimal(interes.getMonto())
+                    .fecha(interes.getFecha()).entero(interes.getCorrida());
+            return ABONO_INTERES;
+        }
+        throw new IllegalArgumentException("Tipo de transacción no soportado por la bitácora.");
+    }
+
+    // Transferencias entre particiones (ver CooperativaParticionada): "id" identifica la transferencia
+    public long registrarIntencion(String id, String origen, String destino, BigDecimal monto, LocalDateTime fecha) {
+        Cuerpo cuerpo = new Cuerpo();
+        cuerpo.texto(id).texto(origen).texto(destino).decimal(monto).fecha(fecha);
+        return agregar(INTENCION, cuerpo.bytes());
+    }
+
+    public long registrarFinTransferencia(String id) {
+        Cuerpo cuerpo = new Cuerpo();
+        cuerpo.texto(id);
+        return agregar(FIN_TRANSFERENCIA, cuerpo.bytes());
+    }
+
+    public static boolean soporta(Cuenta cuenta) {
+        return cuenta instanceof CuentaAhorros;
+    }
+
+    public static boolean soporta(Transaccion transaccion) {
+        return transaccion instanceof Deposito
+                || transaccion instanceof Retiro
+                || transaccion instanceof Transferencia
+                || transaccion instanceof Interes;
+    }
+
+    private long agregar(byte tipo, byte[] cuerpo) {
+        int total = CABECERA + cuerpo.length + COLA;
+        synchronized (escritura) {
+            try {
+                if (buffer.remaining() < total) {
+                    volcarBuffer();
+                }
+                ByteBuffer destino = (buffer.remaining() >= total) ? buffer : ByteBuffer.allocate(total);
+                int inicio = destino.position();
+                destino.putInt(cuerpo.length).put(tipo).putLong(++secuencia).put(cuerpo);
+
+                ByteBuffer vista = destino.duplicate();
+                vista.position(inicio + 4).limit(destino.position());
+                crc.reset();
+                crc.update(vista);
+                destino.putInt((int) crc.getValue());
+
+                if (destino != buffer) {
+                    destino.flip();
+                    escribir(destino);
+                }
+                posicionEscrita += total;
+
+                if (!commitGrupal) {
+                    // Modo un fsync por registro
+                    volcarBuffer();
+                    canal.force(false);
+                    secuenciaPersistida = secuencia;
+                    avisarDurable(new Durable(secuencia, tramo.base() + posicionEscrita));
+                }
+                return secuencia;
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo escribir en la bitácora.", e);
+            }
+        }
+    }
+
+    // Espera a que el registro "hasta" y los anteriores sean durables. Un solo force() cubre a todos los que esperan.
+    public void sincronizar(long hasta) {
+        if (secuenciaPersistida >= hasta) {
+            return;
+        }
+        synchronized (sincronizacion) {
+            if (secuenciaPersistida >= hasta) {
+                return;
+            }
+            try {
+                long objetivo;
+                long posicion;
+                FileChannel actual;
+                synchronized (escritura) {
+                    volcarBuffer();
+                    objetivo = secuencia;
+                    posicion = tramo.base() + posicionEscrita;
+                    actual = canal;
+                }
+                actual.force(false);
+                secuenciaPersistida = objetivo;
+                avisarDurable(new Durable(objetivo, posicion));
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo sincronizar la bitácora.", e);
+            }
+        }
+    }
+
+    public Corte marcarCorte() {
+        synchronized (escritura) {
+            return new Corte(secuencia, posicionEscrita);
+        }
+    }
+
+    // Reescribe la bitácora sin los registros hasta el corte (ya incluidos en un snapshot durable).
+    // Solo copia lo anexado después del corte, así que los anexos se detienen por poco tiempo.
+    public void compactar(Corte corte) throws IOException {
+        synchronized (sincronizacion) {
+            synchronized (escritura) {
+                volcarBuffer();
+                Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+                long restante = posicionEscrita - corte.posicion();
+                try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    long copiado = 0;
+                    while (copiado < restante) {
+                        copiado += canal.transferTo(corte.posicion() + copiado, restante - copiado, nuevo);
+                    }
+                    nuevo.force(true);
+                }
+                canal.close();
+                Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                canal.position(restante);
+                posicionEscrita = restante;
+                secuenciaPersistida = secuencia;
+                tramo = new Tramo(canal, tramo.base() + corte.posicion(), corte.secuencia());
+                avisarDurable(new Durable(secuencia, tramo.base() + posicionEscrita));
+            }
+        }
+    }
+
+    // Debe llamarse con "escritura" tomado
+    private void volcarBuffer() throws IOException {
+        buffer.flip();
+        escribir(buffer);
+        buffer.clear();
+    }
+
+    private void escribir(ByteBuffer datos) throws IOException {
+        while (datos.hasRemaining()) {
+            canal.write(datos);
+        }
+    }
+
+    // Replicación => los lectores solo ven registros durables: una réplica nunca queda por delante de lo que
+    // el primario recuperaría tras una caída. Un hilo lector no debe interrumpirse: FileChannel cerraría el
+    // canal, y con él la bitácora.
+
+    // Cursor que entrega los registros posteriores a "desde"; null si ya se compactaron (hace falta un snapshot)
+    public Cursor cursor(long desde) throws IOException {
+        while (true) {
+            Tramo actual = tramo;
+            Durable hasta = durable;
+            if (desde < actual.compactada()) {
+                return null;
+            }
+            if (desde > hasta.secuencia()) {
+                throw new IllegalArgumentException("La secuencia " + desde + " es posterior a la última de la bitácora.");
+            }
+            try {
+                ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+                long posicion = actual.base();
+                while (posicion < hasta.posicion()) {
+                    cabecera.clear();
+                    leerCompleto(actual.canal(), cabecera, posicion - actual.base());
+                    int longitud = cabecera.getInt(0);
+                    if (cabecera.getLong(5) > desde) {
+                        break;
+                    }
+                    posicion += CABECERA + longitud + COLA;
+                }
+                return new Cursor(desde, posicion);
+            } catch (ClosedChannelException e) {
+                esperarNuevoTramo(actual, e);
+            }
+        }
+    }
+
+    // Cursor en un corte (ver marcarCorte): el snapshot de ese corte más lo que entrega el cursor es el estado
+    // completo. Se llama sin compactaciones en curso y con el corte ya durable.
+    public Cursor cursor(Corte corte) {
+        synchronized (escritura) {
+            return new Cursor(corte.secuencia(), tramo.base() + corte.posicion());
+        }
+    }
+
+    // Registros completos y durables siguientes al cursor, hasta "maximo" bytes (al menos uno si hay), en el
+    // formato del archivo; avanza el cursor. Devuelve un arreglo vacío si no hay nada nuevo y null si el
+    // cursor quedó detrás de una compactación.
+    public byte[] leer(Cursor cursor, int maximo) throws IOException {
+        while (true) {
+            Tramo actual = tramo;
+            Durable hasta = durable;
+            if (cursor.posicion < actual.base()) {
+                return null;
+            }
+            long disponible = hasta.posicion() - cursor.posicion;
+            if (disponible <= 0) {
+                return new byte[0];
+            }
+            try {
+                ByteBuffer datos = ByteBuffer.allocate((int) Math.min(disponible, Math.max(maximo, CABECERA)));
+                leerCompleto(actual.canal(), datos, cursor.posicion - actual.base());
+                // Solo registros completos; si el primero no cabe, se lee entero
+                int fin = 0;
+                long ultima = cursor.secuencia;
+                while (fin + CABECERA <= datos.limit()) {
+                    int total = CABECERA + datos.getInt(fin) + COLA;
+                    if (fin + total > datos.limit()) {
+                        if (fin == 0) {
+                            datos = ByteBuffer.allocate(total);
+                            leerCompleto(actual.canal(), datos, cursor.posicion - actual.base());
+                            ultima = datos.getLong(5);
+                            fin = total;
+                        }
+                        break;
+                    }
+                    ultima = datos.getLong(fin + 5);
+                    fin += total;
+                }
+                cursor.secuencia = ultima;
+                cursor.posicion += fin;
+                return Arrays.copyOf(datos.array(), fin);
+            } catch (ClosedChannelException e) {
+                esperarNuevoTramo(actual, e);
+            }
+        }
+    }
+
+    // Espera hasta "milis" a que haya registros durables posteriores a "secuencia"
+    public boolean esperarDurable(long secuencia, long milis) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milis);
+        synchronized (avisos) {
+            while (durable.secuencia() <= secuencia) {
+                long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                if (restante <= 0) {
+                    return false;
+                }
+                avisos.wait(restante);
+            }
+            return true;
+        }
+    }
+
+    public long getSecuenciaPersistida() {
+        return secuenciaPersistida;
+    }
+
+    private void avisarDurable(Durable nuevo) {
+        durable = nuevo;
+        synchronized (avisos) {
+            avisos.notifyAll();
+        }
+    }
+
+    // Un lector encontró el canal cerrado: si fue una compactación, el tramo nuevo ya está publicado al
+    // soltar "escritura"; si no, la bitácora se cerró
+    private void esperarNuevoTramo(Tramo anterior, ClosedChannelException error) throws ClosedChannelException {
+        synchronized (escritura) {
+            if (tramo == anterior) {
+                throw error;
+            }
+        }
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            if (canal.read(destino, posicion + destino.position()) < 0) {
+                throw new EOFException("La bitácora terminó antes de lo esperado.");
+            }
+        }
+        destino.flip();
+    }
+
+    public long getUltimaSecuencia() {
+        synchronized (escritura) {
+            return secuencia;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long fin;
+        synchronized (escritura) {
+            if (!canal.isOpen()) {
+                return;
+            }
+            fin = secuencia;
+        }
+        sincronizar(fin);
+        synchronized (escritura) {
+            canal.close();
+        }
+    }
+
+    private static final class Cuerpo {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Cuerpo texto(String valor) {
+            try {
+                out.writeUTF(valor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Cuerpo decimal(BigDecimal valor) {
+            try {
+                Codificacion.escribirDecimal(out, valor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Cuerpo entero(long valor) {
+            try {
+                out.writeLong(valor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Cuerpo octeto(byte valor) {
+            try {
+                out.writeByte(valor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Cuerpo agregar(byte[] valor) {
+            try {
+                out.write(valor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Cuerpo fecha(LocalDateTime valor) {
+            try {
+                Codificacion.escribirFecha(out, valor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        byte[] bytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cooperativa.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import cooperativa.models.Dinero;
+
+// Codificación binaria compartida por la bitácora y los snapshots
+final class Codificacion {
+
+    private Codificacion() {
+    }
+
+    static void escribirDecimal(DataOutput out, BigDecimal valor) throws IOException {
+        byte[] sinEscala = valor.unscaledValue().toByteArray();
+        out.writeInt(valor.scale());
+        out.writeShort(sinEscala.length);
+        out.write(sinEscala);
+    }
+
+    static BigDecimal leerDecimal(DataInput in) throws IOException {
+        int escala = in.readInt();
+        byte[] sinEscala = new byte[in.readUnsignedShort()];
+        in.readFully(sinEscala);
+        return new BigDecimal(new BigInteger(sinEscala), escala);
+    }
+
+    // Montos y saldos. Los escritos antes de guardar el dinero en centavos pueden traer más de 2 decimales
+    // (el interés llevaba 10): se redondean HALF_UP a centavos, la misma regla con la que hoy se abona el
+    // interés. Los actuales ya vienen en centavos y no cambian.
+    static BigDecimal leerMonto(DataInput in) throws IOException {
+        BigDecimal monto = leerDecimal(in);
+        return (monto.scale() > Dinero.ESCALA) ? monto.setScale(Dinero.ESCALA, RoundingMode.HALF_UP) : monto;
+    }
+
+    static void escribirFecha(DataOutput out, LocalDateTime valor) throws IOException {
+        out.writeLong(valor.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(valor.getNano());
+    }
+
+    static LocalDateTime leerFecha(DataInput in) throws IOException {
+        long segundos = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,34 @@
+package cooperativa.persistence;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Recibe, en orden, los registros leídos de la bitácora durante la recuperación
+public interface ReceptorBitacora {
+
+    void socio(long secuencia, String id, String nombre, String cedula) throws Exception;
+
+    void cuentaAhorros(long secuencia, String cedula, String numeroCuenta, BigDecimal saldo,
+            LocalDateTime fechaApertura, BigDecimal tasaInteresAnual, long ultimaCorridaInteres) throws Exception;
+
+    void deposito(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) throws Exception;
+
+    void retiro(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) throws Exception;
+
+    void transferencia(long secuencia, String origen, String destino, BigDecimal monto, LocalDateTime fecha)
+            throws Exception;
+
+    // "fecha" es null y "corrida" 0 en los registros de interés anteriores a las corridas
+    void interes(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha, long corrida)
+            throws Exception;
+
+    // Clave de idempotencia (huella de 64 bits) con el resultado de su transacción y la hora en que se anotó.
+    // Si el registro también trae la transacción, llega después de ella con la misma secuencia.
+    void idempotencia(long secuencia, long huella, byte resultado, long milis) throws Exception;
+
+    // Solo en la bitácora de transferencias entre particiones (ver CooperativaParticionada)
+    void intencionTransferencia(long secuencia, String id, String origen, String destino, BigDecimal monto,
+            LocalDateTime fecha) throws Exception;
+
+    void finTransferencia(long secuencia, String id) throws Exception;
+}
@@ -0,0 +1,339 @@
+package cooperativa.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import cooperativa.models.ArchivoHistorial;
+import cooperativa.models.Cuenta;
+import cooperativa.transactions.CodificacionCompacta;
+import cooperativa.transactions.Transaccion;
+
+/*
+ * Historial de transacciones en disco: segmentos de tamaño fijo mapeados en memoria
+ * (MappedByteBuffer), escritos en orden global y leídos de vuelta sin pasar por el heap.
+ *
+ * Cada registro ocupa 49 bytes (ver CodificacionCompacta):
+ *   [long fecha en nanos][long monto en centavos][long corrida][long anterior 1][long anterior 2]
+ *   [int cuenta 1][int cuenta 2][byte tipo]
+ *
+ * Las cuentas se guardan como enteros internados (el primer registro de cada cuenta le asigna
+ * el siguiente). "anterior" es la posición del registro previo de la misma cuenta (-1 si no hay),
+ * así el historial de una cuenta se recorre como una cadena sin índices en memoria. La cuenta 2
+ * y su anterior solo se usan en las transferencias (destino). Un tipo 0 marca un registro sin escribir
+ * y ANULADO uno reservado cuya transacción no llegó a aplicarse (los recorridos lo saltean).
+ *
+ * Las escrituras no comparten candado: cada una reserva su número de registro (reservar) antes de tocar
+ * las cuentas y después escribe en su lugar. El segmento se crea antes de reservar, así que si crearlo
+ * falla no queda ningún número reservado. El tipo va al final, detrás de una barrera, y quien recorre
+ * un registro reservado que todavía tiene tipo 0 espera a que se complete, con un límite.
+ *
+ * No es durable: la bitácora sigue siendo la fuente de verdad y al recuperarla se reconstruye
+ * el historial. Los archivos se crean en un directorio temporal (con el primer segmento); close() borra los archivos (y el
+ * directorio, si lo creó temporal()). Después de cerrar no se puede leer ni escribir. Los mapeos no se
+ * liberan a mano: un acceso en curso podría seguir usándolos, así que quedan para el recolector.
+ */
+public class SegmentosHistorial implements ArchivoHistorial, Closeable {
+
+    private static final int BITS_SEGMENTO = 26;
+    private static final int TAMANO_SEGMENTO = 1 << BITS_SEGMENTO; // 64 MB
+    private static final int TAMANO_REGISTRO = 8 + 8 + 8 + 8 + 8 + 4 + 4 + 1;
+    // Todos los segmentos salvo el último están llenos: el registro número i se ubica sin leer los anteriores
+    private static final int REGISTROS_POR_SEGMENTO = TAMANO_SEGMENTO / TAMANO_REGISTRO;
+    private static final byte ANULADO = -1;
+    // Un registro reservado se completa enseguida; si no, quien lo reservó falló sin anularlo
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // En temporal() se crea con el primer segmento (bajo el candado de "segmentos") y se borra al cerrar
+    private Path directorio;
+    private final boolean temporal;
+    private volatile boolean cerrado;
+    // Segmentos mapeados; solo se agregan al final, bajo el candado de la lista
+    private final List<MappedByteBuffer> segmentos = new CopyOnWriteArrayList<>();
+    // Número del próximo registro; reservar uno es un getAndIncrement
+    private final AtomicLong registros = new AtomicLong();
+
+    // Cuenta no redefine equals ni hashCode: el mapa las compara por identidad. Los ids nuevos se asignan
+    // bajo el candado del mapa; los ya asignados se leen sin candado.
+    private final Map<Cuenta, Integer> ids = new ConcurrentHashMap<>();
+    // Cuenta de cada id; se publica antes del tipo del primer registro que usa el id
+    private volatile Cuenta[] cuentasPorId = new Cuenta[1024];
+
+    public SegmentosHistorial(Path directorio) {
+        this(directorio, false);
+    }
+
+    private SegmentosHistorial(Path directorio, boolean temporal) {
+        this.directorio = directorio;
+        this.temporal = temporal;
+    }
+
+    // Sin segmentos no crea nada en disco: el directorio aparece con la primera escritura
+    public static SegmentosHistorial temporal() {
+        return new SegmentosHistorial(null, true);
+    }
+
+    // Reserva el número del próximo registro, con su segmento ya creado. Quien reserva debe llamar después
+    // a escribir o a anular con ese número: los recorridos esperan a que el registro se complete.
+    public long reservar() {
+        verificarAbierto();
+        while (true) {
+            long numero = registros.get();
+            segmentoParaEscribir((int) (numero / REGISTROS_POR_SEGMENTO));
+            if (registros.compareAndSet(numero, numero + 1)) {
+                return numero;
+            }
+        }
+    }
+
+    // Reserva y escribe en un paso
+    public long escribir(Transaccion transaccion, long anterior1, long anterior2) {
+        return escribir(reservar(), transaccion, anterior1, anterior2);
+    }
+
+    // Escribe la transacción en el registro reservado "numero" y devuelve su posición. "anterior1" y
+    // "anterior2" son las últimas posiciones de la cuenta (u origen) y del destino; quien llama las mantiene
+    // bajo los candados de las cuentas.
+    public long escribir(long numero, Transaccion transaccion, long anterior1, long anterior2) {
+        byte tipo = CodificacionCompacta.tipo(transaccion);
+        if (tipo == CodificacionCompacta.OTRA) {
+            anular(numero);
+            throw new IllegalArgumentException("Tipo de transacción no soportado por el historial.");
+        }
+        Cuenta destino = CodificacionCompacta.destino(transaccion);
+        int id1 = id(CodificacionCompacta.cuenta(transaccion));
+        int id2 = (destino != null) ? id(destino) : -1;
+
+        long posicion = posicionDelRegistro(numero);
+        ByteBuffer segmento = segmentos.get((int) (numero / REGISTROS_POR_SEGMENTO));
+        int desplazamiento = desplazamiento(posicion);
+        segmento.putLong(desplazamiento, CodificacionCompacta.fecha(transaccion));
+        segmento.putLong(desplazamiento + 8, transaccion.getMontoCentavos());
+        segmento.putLong(desplazamiento + 16, CodificacionCompacta.corrida(transaccion));
+        segmento.putLong(desplazamiento + 24, anterior1);
+        segmento.putLong(desplazamiento + 32, anterior2);
+        segmento.putInt(desplazamiento + 40, id1);
+        segmento.putInt(desplazamiento + 44, id2);
+        // El tipo se escribe al final: un recorrido concurrente no ve registros a medias
+        VarHandle.releaseFence();
+        segmento.put(desplazamiento + 48, tipo);
+        return posicion;
+    }
+
+    // Libera un registro reservado cuya transacción no se aplicó
+    public void anular(long numero) {
+        long posicion = posicionDelRegistro(numero);
+        ByteBuffer segmento = segmentos.get((int) (numero / REGISTROS_POR_SEGMENTO));
+        VarHandle.releaseFence();
+        segmento.put(desplazamiento(posicion) + 48, ANULADO);
+    }
+
+    private int id(Cuenta cuenta) {
+        Integer id = ids.get(cuenta);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ids) {
+            id = ids.get(cuenta);
+            if (id == null) {
+                id = ids.size();
+                Cuenta[] porId = cuentasPorId;
+                if (id == porId.length) {
+                    porId = Arrays.copyOf(porId, id * 2);
+                }
+                porId[id] = cuenta;
+                cuentasPorId = porId;
+                ids.put(cuenta, id);
+            }
+            return id;
+        }
+    }
+
+    // Crea los segmentos que falten hasta "numero" (solo la primera reserva de cada segmento toma el candado)
+    private void segmentoParaEscribir(int numero) {
+        if (numero < segmentos.size()) {
+            return;
+        }
+        synchronized (segmentos) {
+            verificarAbierto();
+            while (segmentos.size() <= numero) {
+                nuevoSegmento();
+            }
+        }
+    }
+
+    // Debe llamarse con el candado de "segmentos" tomado
+    private void nuevoSegmento() {
+        int numero = segmentos.size();
+        if (directorio == null) {
+            try {
+                directorio = Files.createTempDirectory("cooperativa-historial");
+                directorio.toFile().deleteOnExit();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo crear el directorio del historial.", e);
+            }
+        }
+        Path archivo = directorio.resolve(nombreSegmento(numero));
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            archivo.toFile().deleteOnExit();
+            // El mapeo sigue siendo válido después de cerrar el canal
+            segmentos.add(canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMANO_SEGMENTO));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento de historial " + archivo, e);
+        }
+    }
+
+    private static String nombreSegmento(int numero) {
+        return String.format("historial-%06d.seg", numero);
+    }
+
+    // Posición que tendrá el próximo registro (límite exclusivo para recorrer). Los registros anteriores ya
+    // están reservados, aunque alguno puede estar escribiéndose todavía.
+    public long getSiguientePosicion() {
+        return posicionDelRegistro(registros.get());
+    }
+
+    // Todas las transacciones con posición < limite, en el orden en que se escribieron. El stream se divide
+    // en partes iguales, así que admite recorridos en paralelo.
+    public Stream<Transaccion> transacciones(long limite) {
+        return transacciones(0, limite);
+    }
+
+    // Las transacciones con posición entre "desde" (inclusive) y "limite" (exclusivo)
+    public Stream<Transaccion> transacciones(long desde, long limite) {
+        if (limite <= desde) {
+            return Stream.empty();
+        }
+        return LongStream.range(numeroDelRegistro(desde), numeroDelRegistro(limite))
+                .map(SegmentosHistorial::posicionDelRegistro)
+                .mapToObj(this::leer)
+                .filter(Objects::nonNull);
+    }
+
+    private static long numeroDelRegistro(long posicion) {
+        return (posicion >>> BITS_SEGMENTO) * REGISTROS_POR_SEGMENTO + desplazamiento(posicion) / TAMANO_REGISTRO;
+    }
+
+    private static long posicionDelRegistro(long numero) {
+        return ((numero / REGISTROS_POR_SEGMENTO) << BITS_SEGMENTO)
+                + (numero % REGISTROS_POR_SEGMENTO) * TAMANO_REGISTRO;
+    }
+
+    @Override
+    public Stream<Transaccion> transaccionesDeCuenta(Cuenta cuenta, long posicion, long limite) {
+        // La cadena va de la más reciente a la más antigua: se juntan las posiciones y se leen al revés
+        long[] posiciones = posicionesDeCuenta(cuenta, posicion).filter(p -> p < limite).toArray();
+        return LongStream.range(0, posiciones.length)
+                .map(i -> posiciones[posiciones.length - 1 - (int) i])
+                .mapToObj(this::leer);
+    }
+
+    @Override
+    public LongStream posicionesDeCuenta(Cuenta cuenta, long posicion) {
+        Integer id = ids.get(cuenta);
+        if (id == null || posicion < 0) {
+            return LongStream.empty();
+        }
+        int idCuenta = id;
+        return LongStream.iterate(posicion, p -> p >= 0, p -> anteriorDe(idCuenta, p));
+    }
+
+    @Override
+    public Transaccion transaccion(long posicion) {
+        return leer(posicion);
+    }
+
+    private long anteriorDe(int id, long posicion) {
+        ByteBuffer segmento = segmento(posicion);
+        int i = desplazamiento(posicion);
+        // En una transferencia, la cuenta 1 es el origen y la 2 el destino
+        return (segmento.getInt(i + 40) == id) ? segmento.getLong(i + 24) : segmento.getLong(i + 32);
+    }
+
+    // null si el registro está anulado
+    private Transaccion leer(long posicion) {
+        ByteBuffer segmento = segmento(posicion);
+        int i = desplazamiento(posicion);
+        // Un registro reservado pero a medio escribir se completa enseguida: la escritura ya está en curso
+        byte tipo;
+        long limite = 0;
+        while (true) {
+            tipo = segmento.get(i + 48);
+            VarHandle.acquireFence();
+            if (tipo != CodificacionCompacta.OTRA) {
+                break;
+            }
+            if (limite == 0) {
+                limite = System.nanoTime() + ESPERA_MAXIMA_NANOS;
+            } else if (System.nanoTime() - limite > 0) {
+                throw new IllegalStateException("El registro de historial en " + posicion + " no se completó.");
+            }
+            Thread.onSpinWait();
+        }
+        if (tipo == ANULADO) {
+            return null;
+        }
+        Cuenta[] porId = cuentasPorId;
+        int id2 = segmento.getInt(i + 44);
+        return CodificacionCompacta.crear(tipo, porId[segmento.getInt(i + 40)],
+                (id2 >= 0) ? porId[id2] : null, segmento.getLong(i + 8), segmento.getLong(i), segmento.getLong(i + 16));
+    }
+
+    private ByteBuffer segmento(long posicion) {
+        verificarAbierto();
+        return segmentos.get((int) (posicion >>> BITS_SEGMENTO));
+    }
+
+    private void verificarAbierto() {
+        if (cerrado) {
+            throw new IllegalStateException("El historial está cerrado.");
+        }
+    }
+
+    // Borra los archivos; los mapeos siguen siendo válidos (en Linux el archivo borrado sigue mapeado) hasta
+    // que el recolector reclame los buffers, así que una lectura o escritura en curso termina sin riesgo
+    @Override
+    public void close() throws IOException {
+        int cantidad;
+        Path carpeta;
+        synchronized (segmentos) {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            cantidad = segmentos.size();
+            carpeta = directorio;
+        }
+        if (carpeta == null) {
+            return;
+        }
+        for (int i = 0; i < cantidad; i++) {
+            Files.deleteIfExists(carpeta.resolve(nombreSegmento(i)));
+        }
+        if (temporal) {
+            Files.deleteIfExists(carpeta);
+        }
+    }
+
+    private static int desplazamiento(long posicion) {
+        return (int) (posicion & (TAMANO_SEGMENTO - 1));
+    }
+}
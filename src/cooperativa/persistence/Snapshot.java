@@ -0,0 +1,176 @@
+package cooperativa.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+
+/*
+ * Snapshot compacto de socios, cuentas y saldos.
+ *
+ * Formato: [int MAGIA][int FORMATO][long corte] y por cada socio
+ *   [byte 1][id][nombre][cédula][int n] + n x [número][saldo][fecha apertura][tasa][long versión]
+ *   [long última corrida de intereses] (esta última desde el formato 2)
+ * terminado en [byte 0]. Desde el formato 3 siguen las claves de idempotencia:
+ *   [int n] + n x [long huella][byte resultado][long hora en milisegundos]
+ *
+ * No detiene la cooperativa: cada cuenta se bloquea solo mientras se leen su saldo y su
+ * versión (secuencia del último registro de bitácora aplicado). Todo registro con
+ * secuencia <= corte ya está reflejado; los posteriores se distinguen por la versión.
+ * Una versión puede ser posterior al corte, así que la bitácora debe ser durable hasta
+ * ella antes de publicar el snapshot.
+ */
+public final class Snapshot {
+
+    private static final int MAGIA = 0x434F4F50; // "COOP"
+    private static final int FORMATO = 3;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    // Clave de idempotencia (ver VentanaIdempotencia)
+    public record Clave(long huella, byte resultado, long milis) {
+    }
+
+    private Snapshot() {
+    }
+
+    // Antes del reemplazo sincroniza la bitácora hasta su último registro: los saldos y versiones se leyeron
+    // sin detener las escrituras, y el snapshot no puede reflejar nada que la bitácora pierda en una caída
+    public static void escribir(Path archivo, long corte, Collection<Socio> socios, Collection<Clave> claves,
+                                Bitacora bitacora) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER));
+            escribir(out, corte, socios, claves);
+            out.flush();
+            canal.force(true);
+        }
+        bitacora.sincronizar(bitacora.getUltimaSecuencia());
+        // El snapshot anterior solo se reemplaza cuando el nuevo ya es durable
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Mismo formato sobre un stream (por ejemplo, hacia una réplica); el marcador final y la cantidad de claves
+    // delimitan su fin, así que se puede leer del mismo stream sin saber su largo. No vacía "out".
+    public static void escribir(DataOutputStream out, long corte, Collection<Socio> socios, Collection<Clave> claves)
+            throws IOException {
+        out.writeInt(MAGIA);
+        out.writeInt(FORMATO);
+        out.writeLong(corte);
+        for (Socio socio : socios) {
+            List<Cuenta> cuentas = socio.getCuentas();
+            out.writeByte(1);
+            out.writeUTF(socio.getId());
+            out.writeUTF(socio.getNombre());
+            out.writeUTF(socio.getCedula());
+            out.writeInt(cuentas.size());
+            for (Cuenta cuenta : cuentas) {
+                escribirCuenta(out, cuenta);
+            }
+        }
+        out.writeByte(0);
+        out.writeInt(claves.size());
+        for (Clave clave : claves) {
+            out.writeLong(clave.huella());
+            out.writeByte(clave.resultado());
+            out.writeLong(clave.milis());
+        }
+    }
+
+    private static void escribirCuenta(DataOutputStream out, Cuenta cuenta) throws IOException {
+        if (!(cuenta instanceof CuentaAhorros ahorros)) {
+            throw new IllegalArgumentException("Tipo de cuenta no soportado por el snapshot.");
+        }
+        BigDecimal saldo;
+        long version;
+        long corrida;
+        cuenta.getLock().lock();
+        try {
+            saldo = cuenta.getSaldo();
+            version = cuenta.getVersion();
+            corrida = ahorros.getUltimaCorridaInteres();
+        } finally {
+            cuenta.getLock().unlock();
+        }
+        out.writeUTF(ahorros.getNumeroCuenta());
+        Codificacion.escribirDecimal(out, saldo);
+        Codificacion.escribirFecha(out, ahorros.getFechaApertura());
+        Codificacion.escribirDecimal(out, ahorros.getTasaInteresAnual());
+        out.writeLong(version);
+        out.writeLong(corrida);
+    }
+
+    // Entrega socios y cuentas al receptor (la versión de cada cuenta llega como secuencia) y devuelve el corte
+    public static long leer(Path archivo, ReceptorBitacora receptor) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(archivo), TAMANO_BUFFER))) {
+            return leer(in, receptor);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("No se pudo cargar el snapshot " + archivo, e.getCause());
+        } catch (IOException e) {
+            throw new IOException("No se pudo leer el snapshot " + archivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    // true si el archivo empieza como un snapshot (ver CargaMasiva, que acepta snapshots de otra cooperativa)
+    public static boolean esSnapshot(Path archivo) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(archivo))) {
+            return in.readInt() == MAGIA;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // Lee un snapshot del stream hasta su fin, sin cerrarlo
+    public static long leer(DataInputStream in, ReceptorBitacora receptor) throws IOException {
+        int formato = (in.readInt() == MAGIA) ? in.readInt() : -1;
+        if (formato < 1 || formato > FORMATO) {
+            throw new IOException("No es un snapshot válido.");
+        }
+        long corte = in.readLong();
+        try {
+            while (in.readByte() == 1) {
+                String id = in.readUTF();
+                String nombre = in.readUTF();
+                String cedula = in.readUTF();
+                receptor.socio(0, id, nombre, cedula);
+                int cuentas = in.readInt();
+                for (int i = 0; i < cuentas; i++) {
+                    String numero = in.readUTF();
+                    BigDecimal saldo = Codificacion.leerMonto(in);
+                    LocalDateTime fechaApertura = Codificacion.leerFecha(in);
+                    BigDecimal tasa = Codificacion.leerDecimal(in);
+                    long version = in.readLong();
+                    long corrida = (formato >= 2) ? in.readLong() : 0;
+                    receptor.cuentaAhorros(version, cedula, numero, saldo, fechaApertura, tasa, corrida);
+                }
+            }
+            int claves = (formato >= 3) ? in.readInt() : 0;
+            for (int i = 0; i < claves; i++) {
+                receptor.idempotencia(0, in.readLong(), in.readByte(), in.readLong());
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo cargar el snapshot.", e);
+        }
+        return corte;
+    }
+}
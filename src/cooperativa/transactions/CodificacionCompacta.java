@@ -0,0 +1,117 @@
+package cooperativa.transactions;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Dinero;
+
+/*
+ * Codificación de las transacciones propias en campos primitivos: tipo (byte), cuenta y destino,
+ * monto en centavos, fecha en nanosegundos desde la época (UTC) y corrida de intereses.
+ * La usan el historial en memoria (columnas) y en disco (registros de tamaño fijo); las
+ * transacciones se vuelven a crear solo cuando alguien las pide.
+ */
+public final class CodificacionCompacta {
+
+    // Tipos (OTRA: transacción de otro tipo, que no se puede codificar)
+    public static final byte OTRA = 0;
+    public static final byte DEPOSITO = 1;
+    public static final byte RETIRO = 2;
+    public static final byte TRANSFERENCIA = 3;
+    public static final byte INTERES = 4;
+
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+
+    private CodificacionCompacta() {
+    }
+
+    public static byte tipo(Transaccion transaccion) {
+        if (transaccion instanceof Deposito) {
+            return DEPOSITO;
+        }
+        if (transaccion instanceof Retiro) {
+            return RETIRO;
+        }
+        if (transaccion instanceof Transferencia) {
+            return TRANSFERENCIA;
+        }
+        if (transaccion instanceof Interes) {
+            return INTERES;
+        }
+        return OTRA;
+    }
+
+    // Cuenta de la transacción (el origen en una transferencia) o null si no se puede codificar
+    public static Cuenta cuenta(Transaccion transaccion) {
+        if (transaccion instanceof Deposito deposito) {
+            return deposito.getCuenta();
+        }
+        if (transaccion instanceof Retiro retiro) {
+            return retiro.getCuenta();
+        }
+        if (transaccion instanceof Transferencia transferencia) {
+            return transferencia.getOrigen();
+        }
+        if (transaccion instanceof Interes interes) {
+            return interes.getCuenta();
+        }
+        return null;
+    }
+
+    // Cuenta de destino de una transferencia; null en los demás tipos
+    public static Cuenta destino(Transaccion transaccion) {
+        return (transaccion instanceof Transferencia transferencia) ? transferencia.getDestino() : null;
+    }
+
+    public static long fecha(Transaccion transaccion) {
+        if (transaccion instanceof Deposito deposito) {
+            return aNanos(deposito.getFecha());
+        }
+        if (transaccion instanceof Retiro retiro) {
+            return aNanos(retiro.getFecha());
+        }
+        if (transaccion instanceof Transferencia transferencia) {
+            return aNanos(transferencia.getFecha());
+        }
+        if (transaccion instanceof Interes interes) {
+            return aNanos(interes.getFecha());
+        }
+        return 0;
+    }
+
+    public static long corrida(Transaccion transaccion) {
+        return (transaccion instanceof Interes interes) ? interes.getCorrida() : 0;
+    }
+
+    public static Transaccion crear(byte tipo, Cuenta cuenta, Cuenta destino, long monto, long fecha, long corrida) {
+        LocalDateTime instante = desdeNanos(fecha);
+        switch (tipo) {
+            case DEPOSITO:
+                return new Deposito(cuenta, Dinero.aDecimal(monto), instante);
+            case RETIRO:
+                return new Retiro(cuenta, Dinero.aDecimal(monto), instante);
+            case TRANSFERENCIA:
+                return new Transferencia(cuenta, destino, Dinero.aDecimal(monto), instante);
+            case INTERES:
+                if (!(cuenta instanceof CuentaAhorros ahorros)) {
+                    throw new IllegalStateException("El interés registrado no corresponde a una cuenta de ahorros.");
+                }
+                return new Interes(ahorros, Dinero.aDecimal(monto), instante, corrida);
+            default:
+                throw new IllegalArgumentException("Tipo de transacción compacta desconocido: " + tipo);
+        }
+    }
+
+    // Las fechas caben en un long hasta el año 2262
+    public static long aNanos(LocalDateTime fecha) {
+        return Math.addExact(Math.multiplyExact(fecha.toEpochSecond(ZoneOffset.UTC), NANOS_POR_SEGUNDO),
+                fecha.getNano());
+    }
+
+    public static LocalDateTime desdeNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_POR_SEGUNDO),
+                (int) Math.floorMod(nanos, NANOS_POR_SEGUNDO), ZoneOffset.UTC);
+    }
+}
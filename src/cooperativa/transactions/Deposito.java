@@ -3,24 +3,34 @@ package cooperativa.transactions;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Metricas;
 import cooperativa.models.Cuenta;
+import cooperativa.models.Dinero;
 
 public class Deposito implements Transaccion {
 
+    private static final Contador EJECUTADOS = Metricas.contador("transacciones.depositos");
+
     private final Cuenta cuenta;
-    private final BigDecimal monto;
+    // Monto en centavos (ver Dinero)
+    private final long monto;
     private final LocalDateTime fecha;
 
     @Override
     public String toString() {
         return "Deposito{" +
                 "cuenta=" + cuenta.getNumeroCuenta() +
-                ", monto=" + monto +
+                ", monto=" + getMonto() +
                 ", fecha=" + fecha +
                 '}';
     }
 
     public Deposito(Cuenta cuenta, BigDecimal monto) {
+        this(cuenta, monto, null);
+    }
+
+    public Deposito(Cuenta cuenta, BigDecimal monto, LocalDateTime fecha) {
         if (cuenta == null) {
             throw new IllegalArgumentException("La cuenta no puede ser nula.");
         }
@@ -28,18 +38,30 @@ public class Deposito implements Transaccion {
             throw new IllegalArgumentException("El monto debe ser mayor que cero.");
         }
         this.cuenta = cuenta;
-        this.monto = monto;
-        this.fecha = LocalDateTime.now();
+        this.monto = Dinero.aCentavos(monto);
+        this.fecha = (fecha != null) ? fecha : LocalDateTime.now();
     }
 
     @Override
     public void ejecutar() {
-        cuenta.depositar(monto);
-        cuenta.registrarTransaccion(this);
+        // Operación y registro atómicos respecto a otras transacciones de la cuenta
+        cuenta.getLock().lock();
+        try {
+            cuenta.depositarCentavos(monto);
+            cuenta.registrarTransaccion(this);
+            EJECUTADOS.incrementar();
+        } finally {
+            cuenta.getLock().unlock();
+        }
     }
 
     @Override
     public BigDecimal getMonto() {
+        return Dinero.aDecimal(monto);
+    }
+
+    @Override
+    public long getMontoCentavos() {
         return monto;
     }
 
@@ -0,0 +1,84 @@
+package cooperativa.transactions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Metricas;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Dinero;
+
+public class Interes implements Transaccion {
+
+    private static final Contador EJECUTADOS = Metricas.contador("transacciones.intereses");
+
+    private final CuentaAhorros cuenta;
+    // Monto en centavos (ver Dinero)
+    private final long monto;
+    private final LocalDateTime fecha;
+    // Corrida de intereses a la que pertenece el abono (evita abonar dos veces la misma corrida)
+    private final long corrida;
+
+    @Override
+    public String toString() {
+        return "Interes{" +
+                "cuenta=" + cuenta.getNumeroCuenta() +
+                ", monto=" + getMonto() +
+                ", fecha=" + fecha +
+                ", corrida=" + corrida +
+                '}';
+    }
+
+    public Interes(CuentaAhorros cuenta, BigDecimal monto, long corrida) {
+        this(cuenta, monto, null, corrida);
+    }
+
+    public Interes(CuentaAhorros cuenta, BigDecimal monto, LocalDateTime fecha, long corrida) {
+        if (cuenta == null) {
+            throw new IllegalArgumentException("La cuenta no puede ser nula.");
+        }
+        if (monto == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("El monto debe ser mayor que cero.");
+        }
+        this.cuenta = cuenta;
+        this.monto = Dinero.aCentavos(monto);
+        this.fecha = (fecha != null) ? fecha : LocalDateTime.now();
+        this.corrida = corrida;
+    }
+
+    @Override
+    public void ejecutar() {
+        cuenta.getLock().lock();
+        try {
+            cuenta.depositarCentavos(monto);
+            cuenta.marcarCorridaInteres(corrida);
+            cuenta.registrarTransaccion(this);
+            EJECUTADOS.incrementar();
+        } finally {
+            cuenta.getLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getMonto() {
+        return Dinero.aDecimal(monto);
+    }
+
+    @Override
+    public long getMontoCentavos() {
+        return monto;
+    }
+
+    // Getters
+    public CuentaAhorros getCuenta() {
+        return cuenta;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public long getCorrida() {
+        return corrida;
+    }
+}
@@ -4,24 +4,34 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import cooperativa.exceptions.SaldoInsuficienteException;
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Metricas;
 import cooperativa.models.Cuenta;
+import cooperativa.models.Dinero;
 
 public class Retiro implements Transaccion {
 
+    private static final Contador EJECUTADOS = Metricas.contador("transacciones.retiros");
+
     private final Cuenta cuenta;
-    private final BigDecimal monto;
+    // Monto en centavos (ver Dinero)
+    private final long monto;
     private final LocalDateTime fecha;
 
     @Override
     public String toString() {
         return "Retiro{" +
                 "cuenta=" + cuenta.getNumeroCuenta() +
-                ", monto=" + monto +
+                ", monto=" + getMonto() +
                 ", fecha=" + fecha +
                 '}';
     }
 
     public Retiro(Cuenta cuenta, BigDecimal monto) {
+        this(cuenta, monto, null);
+    }
+
+    public Retiro(Cuenta cuenta, BigDecimal monto, LocalDateTime fecha) {
         if (cuenta == null) {
             throw new IllegalArgumentException("La cuenta no puede ser nula.");
         }
@@ -29,18 +39,30 @@ public class Retiro implements Transaccion {
             throw new IllegalArgumentException("El monto debe ser mayor que cero.");
         }
         this.cuenta = cuenta;
-        this.monto = monto;
-        this.fecha = LocalDateTime.now();
+        this.monto = Dinero.aCentavos(monto);
+        this.fecha = (fecha != null) ? fecha : LocalDateTime.now();
     }
 
     @Override
     public void ejecutar() throws SaldoInsuficienteException {
-        cuenta.retirar(monto);
-        cuenta.registrarTransaccion(this);
+        // Operación y registro atómicos respecto a otras transacciones de la cuenta
+        cuenta.getLock().lock();
+        try {
+            cuenta.retirarCentavos(monto);
+            cuenta.registrarTransaccion(this);
+            EJECUTADOS.incrementar();
+        } finally {
+            cuenta.getLock().unlock();
+        }
     }
 
     @Override
     public BigDecimal getMonto() {
+        return Dinero.aDecimal(monto);
+    }
+
+    @Override
+    public long getMontoCentavos() {
         return monto;
     }
 
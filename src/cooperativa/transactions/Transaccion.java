@@ -2,8 +2,15 @@ package cooperativa.transactions;
 
 import java.math.BigDecimal;
 
+import cooperativa.models.Dinero;
+
 public interface Transaccion {
     void ejecutar() throws Exception;
 
     BigDecimal getMonto();
+
+    // Monto en centavos; las transacciones propias lo guardan así y evitan la conversión
+    default long getMontoCentavos() {
+        return Dinero.aCentavos(getMonto());
+    }
 }
\ No newline at end of file
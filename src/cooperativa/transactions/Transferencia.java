@@ -0,0 +1,99 @@
+package cooperativa.transactions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import cooperativa.exceptions.SaldoInsuficienteException;
+import cooperativa.metricas.Contador;
+import cooperativa.metricas.Metricas;
+import cooperativa.models.Cuenta;
+import cooperativa.models.Dinero;
+
+public class Transferencia implements Transaccion {
+
+    private static final Contador EJECUTADOS = Metricas.contador("transacciones.transferencias");
+
+    private final Cuenta origen;
+    private final Cuenta destino;
+    // Monto en centavos (ver Dinero)
+    private final long monto;
+    private final LocalDateTime fecha;
+
+    @Override
+    public String toString() {
+        return "Transferencia{" +
+                "origen=" + origen.getNumeroCuenta() +
+                ", destino=" + destino.getNumeroCuenta() +
+                ", monto=" + getMonto() +
+                ", fecha=" + fecha +
+                '}';
+    }
+
+    public Transferencia(Cuenta origen, Cuenta destino, BigDecimal monto) {
+        this(origen, destino, monto, null);
+    }
+
+    public Transferencia(Cuenta origen, Cuenta destino, BigDecimal monto, LocalDateTime fecha) {
+        if (origen == null || destino == null) {
+            throw new IllegalArgumentException("Las cuentas de origen y destino no pueden ser nulas.");
+        }
+        if (origen == destino || origen.getNumeroCuenta().equals(destino.getNumeroCuenta())) {
+            throw new IllegalArgumentException("La cuenta de origen y destino deben ser distintas.");
+        }
+        if (monto == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("El monto debe ser mayor que cero.");
+        }
+        this.origen = origen;
+        this.destino = destino;
+        this.monto = Dinero.aCentavos(monto);
+        this.fecha = (fecha != null) ? fecha : LocalDateTime.now();
+    }
+
+    @Override
+    public void ejecutar() throws SaldoInsuficienteException {
+        // Bloqueamos siempre en el mismo orden (por número de cuenta) para que dos
+        // transferencias en sentido contrario no se esperen mutuamente
+        Cuenta primera = origen.getNumeroCuenta().compareTo(destino.getNumeroCuenta()) < 0 ? origen : destino;
+        Cuenta segunda = (primera == origen) ? destino : origen;
+
+        primera.getLock().lock();
+        try {
+            segunda.getLock().lock();
+            try {
+                // Si el retiro falla no se ha tocado ninguna cuenta
+                origen.retirarCentavos(monto);
+                destino.depositarCentavos(monto);
+                origen.registrarTransaccion(this);
+                destino.registrarTransaccion(this);
+                EJECUTADOS.incrementar();
+            } finally {
+                segunda.getLock().unlock();
+            }
+        } finally {
+            primera.getLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getMonto() {
+        return Dinero.aDecimal(monto);
+    }
+
+    @Override
+    public long getMontoCentavos() {
+        return monto;
+    }
+
+    // Getters
+    public Cuenta getOrigen() {
+        return origen;
+    }
+
+    public Cuenta getDestino() {
+        return destino;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
@@ -0,0 +1,181 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transferencia;
+
+/*
+ * Prueba de estrés del motor concurrente: transferencias, depósitos y retiros al azar desde varios hilos.
+ * El dinero solo entra con los depósitos y sale con los retiros aceptados, así que el total final tiene
+ * que ser el inicial más esa diferencia, y ningún saldo puede quedar negativo. Además, el total leído desde
+ * otro hilo en medio de una transferencia no ve solo una de sus dos partes.
+ */
+class CooperativaConcurrenciaTest {
+
+    private static final int CUENTAS = 64;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+
+    @Test
+    void transferenciasConcurrentesConservanElTotal() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local")) {
+            Cuenta[] cuentas = abrirCuentas(cooperativa);
+            int hilos = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+            long[] neto = correr(cooperativa, cuentas, hilos, 20_000);
+
+            BigDecimal esperado = SALDO_INICIAL.multiply(BigDecimal.valueOf(CUENTAS))
+                    .add(BigDecimal.valueOf(neto[0], 2));
+            assertEquals(0, esperado.compareTo(cooperativa.saldoTotalEnCuentas()));
+            assertEquals(0, esperado.compareTo(cooperativa.recalcularSaldoTotal()));
+            assertTrue(cooperativa.verificarTotales());
+            for (Cuenta cuenta : cuentas) {
+                assertTrue(cuenta.getSaldoCentavos() >= 0, "Saldo negativo en " + cuenta.getNumeroCuenta());
+            }
+            // Cada operación aceptada quedó en el historial, escrita entera aunque los hilos escribieran a la vez
+            assertEquals(neto[1], cooperativa.getCantidadTransacciones());
+            assertEquals(neto[1], cooperativa.getHistorialTransacciones().count());
+            assertEquals(neto[1], cooperativa.getHistorialTransacciones().parallel()
+                    .filter(t -> t.getMontoCentavos() > 0).count());
+        }
+    }
+
+    @Test
+    void retirosConcurrentesNuncaSobregiran() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local")) {
+            cooperativa.agregarSocio(new Socio("Socio", "1"));
+            CuentaAhorros cuenta = new CuentaAhorros("A", new BigDecimal("100.00"), null, new BigDecimal("0.01"));
+            cooperativa.agregarCuentaASocio("1", cuenta);
+            int hilos = 8;
+            CyclicBarrier salida = new CyclicBarrier(hilos);
+            ExecutorService pool = Executors.newFixedThreadPool(hilos);
+            List<Future<Integer>> aceptados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                aceptados.add(pool.submit(() -> {
+                    salida.await();
+                    int aceptadosHilo = 0;
+                    for (int i = 0; i < 100; i++) {
+                        if (cooperativa.intentarTransaccion(new Retiro(cuenta, new BigDecimal("1.00"))).isExitoso()) {
+                            aceptadosHilo++;
+                        }
+                    }
+                    return aceptadosHilo;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> futuro : aceptados) {
+                total += futuro.get();
+            }
+            pool.shutdown();
+            assertEquals(100, total);
+            assertEquals(0, cuenta.getSaldoCentavos());
+        }
+    }
+
+    // Informe de rendimiento: operaciones por segundo con 1, 2, 4... hasta la cantidad de núcleos (y al menos
+    // 4 hilos). Solo comprueba que el total se conserve; los números se imprimen para compararlos a mano.
+    @Test
+    void elTotalNoVeUnaTransferenciaAMedias() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local")) {
+            List<BigDecimal> leidos = new ArrayList<>();
+            cooperativa.agregarSocio(new Socio("Origen", "C1"));
+            cooperativa.agregarSocio(new Socio("Destino", "C2"));
+            Cuenta origen = new CuentaAhorros("N1", SALDO_INICIAL, null, new BigDecimal("0.01"));
+            // El origen ya tiene el débito cuando llega el crédito: el total se lee ahí, desde otro hilo
+            Cuenta destino = new CuentaAhorros("N2", SALDO_INICIAL, null, new BigDecimal("0.01")) {
+                @Override
+                public void depositarCentavos(long monto) {
+                    leidos.add(CompletableFuture.supplyAsync(cooperativa::saldoTotalEnCuentas).join());
+                    super.depositarCentavos(monto);
+                }
+            };
+            cooperativa.agregarCuentaASocio("C1", origen);
+            cooperativa.agregarCuentaASocio("C2", destino);
+            BigDecimal total = cooperativa.saldoTotalEnCuentas();
+
+            assertTrue(cooperativa.intentarTransaccion(new Transferencia(origen, destino, new BigDecimal("250.00")))
+                    .isExitoso());
+
+            assertEquals(1, leidos.size());
+            assertEquals(0, total.compareTo(leidos.get(0)));
+            assertEquals(0, total.compareTo(cooperativa.saldoTotalEnCuentas()));
+            assertTrue(cooperativa.verificarTotales());
+        }
+    }
+
+    private static Cuenta[] abrirCuentas(Cooperativa cooperativa) throws Exception {
+        Cuenta[] cuentas = new Cuenta[CUENTAS];
+        for (int i = 0; i < CUENTAS; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cuentas[i] = new CuentaAhorros("N" + i, SALDO_INICIAL, null, new BigDecimal("0.01"));
+            cooperativa.agregarCuentaASocio("C" + i, cuentas[i]);
+        }
+        return cuentas;
+    }
+
+    // Cada hilo hace "porHilo" operaciones al azar: depósitos, retiros y transferencias.
+    // Devuelve {centavos que entraron menos los que salieron, operaciones aceptadas}.
+    private static long[] correr(Cooperativa cooperativa, Cuenta[] cuentas, int hilos, int porHilo)
+            throws Exception {
+        CyclicBarrier salida = new CyclicBarrier(hilos);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<Future<long[]>> futuros = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            long semilla = h;
+            futuros.add(pool.submit(() -> {
+                SplittableRandom aleatorio = new SplittableRandom(semilla);
+                long neto = 0;
+                long aceptadas = 0;
+                salida.await();
+                for (int i = 0; i < porHilo; i++) {
+                    Cuenta origen = cuentas[aleatorio.nextInt(cuentas.length)];
+                    Cuenta destino = cuentas[aleatorio.nextInt(cuentas.length)];
+                    long centavos = 1 + aleatorio.nextInt(50_000);
+                    BigDecimal monto = BigDecimal.valueOf(centavos, 2);
+                    int tipo = aleatorio.nextInt(4);
+                    ResultadoOperacion resultado;
+                    if (tipo == 1) {
+                        resultado = cooperativa.intentarTransaccion(new Deposito(origen, monto));
+                        neto += resultado.isExitoso() ? centavos : 0;
+                    } else if (tipo == 2) {
+                        resultado = cooperativa.intentarTransaccion(new Retiro(origen, monto));
+                        neto -= resultado.isExitoso() ? centavos : 0;
+                    } else if (origen != destino) {
+                        resultado = cooperativa.intentarTransaccion(new Transferencia(origen, destino, monto));
+                    } else {
+                        continue;
+                    }
+                    aceptadas += resultado.isExitoso() ? 1 : 0;
+                }
+                return new long[] { neto, aceptadas };
+            }));
+        }
+        long[] total = new long[2];
+        for (Future<long[]> futuro : futuros) {
+            long[] parcial = futuro.get();
+            total[0] += parcial[0];
+            total[1] += parcial[1];
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        return total;
+    }
+}
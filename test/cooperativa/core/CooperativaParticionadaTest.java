@@ -0,0 +1,73 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+
+/*
+ * Cooperativa particionada: un socio con cuentas en varias particiones y su recuperación desde los
+ * snapshots y bitácoras de cada partición.
+ */
+class CooperativaParticionadaTest {
+
+    private static final int PARTICIONES = 4;
+    private static final int CUENTAS = 12;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cadaParticionGuardaSoloSusCuentas() throws Exception {
+        BigDecimal total;
+        try (CooperativaParticionada cooperativa = new CooperativaParticionada("Prueba", "Local", PARTICIONES)) {
+            cooperativa.abrirBitacoras(directorio, false);
+            cooperativa.agregarSocio(new Socio("Viajero", "CED"));
+            for (int i = 0; i < CUENTAS; i++) {
+                cooperativa.agregarCuentaASocio("CED", new CuentaAhorros("N" + i,
+                        BigDecimal.valueOf(100 + i), null, new BigDecimal("0.02")));
+            }
+            // El invitado es otro objeto que el socio de su hogar, y solo tiene las cuentas de su partición
+            for (int i = 0; i < PARTICIONES; i++) {
+                Cooperativa particion = cooperativa.getParticion(i);
+                long propias = particion.listarCuentas().count();
+                if (propias > 0) {
+                    assertEquals(propias, particion.buscarSocioPorCedula("CED").getCuentas().size());
+                }
+            }
+            int otra = (CooperativaParticionada.particion("CED", PARTICIONES) + 1) % PARTICIONES;
+            if (cooperativa.getParticion(otra).listarCuentas().count() > 0) {
+                assertNotSame(cooperativa.buscarSocioPorCedula("CED"),
+                        cooperativa.getParticion(otra).buscarSocioPorCedula("CED"));
+            }
+            for (int i = 0; i < PARTICIONES; i++) {
+                cooperativa.getParticion(i).tomarSnapshot();
+            }
+            total = cooperativa.saldoTotalEnCuentas();
+            cooperativa.cerrarBitacoras();
+        }
+
+        try (CooperativaParticionada recuperada = new CooperativaParticionada("Prueba", "Local", PARTICIONES)) {
+            recuperada.abrirBitacoras(directorio, false);
+            assertEquals(CUENTAS, recuperada.listarCuentas().count());
+            assertEquals(CUENTAS, recuperada.cuentasDeSocio("CED").size());
+            assertEquals(0, total.compareTo(recuperada.saldoTotalEnCuentas()));
+            assertEquals(CUENTAS, recuperada.cuentasConSaldoMayorA(BigDecimal.ZERO).count());
+            assertEquals(1, recuperada.listarSocios().size());
+            for (int i = 0; i < CUENTAS; i++) {
+                // Cada cuenta se recupera en la partición de su número
+                String numero = "N" + i;
+                recuperada.getParticion(CooperativaParticionada.particion(numero, PARTICIONES))
+                        .buscarCuentaPorNumero(numero);
+            }
+            recuperada.cerrarBitacoras();
+        }
+    }
+}
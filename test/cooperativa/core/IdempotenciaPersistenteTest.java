@@ -0,0 +1,136 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+
+/*
+ * Claves de idempotencia tras una caída: las registradas con su transacción en la bitácora, y las que solo
+ * quedan en el snapshot después de compactar.
+ */
+class IdempotenciaPersistenteTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void lasClavesSobrevivenALaBitacora() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = abrir(archivo);
+        Cuenta cuenta = original.buscarCuentaPorNumero("A");
+        assertEquals(ResultadoOperacion.OK,
+                original.intentarTransaccion("dep-1", new Deposito(cuenta, new BigDecimal("10.00"))));
+        assertEquals(ResultadoOperacion.SALDO_INSUFICIENTE,
+                original.intentarTransaccion("ret-1", new Retiro(cuenta, new BigDecimal("500.00"))));
+
+        Cooperativa recuperada = caida(archivo);
+        Cuenta recuperadaA = recuperada.buscarCuentaPorNumero("A");
+        assertEquals(0, new BigDecimal("110.00").compareTo(recuperadaA.getSaldo()));
+        // El reintento no deposita otra vez
+        assertEquals(ResultadoOperacion.OK,
+                recuperada.intentarTransaccion("dep-1", new Deposito(recuperadaA, new BigDecimal("10.00"))));
+        assertEquals(0, new BigDecimal("110.00").compareTo(recuperadaA.getSaldo()));
+        // El rechazo se mantiene aunque ahora alcance el saldo
+        recuperada.ejecutarTransaccion(new Deposito(recuperadaA, new BigDecimal("1000.00")));
+        assertEquals(ResultadoOperacion.SALDO_INSUFICIENTE,
+                recuperada.intentarTransaccion("ret-1", new Retiro(recuperadaA, new BigDecimal("500.00"))));
+        assertEquals(0, new BigDecimal("1110.00").compareTo(recuperadaA.getSaldo()));
+        // Una clave nueva sí se aplica
+        assertEquals(ResultadoOperacion.OK,
+                recuperada.intentarTransaccion("ret-2", new Retiro(recuperadaA, new BigDecimal("500.00"))));
+        recuperada.close();
+        original.close();
+    }
+
+    @Test
+    void lasClavesSobrevivenAlSnapshotYLaCompactacion() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = abrir(archivo);
+        Cuenta cuenta = original.buscarCuentaPorNumero("A");
+        original.intentarTransaccion("dep-1", new Deposito(cuenta, new BigDecimal("10.00")));
+        original.tomarSnapshot();
+        original.intentarTransaccion("dep-2", new Deposito(cuenta, new BigDecimal("5.00")));
+
+        Files.copy(directorio.resolve("cooperativa.bitacora.snapshot"),
+                directorio.resolve("copia.bitacora.snapshot"));
+        Cooperativa recuperada = caida(archivo);
+        Cuenta recuperadaA = recuperada.buscarCuentaPorNumero("A");
+        recuperada.intentarTransaccion("dep-1", new Deposito(recuperadaA, new BigDecimal("10.00")));
+        recuperada.intentarTransaccion("dep-2", new Deposito(recuperadaA, new BigDecimal("5.00")));
+        assertEquals(0, new BigDecimal("115.00").compareTo(recuperadaA.getSaldo()));
+        recuperada.close();
+        original.close();
+    }
+
+    @Test
+    void lasClavesDelProcesadorAsincronoSobreviven() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = abrir(archivo);
+        Cuenta cuenta = original.buscarCuentaPorNumero("A");
+        try (ProcesadorAsincrono procesador = new ProcesadorAsincrono(original, 2, 16)) {
+            assertEquals(ResultadoOperacion.OK,
+                    procesador.enviar("dep-1", new Deposito(cuenta, new BigDecimal("10.00"))).get());
+            assertEquals(ResultadoOperacion.SALDO_INSUFICIENTE,
+                    procesador.enviar("ret-1", new Retiro(cuenta, new BigDecimal("500.00"))).get());
+        }
+
+        Cooperativa recuperada = caida(archivo);
+        Cuenta recuperadaA = recuperada.buscarCuentaPorNumero("A");
+        recuperada.ejecutarTransaccion(new Deposito(recuperadaA, new BigDecimal("1000.00")));
+        recuperada.intentarTransaccion("dep-1", new Deposito(recuperadaA, new BigDecimal("10.00")));
+        assertEquals(ResultadoOperacion.SALDO_INSUFICIENTE,
+                recuperada.intentarTransaccion("ret-1", new Retiro(recuperadaA, new BigDecimal("500.00"))));
+        assertEquals(0, new BigDecimal("1110.00").compareTo(recuperadaA.getSaldo()));
+        recuperada.close();
+        original.close();
+    }
+
+    @Test
+    void unaClaveRestauradaVenceConSuHora() {
+        VentanaIdempotencia ventana = new VentanaIdempotencia(Duration.ofHours(24), 8, 1000);
+        long ahora = System.currentTimeMillis();
+        byte ok = (byte) ResultadoOperacion.OK.ordinal();
+        ventana.restaurar(VentanaIdempotencia.huella("reciente"), ok, ahora - Duration.ofHours(20).toMillis());
+        ventana.restaurar(VentanaIdempotencia.huella("vencida"), ok, ahora - Duration.ofHours(25).toMillis());
+
+        assertNotNull(ventana.reservar("reciente"));
+        assertNull(ventana.reservar("vencida"));
+        // Exportada y restaurada en otra ventana, la clave sigue vigente
+        VentanaIdempotencia otra = new VentanaIdempotencia(Duration.ofHours(24), 8, 1000);
+        ventana.exportar().forEach(clave -> otra.restaurar(clave.huella(), clave.resultado(), clave.milis()));
+        assertEquals(ResultadoOperacion.OK, otra.reservar("reciente").join());
+    }
+
+    private static Cooperativa abrir(Path archivo) throws Exception {
+        Cooperativa cooperativa = new Cooperativa("Prueba", "Local");
+        cooperativa.abrirBitacora(archivo, true);
+        cooperativa.agregarSocio(new Socio("Socio", "C1"));
+        cooperativa.agregarCuentaASocio("C1", new CuentaAhorros("A", new BigDecimal("100.00"), null,
+                new BigDecimal("0.02")));
+        return cooperativa;
+    }
+
+    // Abre una copia de la bitácora tal como está en disco, sin cerrar la original
+    private Cooperativa caida(Path archivo) throws Exception {
+        Path copia = directorio.resolve("copia.bitacora");
+        Files.copy(archivo, copia, StandardCopyOption.REPLACE_EXISTING);
+        Cooperativa recuperada = new Cooperativa("Prueba", "Local");
+        recuperada.abrirBitacora(copia, true);
+        return recuperada;
+    }
+}
@@ -0,0 +1,184 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transferencia;
+
+/*
+ * Procesador asíncrono: orden de aplicación por cuenta y de las transferencias entre particiones,
+ * contrapresión con las colas llenas, cierre que termina lo encolado, y un Error al aplicar que falla
+ * solo su futuro sin detener la partición.
+ */
+class ProcesadorAsincronoTest {
+
+    private static final int PARTICIONES = 4;
+    private static final BigDecimal DIEZ = new BigDecimal("10.00");
+
+    @Test
+    void lasTransaccionesDeUnaCuentaSeAplicanEnElOrdenDeEnvio() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local");
+             ProcesadorAsincrono procesador = new ProcesadorAsincrono(cooperativa, PARTICIONES, 16)) {
+            Cuenta[] cuentas = new Cuenta[8];
+            for (int i = 0; i < cuentas.length; i++) {
+                cuentas[i] = abrir(cooperativa, "N" + i, BigDecimal.ZERO);
+            }
+            // Cada retiro solo tiene saldo si el depósito enviado justo antes ya se aplicó
+            List<CompletableFuture<ResultadoOperacion>> futuros = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                for (Cuenta cuenta : cuentas) {
+                    futuros.add(procesador.enviar(new Deposito(cuenta, DIEZ)));
+                    futuros.add(procesador.enviar(new Retiro(cuenta, DIEZ)));
+                }
+            }
+            for (CompletableFuture<ResultadoOperacion> futuro : futuros) {
+                assertEquals(ResultadoOperacion.OK, futuro.get(30, TimeUnit.SECONDS));
+            }
+            for (Cuenta cuenta : cuentas) {
+                assertEquals(0, cuenta.getSaldoCentavos());
+            }
+        }
+    }
+
+    @Test
+    void unaTransferenciaEntreParticionesNoSeAdelantaNiSeAtrasa() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local");
+             ProcesadorAsincrono procesador = new ProcesadorAsincrono(cooperativa, PARTICIONES, 16)) {
+            Cuenta origen = abrir(cooperativa, "N0", BigDecimal.ZERO);
+            Cuenta destino = abrir(cooperativa, numeroEnOtraParticion(origen), BigDecimal.ZERO);
+            List<CompletableFuture<ResultadoOperacion>> futuros = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                // El depósito va antes que la transferencia en la cola del origen y el retiro después en la
+                // del destino: cualquier otro orden deja a alguna de las dos sin saldo
+                futuros.add(procesador.enviar(new Deposito(origen, DIEZ)));
+                futuros.add(procesador.enviar(new Transferencia(origen, destino, DIEZ)));
+                futuros.add(procesador.enviar(new Retiro(destino, DIEZ)));
+            }
+            for (CompletableFuture<ResultadoOperacion> futuro : futuros) {
+                assertEquals(ResultadoOperacion.OK, futuro.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(0, origen.getSaldoCentavos());
+            assertEquals(0, destino.getSaldoCentavos());
+        }
+    }
+
+    @Test
+    void conLaColaLlenaEnviarEsperaYElCierreTerminaLoEncolado() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local")) {
+            Cuenta cuenta = abrir(cooperativa, "N0", BigDecimal.ZERO);
+            ProcesadorAsincrono procesador = new ProcesadorAsincrono(cooperativa, 1, 1);
+            List<CompletableFuture<ResultadoOperacion>> futuros = new ArrayList<>();
+            CompletableFuture<Void> envio;
+            Thread cierre;
+            cuenta.getLock().lock();
+            try {
+                // La partición toma el primero y queda esperando el candado; el segundo llena la cola
+                futuros.add(procesador.enviar(new Deposito(cuenta, DIEZ)));
+                while (!cuenta.getLock().hasQueuedThreads()) {
+                    Thread.onSpinWait();
+                }
+                futuros.add(procesador.enviar(new Deposito(cuenta, DIEZ)));
+
+                AtomicReference<Thread> emisor = new AtomicReference<>();
+                envio = CompletableFuture.runAsync(() -> {
+                    emisor.set(Thread.currentThread());
+                    try {
+                        futuros.add(procesador.enviar(new Retiro(cuenta, new BigDecimal("30.00"))));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                // Contrapresión: el tercer envío queda bloqueado mientras la cola siga llena
+                while (emisor.get() == null || emisor.get().getState() != Thread.State.WAITING) {
+                    assertFalse(envio.isDone());
+                    Thread.onSpinWait();
+                }
+                assertFalse(envio.isDone());
+
+                cierre = new Thread(procesador::close);
+                cierre.start();
+            } finally {
+                cuenta.getLock().unlock();
+            }
+            envio.get(30, TimeUnit.SECONDS);
+            cierre.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(cierre.isAlive());
+
+            // Lo encolado antes del cierre se aplicó en orden: el retiro de 30 no tenía saldo
+            assertEquals(3, futuros.size());
+            assertEquals(ResultadoOperacion.OK, futuros.get(0).getNow(null));
+            assertEquals(ResultadoOperacion.OK, futuros.get(1).getNow(null));
+            assertEquals(ResultadoOperacion.SALDO_INSUFICIENTE, futuros.get(2).getNow(null));
+            assertEquals(2000, cuenta.getSaldoCentavos());
+            assertThrows(IllegalStateException.class, () -> procesador.enviar(new Deposito(cuenta, DIEZ)));
+        }
+    }
+
+    @Test
+    void unErrorAlAplicarFallaSuFuturoYLaParticionSigue() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local");
+             ProcesadorAsincrono procesador = new ProcesadorAsincrono(cooperativa, 1, 16)) {
+            boolean[] fallar = { true };
+            Cuenta cuenta = new CuentaAhorros("N0", BigDecimal.ZERO, null, new BigDecimal("0.01")) {
+                @Override
+                public void depositarCentavos(long monto) {
+                    if (fallar[0]) {
+                        fallar[0] = false;
+                        throw new AssertionError("Falla simulada");
+                    }
+                    super.depositarCentavos(monto);
+                }
+            };
+            cooperativa.agregarSocio(new Socio("Socio N0", "CN0"));
+            cooperativa.agregarCuentaASocio("CN0", cuenta);
+
+            CompletableFuture<ResultadoOperacion> fallido = procesador.enviar(new Deposito(cuenta, DIEZ));
+            CompletableFuture<ResultadoOperacion> siguiente = procesador.enviar(new Deposito(cuenta, DIEZ));
+
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> fallido.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, error.getCause());
+            assertEquals(ResultadoOperacion.OK, siguiente.get(30, TimeUnit.SECONDS));
+            assertEquals(1000, cuenta.getSaldoCentavos());
+            assertTrue(cooperativa.verificarTotales());
+        }
+    }
+
+    private static Cuenta abrir(Cooperativa cooperativa, String numero, BigDecimal saldo) throws Exception {
+        cooperativa.agregarSocio(new Socio("Socio " + numero, "C" + numero));
+        Cuenta cuenta = new CuentaAhorros(numero, saldo, null, new BigDecimal("0.01"));
+        cooperativa.agregarCuentaASocio("C" + numero, cuenta);
+        return cuenta;
+    }
+
+    // Mismo reparto que ProcesadorAsincrono.particion
+    private static String numeroEnOtraParticion(Cuenta cuenta) {
+        int particion = Math.floorMod(cuenta.getNumeroCuenta().hashCode(), PARTICIONES);
+        for (int i = 1; ; i++) {
+            String numero = "N" + i;
+            if (Math.floorMod(numero.hashCode(), PARTICIONES) != particion) {
+                assertNotEquals(cuenta.getNumeroCuenta(), numero);
+                return numero;
+            }
+        }
+    }
+}
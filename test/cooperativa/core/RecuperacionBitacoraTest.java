@@ -0,0 +1,296 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.persistence.Bitacora;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transferencia;
+
+/*
+ * Recuperación desde bitácora y snapshot. La caída se simula copiando los archivos mientras la bitácora
+ * sigue abierta (sin el cierre ordenado) y abriendo la copia en una cooperativa nueva.
+ */
+class RecuperacionBitacoraTest {
+
+    private static final int CUENTAS = 16;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void reproduceLaBitacoraTrasUnaCaida() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = new Cooperativa("Prueba", "Local");
+        original.abrirBitacora(archivo, false);
+        Cuenta[] cuentas = abrirCuentas(original);
+        operar(original, cuentas, 500, 1);
+
+        Path copia = caida(archivo, "copia.bitacora");
+        Cooperativa recuperada = new Cooperativa("Prueba", "Local");
+        recuperada.abrirBitacora(copia, false);
+
+        assertEquals(saldos(original), saldos(recuperada));
+        assertTrue(recuperada.verificarTotales());
+        original.close();
+        recuperada.close();
+    }
+
+    @Test
+    void descartaUnRegistroFinalIncompleto() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = new Cooperativa("Prueba", "Local");
+        original.abrirBitacora(archivo, false);
+        Cuenta[] cuentas = abrirCuentas(original);
+        operar(original, cuentas, 200, 2);
+        Map<String, BigDecimal> antes = saldos(original);
+        long tamano = Files.size(archivo);
+        // El último depósito queda a medio escribir: la copia lo pierde
+        original.ejecutarTransaccion(new Deposito(cuentas[0], new BigDecimal("5.00")));
+
+        Path copia = caida(archivo, "copia.bitacora");
+        try (FileChannel canal = FileChannel.open(copia, StandardOpenOption.WRITE)) {
+            canal.truncate(tamano + (Files.size(copia) - tamano) / 2);
+        }
+        Cooperativa recuperada = new Cooperativa("Prueba", "Local");
+        recuperada.abrirBitacora(copia, false);
+
+        assertEquals(antes, saldos(recuperada));
+        // El resto incompleto se descarta del archivo y lo que sigue se anexa detrás del último registro válido
+        assertEquals(tamano, Files.size(copia));
+        recuperada.ejecutarTransaccion(new Deposito(recuperada.buscarCuentaPorNumero("N1"), new BigDecimal("1.00")));
+        recuperada.close();
+        Cooperativa otra = new Cooperativa("Prueba", "Local");
+        otra.abrirBitacora(copia, false);
+        assertEquals(saldos(recuperada), saldos(otra));
+        otra.close();
+        original.close();
+    }
+
+    @Test
+    void descartaDesdeUnRegistroCorrupto() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = new Cooperativa("Prueba", "Local");
+        original.abrirBitacora(archivo, false);
+        Cuenta[] cuentas = abrirCuentas(original);
+        operar(original, cuentas, 200, 3);
+        Map<String, BigDecimal> antes = saldos(original);
+        long tamano = Files.size(archivo);
+        original.ejecutarTransaccion(new Deposito(cuentas[0], new BigDecimal("5.00")));
+
+        Path copia = caida(archivo, "copia.bitacora");
+        byte[] contenido = Files.readAllBytes(copia);
+        // Un bit cambiado en el cuerpo del último registro: el CRC no coincide
+        contenido[contenido.length - 6] ^= 1;
+        Files.write(copia, contenido);
+        Cooperativa recuperada = new Cooperativa("Prueba", "Local");
+        recuperada.abrirBitacora(copia, false);
+
+        assertEquals(antes, saldos(recuperada));
+        assertEquals(tamano, Files.size(copia));
+        recuperada.close();
+        original.close();
+    }
+
+    @Test
+    void recuperaDesdeSnapshotYBitacoraCompactada() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        Cooperativa original = new Cooperativa("Prueba", "Local");
+        original.abrirBitacora(archivo, true);
+        Cuenta[] cuentas = abrirCuentas(original);
+        operar(original, cuentas, 2_000, 4);
+        long antesDelSnapshot = Files.size(archivo);
+        original.tomarSnapshot();
+        long compactada = Files.size(archivo);
+        assertTrue(compactada < antesDelSnapshot, "La bitácora no se compactó");
+        // Operaciones posteriores al snapshot, incluida una cuenta nueva
+        original.agregarSocio(new Socio("Nueva", "NUEVA"));
+        original.agregarCuentaASocio("NUEVA", new CuentaAhorros("NN", new BigDecimal("10.00"), null,
+                new BigDecimal("0.02")));
+        operar(original, cuentas, 300, 5);
+
+        caida(archivo, "copia.bitacora");
+        Path snapshot = directorio.resolve("cooperativa.bitacora.snapshot");
+        Files.copy(snapshot, directorio.resolve("copia.bitacora.snapshot"));
+        Cooperativa recuperada = new Cooperativa("Prueba", "Local");
+        recuperada.abrirBitacora(directorio.resolve("copia.bitacora"), true);
+
+        assertEquals(saldos(original), saldos(recuperada));
+        assertEquals(0, new BigDecimal("10.00").compareTo(recuperada.buscarCuentaPorNumero("NN").getSaldo()));
+        assertTrue(recuperada.verificarTotales());
+        assertEquals(original.listarSocios().size(), recuperada.listarSocios().size());
+        original.close();
+        recuperada.close();
+    }
+
+    @Test
+    void snapshotConUnaEscrituraEnCursoConservaElDineroTrasUnaCaida() throws Exception {
+        Path archivo = directorio.resolve("cooperativa.bitacora");
+        try (Cooperativa original = new Cooperativa("Prueba", "Local")) {
+            original.abrirBitacora(archivo, true);
+            Cuenta[] cuentas = abrirCuentas(original);
+            BigDecimal total = original.saldoTotalEnCuentas();
+            // La compactación falla: la caída llega con el snapshot ya publicado y la bitácora sin compactar
+            Files.createDirectory(directorio.resolve("cooperativa.bitacora.tmp"));
+
+            // El snapshot lee las cuentas en orden de alta; la última queda tomada por esta escritura
+            Cuenta primera = cuentas[0];
+            Cuenta ultima = cuentas[CUENTAS - 1];
+            FutureTask<Void> tarea = new FutureTask<>(() -> {
+                original.tomarSnapshot();
+                return null;
+            });
+            Thread snapshot = new Thread(tarea);
+            ultima.getLock().lock();
+            try {
+                snapshot.start();
+                while (!ultima.getLock().hasQueuedThread(snapshot)) {
+                    Thread.yield();
+                }
+                // Como ProcesadorAsincrono: aplicada y anexada, todavía sin sincronizar. El snapshot ya leyó
+                // "primera" y va a leer "ultima" con el movimiento
+                original.aplicarSinSincronizar(new Transferencia(primera, ultima, new BigDecimal("100.00")));
+            } finally {
+                ultima.getLock().unlock();
+            }
+            snapshot.join();
+            ExecutionException error = assertThrows(ExecutionException.class, tarea::get);
+            assertTrue(error.getCause() instanceof IOException);
+
+            Bitacora bitacora = original.getBitacoraReplicacion();
+            long durable = bitacora.getSecuenciaPersistida();
+            Path copia = caidaDurable(bitacora, durable, directorio.resolve("copia.bitacora"));
+            Files.copy(directorio.resolve("cooperativa.bitacora.snapshot"), directorio.resolve("copia.bitacora.snapshot"));
+            try (Cooperativa recuperada = new Cooperativa("Prueba", "Local")) {
+                recuperada.abrirBitacora(copia, true);
+                // Ningún saldo del snapshot viene de un registro perdido en la caída
+                for (Cuenta cuenta : recuperada.listarCuentas().toList()) {
+                    assertTrue(cuenta.getVersion() <= durable, cuenta.getNumeroCuenta());
+                }
+                assertEquals(0, total.compareTo(recuperada.saldoTotalEnCuentas()));
+                assertTrue(recuperada.verificarTotales());
+            }
+        }
+    }
+
+    @Test
+    void redondeaElInteresDeRegistrosAnterioresALosCentavos() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local")) {
+            ReceptorBitacora receptor = cooperativa.receptorReplica();
+            receptor.socio(1, "S1", "Socio", "C1");
+            receptor.cuentaAhorros(2, "C1", "A", new BigDecimal("100.00"), LocalDateTime.now(),
+                    new BigDecimal("0.02"), 0);
+            // Registro INTERES del formato anterior, con el interés en 10 decimales
+            Bitacora.reproducir(registroInteresAnterior(3, "A", new BigDecimal("2.0050000000")), receptor);
+            Bitacora.reproducir(registroInteresAnterior(4, "A", new BigDecimal("0.0049999999")), receptor);
+            assertEquals(0, new BigDecimal("102.01").compareTo(cooperativa.buscarCuentaPorNumero("A").getSaldo()));
+        }
+    }
+
+    @Test
+    void sinBitacoraNoSePuedeTomarSnapshot() throws Exception {
+        try (Cooperativa cooperativa = new Cooperativa("Prueba", "Local")) {
+            assertThrows(IllegalStateException.class, cooperativa::tomarSnapshot);
+        }
+    }
+
+    private static Cuenta[] abrirCuentas(Cooperativa cooperativa) throws Exception {
+        Cuenta[] cuentas = new Cuenta[CUENTAS];
+        for (int i = 0; i < CUENTAS; i++) {
+            cooperativa.agregarSocio(new Socio("Socio " + i, "C" + i));
+            cuentas[i] = new CuentaAhorros("N" + i, new BigDecimal("500.00"), null, new BigDecimal("0.03"));
+            cooperativa.agregarCuentaASocio("C" + i, cuentas[i]);
+        }
+        return cuentas;
+    }
+
+    private static void operar(Cooperativa cooperativa, Cuenta[] cuentas, int cantidad, long semilla) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        for (int i = 0; i < cantidad; i++) {
+            Cuenta origen = cuentas[aleatorio.nextInt(cuentas.length)];
+            Cuenta destino = cuentas[aleatorio.nextInt(cuentas.length)];
+            BigDecimal monto = BigDecimal.valueOf(1 + aleatorio.nextInt(20_000), 2);
+            switch (aleatorio.nextInt(3)) {
+                case 0 -> cooperativa.intentarTransaccion(new Deposito(origen, monto));
+                case 1 -> cooperativa.intentarTransaccion(new Retiro(origen, monto));
+                default -> {
+                    if (origen != destino) {
+                        cooperativa.intentarTransaccion(new Transferencia(origen, destino, monto));
+                    }
+                }
+            }
+        }
+    }
+
+    // [int longitud][byte 6][long secuencia][número][decimal][int CRC32], como lo escribía la bitácora
+    private static byte[] registroInteresAnterior(long secuencia, String numeroCuenta, BigDecimal monto)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream cuerpo = new DataOutputStream(bytes);
+        cuerpo.writeByte(6);
+        cuerpo.writeLong(secuencia);
+        cuerpo.writeUTF(numeroCuenta);
+        byte[] sinEscala = monto.unscaledValue().toByteArray();
+        cuerpo.writeInt(monto.scale());
+        cuerpo.writeShort(sinEscala.length);
+        cuerpo.write(sinEscala);
+        byte[] registro = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(registro);
+        return ByteBuffer.allocate(4 + registro.length + 4)
+                .putInt(registro.length - 9).put(registro).putInt((int) crc.getValue()).array();
+    }
+
+    // Solo lo que ya era durable al momento de la caída: los registros anexados sin sincronizar se pierden
+    private static Path caidaDurable(Bitacora bitacora, long durable, Path copia) throws IOException {
+        Bitacora.Cursor cursor = bitacora.cursor(0);
+        try (FileChannel canal = FileChannel.open(copia, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            while (true) {
+                // De a un registro, para cortar justo en la última secuencia durable
+                byte[] registro = bitacora.leer(cursor, 1);
+                if (registro.length == 0 || cursor.getSecuencia() > durable) {
+                    return copia;
+                }
+                canal.write(ByteBuffer.wrap(registro));
+            }
+        }
+    }
+
+    // Copia del archivo tal como está en disco, sin cerrar la bitácora original
+    private Path caida(Path archivo, String nombre) throws IOException {
+        return Files.copy(archivo, directorio.resolve(nombre), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Map<String, BigDecimal> saldos(Cooperativa cooperativa) {
+        Map<String, BigDecimal> saldos = new HashMap<>();
+        cooperativa.listarCuentas().forEach(c -> saldos.put(c.getNumeroCuenta(), c.getSaldo()));
+        return saldos;
+    }
+}
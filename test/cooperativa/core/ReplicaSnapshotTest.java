@@ -0,0 +1,116 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.FutureTask;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.persistence.Bitacora;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.persistence.Snapshot;
+import cooperativa.transactions.Deposito;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transferencia;
+
+/*
+ * Una réplica que ya tenía las cuentas se pone al día con un snapshot nuevo del primario: cada cuenta se
+ * lleva al saldo y la versión del snapshot, también cuando el saldo no cambió. Un snapshot tomado con
+ * escrituras en curso solo se envía cuando lo que refleja ya es durable en el primario.
+ */
+class ReplicaSnapshotTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void snapshotSobreUnaReplicaConLasCuentas() throws Exception {
+        Cooperativa primario = new Cooperativa("Prueba", "Local");
+        primario.abrirBitacora(directorio.resolve("primario.bitacora"), false);
+        primario.agregarSocio(new Socio("Socio", "C1"));
+        Cuenta igual = new CuentaAhorros("IGUAL", new BigDecimal("100.00"), null, new BigDecimal("0.02"));
+        Cuenta distinta = new CuentaAhorros("DISTINTA", new BigDecimal("50.00"), null, new BigDecimal("0.02"));
+        primario.agregarCuentaASocio("C1", igual);
+        primario.agregarCuentaASocio("C1", distinta);
+
+        Cooperativa replica = new Cooperativa("Prueba", "Local");
+        ReceptorBitacora receptor = replica.receptorReplica();
+        aplicarSnapshot(primario, receptor);
+
+        // La réplica se pierde estos movimientos: "IGUAL" vuelve al mismo saldo con otra versión
+        primario.ejecutarTransaccion(new Deposito(igual, new BigDecimal("7.00")));
+        primario.ejecutarTransaccion(new Retiro(igual, new BigDecimal("7.00")));
+        primario.ejecutarTransaccion(new Deposito(distinta, new BigDecimal("3.00")));
+        aplicarSnapshot(primario, receptor);
+
+        Cuenta replicaIgual = replica.buscarCuentaPorNumero("IGUAL");
+        Cuenta replicaDistinta = replica.buscarCuentaPorNumero("DISTINTA");
+        assertEquals(0, new BigDecimal("100.00").compareTo(replicaIgual.getSaldo()));
+        assertEquals(igual.getVersion(), replicaIgual.getVersion());
+        assertEquals(0, new BigDecimal("53.00").compareTo(replicaDistinta.getSaldo()));
+        assertEquals(distinta.getVersion(), replicaDistinta.getVersion());
+        assertEquals(0, primario.saldoTotalEnCuentas().compareTo(replica.saldoTotalEnCuentas()));
+        replica.close();
+        primario.close();
+    }
+
+    @Test
+    void snapshotConUnaEscrituraEnCursoSoloEnviaLoDurable() throws Exception {
+        try (Cooperativa primario = new Cooperativa("Prueba", "Local")) {
+            // Commit grupal: una escritura aplicada sin sincronizar todavía no es durable
+            primario.abrirBitacora(directorio.resolve("primario.bitacora"), true);
+            primario.agregarSocio(new Socio("Socio", "C1"));
+            Cuenta primera = new CuentaAhorros("PRIMERA", new BigDecimal("100.00"), null, new BigDecimal("0.02"));
+            Cuenta ultima = new CuentaAhorros("ULTIMA", new BigDecimal("100.00"), null, new BigDecimal("0.02"));
+            primario.agregarCuentaASocio("C1", primera);
+            primario.agregarCuentaASocio("C1", ultima);
+
+            // El snapshot lee "primera" y queda esperando a "ultima" mientras se le transfiere
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            FutureTask<Bitacora.Cursor> tarea = new FutureTask<>(() -> primario.enviarSnapshot(new DataOutputStream(bytes)));
+            Thread envio = new Thread(tarea);
+            ultima.getLock().lock();
+            try {
+                envio.start();
+                while (!ultima.getLock().hasQueuedThread(envio)) {
+                    Thread.yield();
+                }
+                primario.aplicarSinSincronizar(new Transferencia(primera, ultima, new BigDecimal("30.00")));
+            } finally {
+                ultima.getLock().unlock();
+            }
+            Bitacora.Cursor cursor = tarea.get();
+            Bitacora bitacora = primario.getBitacoraReplicacion();
+            long durable = bitacora.getSecuenciaPersistida();
+
+            Cooperativa replica = new Cooperativa("Prueba", "Local");
+            ReceptorBitacora receptor = replica.receptorReplica();
+            Snapshot.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), receptor);
+            assertTrue(replica.buscarCuentaPorNumero("ULTIMA").getVersion() <= durable);
+            // Con lo que entrega el cursor, la réplica completa la transferencia de la que el snapshot vio una parte
+            Bitacora.reproducir(bitacora.leer(cursor, Integer.MAX_VALUE), receptor);
+            assertEquals(0, new BigDecimal("70.00").compareTo(replica.buscarCuentaPorNumero("PRIMERA").getSaldo()));
+            assertEquals(0, new BigDecimal("130.00").compareTo(replica.buscarCuentaPorNumero("ULTIMA").getSaldo()));
+            replica.close();
+        }
+    }
+
+    private static void aplicarSnapshot(Cooperativa primario, ReceptorBitacora receptor) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        primario.enviarSnapshot(out);
+        out.flush();
+        Snapshot.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), receptor);
+    }
+}
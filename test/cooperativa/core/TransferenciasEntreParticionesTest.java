@@ -0,0 +1,196 @@
+package cooperativa.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cooperativa.models.Cuenta;
+import cooperativa.models.CuentaAhorros;
+import cooperativa.models.Socio;
+import cooperativa.persistence.Bitacora;
+import cooperativa.persistence.ReceptorBitacora;
+import cooperativa.transactions.Retiro;
+import cooperativa.transactions.Transferencia;
+
+/*
+ * Transferencias entre particiones: la intención durable permite terminar tras una caída una transferencia
+ * que quedó entre el retiro y el depósito, sin repetir el retiro.
+ */
+class TransferenciasEntreParticionesTest {
+
+    private static final int PARTICIONES = 4;
+    private static final String ORIGEN = "A0";
+    private static final String DESTINO = otraParticion("B");
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void lasTransferenciasSobrevivenAlReinicio() throws Exception {
+        BigDecimal total;
+        try (CooperativaParticionada cooperativa = abrir()) {
+            Cuenta[] cuentas = cuentasEnParticionesDistintas(cooperativa);
+            for (int i = 0; i < 50; i++) {
+                assertEquals(ResultadoOperacion.OK, cooperativa.intentarTransaccion(
+                        new Transferencia(cuentas[i % 2], cuentas[(i + 1) % 2], new BigDecimal("3.00"))));
+            }
+            cooperativa.intentarTransaccion("clave-1",
+                    new Transferencia(cuentas[0], cuentas[1], new BigDecimal("7.00")));
+            total = cooperativa.saldoTotalEnCuentas();
+            assertEquals(0, cooperativa.getTransferenciasPendientes());
+            cooperativa.cerrarBitacoras();
+        }
+        try (CooperativaParticionada recuperada = new CooperativaParticionada("Prueba", "Local", PARTICIONES)) {
+            recuperada.abrirBitacoras(directorio, false);
+            assertEquals(0, total.compareTo(recuperada.saldoTotalEnCuentas()));
+            // Terminadas todas, la bitácora de transferencias queda vacía al abrir
+            assertEquals(0, Files.size(directorio.resolve("transferencias.bitacora")));
+            // El reintento de una transferencia con clave no mueve el dinero otra vez
+            Cuenta origen = recuperada.buscarCuentaPorNumero(ORIGEN);
+            BigDecimal saldo = origen.getSaldo();
+            assertEquals(ResultadoOperacion.OK, recuperada.intentarTransaccion("clave-1",
+                    new Transferencia(origen, recuperada.buscarCuentaPorNumero(DESTINO), new BigDecimal("7.00"))));
+            assertEquals(0, saldo.compareTo(origen.getSaldo()));
+            recuperada.cerrarBitacoras();
+        }
+    }
+
+    @Test
+    void reanudaUnaTransferenciaEntreElRetiroYElDeposito() throws Exception {
+        String origen;
+        String destino;
+        BigDecimal total;
+        try (CooperativaParticionada cooperativa = abrir()) {
+            Cuenta[] cuentas = cuentasEnParticionesDistintas(cooperativa);
+            origen = cuentas[0].getNumeroCuenta();
+            destino = cuentas[1].getNumeroCuenta();
+            total = cooperativa.saldoTotalEnCuentas();
+            // La caída llega después del retiro: el dinero salió del origen y no llegó al destino
+            Cooperativa particionOrigen = cooperativa.getParticion(CooperativaParticionada.particion(origen, PARTICIONES));
+            assertEquals(ResultadoOperacion.OK,
+                    particionOrigen.intentarTransaccion("t-1-r", new Retiro(cuentas[0], new BigDecimal("40.00"))));
+            cooperativa.cerrarBitacoras();
+        }
+        registrarIntencion("t-1", origen, destino, new BigDecimal("40.00"));
+        registrarIntencion("t-2", origen, destino, new BigDecimal("5.00"));
+
+        try (CooperativaParticionada recuperada = new CooperativaParticionada("Prueba", "Local", PARTICIONES)) {
+            recuperada.abrirBitacoras(directorio, false);
+            // t-1 solo hace el depósito; t-2 (caída antes del retiro) se hace entera
+            assertEquals(0, new BigDecimal("55.00").compareTo(recuperada.buscarCuentaPorNumero(origen).getSaldo()));
+            assertEquals(0, new BigDecimal("145.00").compareTo(recuperada.buscarCuentaPorNumero(destino).getSaldo()));
+            assertEquals(0, total.compareTo(recuperada.saldoTotalEnCuentas()));
+            assertEquals(0, recuperada.getTransferenciasPendientes());
+            recuperada.cerrarBitacoras();
+        }
+        // Reanudadas una vez, no se repiten
+        try (CooperativaParticionada otra = new CooperativaParticionada("Prueba", "Local", PARTICIONES)) {
+            otra.abrirBitacoras(directorio, false);
+            assertEquals(0, new BigDecimal("55.00").compareTo(otra.buscarCuentaPorNumero(origen).getSaldo()));
+            otra.cerrarBitacoras();
+        }
+    }
+
+    @Test
+    void unDepositoFallidoSeCompensa() throws Exception {
+        try (CooperativaParticionada cooperativa = abrir()) {
+            Cuenta[] cuentas = cuentasEnParticionesDistintas(cooperativa);
+            // El destino está en el máximo representable: el depósito desborda y el retiro se devuelve
+            Cuenta llena = new CuentaAhorros(otraParticion("L"),
+                    new BigDecimal("92233720368547758.00"), null, new BigDecimal("0.02"));
+            cooperativa.agregarCuentaASocio("C1", llena);
+            assertThrows(ArithmeticException.class, () -> cooperativa.intentarTransaccion(
+                    new Transferencia(cuentas[0], llena, new BigDecimal("10.00"))));
+            assertEquals(0, new BigDecimal("100.00").compareTo(cuentas[0].getSaldo()));
+            assertEquals(0, cooperativa.getTransferenciasPendientes());
+            cooperativa.cerrarBitacoras();
+        }
+    }
+
+    private CooperativaParticionada abrir() throws Exception {
+        CooperativaParticionada cooperativa = new CooperativaParticionada("Prueba", "Local", PARTICIONES);
+        cooperativa.abrirBitacoras(directorio, false);
+        return cooperativa;
+    }
+
+    // ORIGEN y DESTINO con 100 cada una, en particiones distintas
+    private static Cuenta[] cuentasEnParticionesDistintas(CooperativaParticionada cooperativa) throws Exception {
+        cooperativa.agregarSocio(new Socio("Socio", "C1"));
+        Cuenta[] cuentas = {
+                new CuentaAhorros(ORIGEN, new BigDecimal("100.00"), null, new BigDecimal("0.02")),
+                new CuentaAhorros(DESTINO, new BigDecimal("100.00"), null, new BigDecimal("0.02")) };
+        for (Cuenta cuenta : cuentas) {
+            cooperativa.agregarCuentaASocio("C1", cuenta);
+        }
+        return cuentas;
+    }
+
+    // El primer número "<prefijo><i>" que cae en otra partición que ORIGEN
+    private static String otraParticion(String prefijo) {
+        int particion = CooperativaParticionada.particion(ORIGEN, PARTICIONES);
+        for (int i = 1; ; i++) {
+            if (CooperativaParticionada.particion(prefijo + i, PARTICIONES) != particion) {
+                return prefijo + i;
+            }
+        }
+    }
+
+    // Anexa una intención a la bitácora de transferencias, como si la caída hubiera llegado justo después
+    private void registrarIntencion(String id, String origen, String destino, BigDecimal monto) throws Exception {
+        try (Bitacora bitacora = Bitacora.abrir(directorio.resolve("transferencias.bitacora"), false, 0,
+                new ReceptorVacio())) {
+            bitacora.registrarIntencion(id, origen, destino, monto, LocalDateTime.now());
+        }
+        assertTrue(Files.size(directorio.resolve("transferencias.bitacora")) > 0);
+    }
+
+    private static final class ReceptorVacio implements ReceptorBitacora {
+        @Override
+        public void socio(long secuencia, String id, String nombre, String cedula) {
+        }
+
+        @Override
+        public void cuentaAhorros(long secuencia, String cedula, String numeroCuenta, BigDecimal saldo,
+                LocalDateTime fechaApertura, BigDecimal tasaInteresAnual, long ultimaCorridaInteres) {
+        }
+
+        @Override
+        public void deposito(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) {
+        }
+
+        @Override
+        public void retiro(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha) {
+        }
+
+        @Override
+        public void transferencia(long secuencia, String origen, String destino, BigDecimal monto,
+                LocalDateTime fecha) {
+        }
+
+        @Override
+        public void interes(long secuencia, String numeroCuenta, BigDecimal monto, LocalDateTime fecha,
+                long corrida) {
+        }
+
+        @Override
+        public void idempotencia(long secuencia, long huella, byte resultado, long milis) {
+        }
+
+        @Override
+        public void intencionTransferencia(long secuencia, String id, String origen, String destino,
+                BigDecimal monto, LocalDateTime fecha) {
+        }
+
+        @Override
+        public void finTransferencia(long secuencia, String id) {
+        }
+    }
+}
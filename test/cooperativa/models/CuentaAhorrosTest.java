@@ -0,0 +1,45 @@
+package cooperativa.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Redondeo del interés anual: calcularInteresAnual conserva 10 decimales; lo abonado se redondea
+ * HALF_UP a centavos una sola vez, desde el producto exacto.
+ */
+class CuentaAhorrosTest {
+
+    @Test
+    void elInteresCalculadoConservaDiezDecimales() {
+        assertEquals(new BigDecimal("0.0049500000"), cuenta("0.33", "1.5").calcularInteresAnual());
+        assertEquals(new BigDecimal("1.5000000000"), cuenta("100.00", "1.5").calcularInteresAnual());
+    }
+
+    @Test
+    void loAbonadoSeRedondeaHalfUpACentavos() {
+        // 5.00 * 2.5% = 0.125: la mitad sube (HALF_EVEN daría 0.12)
+        assertEquals(new BigDecimal("0.13"), cuenta("5.00", "2.5").calcularInteresAnualAbonable());
+        // 0.34 * 1.5% = 0.0051
+        assertEquals(new BigDecimal("0.01"), cuenta("0.34", "1.5").calcularInteresAnualAbonable());
+        // 0.33 * 1.5% = 0.00495: por debajo de medio centavo no se abona nada
+        assertEquals(new BigDecimal("0.00"), cuenta("0.33", "1.5").calcularInteresAnualAbonable());
+    }
+
+    @Test
+    void aplicarAbonaLoRedondeado() {
+        CuentaAhorros cuenta = cuenta("5.00", "2.5");
+        assertEquals(new BigDecimal("0.13"), cuenta.aplicarInteresAnualCuentas());
+        assertEquals(new BigDecimal("5.13"), cuenta.getSaldo());
+
+        CuentaAhorros sinAbono = cuenta("0.33", "1.5");
+        assertEquals(new BigDecimal("0.00"), sinAbono.aplicarInteresAnualCuentas());
+        assertEquals(new BigDecimal("0.33"), sinAbono.getSaldo());
+    }
+
+    private static CuentaAhorros cuenta(String saldo, String tasa) {
+        return new CuentaAhorros("A", new BigDecimal(saldo), null, new BigDecimal(tasa));
+    }
+}
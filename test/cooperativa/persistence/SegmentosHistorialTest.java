@@ -0,0 +1,69 @@
+package cooperativa.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cooperativa.models.CuentaAhorros;
+import cooperativa.transactions.Deposito;
+
+/*
+ * Segmentos del historial: reservas anuladas o sin completar y cierre (se borran los archivos y ya no se
+ * puede leer ni escribir).
+ */
+class SegmentosHistorialTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cerrarBorraLosSegmentos() throws Exception {
+        SegmentosHistorial segmentos = new SegmentosHistorial(directorio);
+        CuentaAhorros cuenta = new CuentaAhorros("A", new BigDecimal("100.00"), null, new BigDecimal("0.02"));
+        long anterior = -1;
+        for (int i = 0; i < 10; i++) {
+            anterior = segmentos.escribir(new Deposito(cuenta, new BigDecimal("1.00")), anterior, -1);
+        }
+        assertEquals(10, segmentos.transacciones(segmentos.getSiguientePosicion()).count());
+        assertEquals(1, contar(directorio));
+
+        segmentos.close();
+        assertEquals(0, contar(directorio));
+        assertThrows(IllegalStateException.class, () -> segmentos.transaccion(0));
+        assertThrows(IllegalStateException.class,
+                () -> segmentos.escribir(new Deposito(cuenta, new BigDecimal("1.00")), -1, -1));
+        // Cerrar otra vez no hace nada
+        segmentos.close();
+    }
+
+    @Test
+    void unaReservaAnuladaNoApareceEnLosRecorridos() throws Exception {
+        try (SegmentosHistorial segmentos = new SegmentosHistorial(directorio)) {
+            CuentaAhorros cuenta = new CuentaAhorros("A", new BigDecimal("100.00"), null, new BigDecimal("0.02"));
+            long anterior = segmentos.escribir(new Deposito(cuenta, new BigDecimal("1.00")), -1, -1);
+            segmentos.anular(segmentos.reservar());
+            segmentos.escribir(new Deposito(cuenta, new BigDecimal("2.00")), anterior, -1);
+            assertEquals(List.of(100L, 200L), segmentos.transacciones(segmentos.getSiguientePosicion())
+                    .map(t -> t.getMontoCentavos()).toList());
+
+            // Una reserva que nadie completa ni anula no deja el recorrido esperando para siempre
+            segmentos.reservar();
+            assertThrows(IllegalStateException.class,
+                    () -> segmentos.transacciones(segmentos.getSiguientePosicion()).count());
+        }
+    }
+
+    private static long contar(Path directorio) throws Exception {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.count();
+        }
+    }
+}